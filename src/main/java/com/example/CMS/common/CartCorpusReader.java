@@ -0,0 +1,295 @@
+package com.example.CMS.common;
+
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.cart.CartItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Reads carts one at a time from a local corpus file through read-only memory mappings, so the
+ * heap it needs does not grow with the file. The file is mapped a window at a time; a line cut
+ * off by the end of a window is read again from the start of the next one.
+ * <p>
+ * NDJSON corpora hold one cart per line, in the shape posted to {@code /applicable-coupons}.
+ * CSV corpora start with a header naming the columns {@code cart_id}, {@code product_id},
+ * {@code price} and {@code quantity}, plus optionally {@code category} and
+ * {@code product_name}; consecutive rows with the same cart id form one cart, and fields are
+ * not quoted. Lines that do not parse are skipped and counted.
+ */
+public class CartCorpusReader implements Iterator<Cart>, Closeable {
+
+    public enum Format {
+        NDJSON,
+        CSV;
+
+        /**
+         * The format implied by a file's extension: {@code .csv}, or NDJSON for anything else.
+         */
+        public static Format of(Path file) {
+            return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : NDJSON;
+        }
+    }
+
+    private static final int DEFAULT_WINDOW = 64 << 20;
+
+    private static final String CART_ID = "cart_id";
+    private static final String PRODUCT_ID = "product_id";
+    private static final String PRODUCT_NAME = "product_name";
+    private static final String CATEGORY = "category";
+    private static final String PRICE = "price";
+    private static final String QUANTITY = "quantity";
+
+    private final FileChannel channel;
+    private final long size;
+    private final int window;
+    private final Format format;
+    private final ObjectReader cartReader;
+
+    private MappedByteBuffer mapped;
+    private long mappedAt;
+    private long position;
+    private byte[] line = new byte[4096];
+    private int lineLength;
+
+    private Cart next;
+    private long carts;
+    private long invalidLines;
+
+    // CSV only: column positions, and the first row of the next cart once it has been read
+    private Map<String, Integer> columns;
+    private String pendingCartId;
+    private CartItem pendingItem;
+
+    public CartCorpusReader(Path file, Format format, ObjectMapper objectMapper) {
+        this(file, format, objectMapper, DEFAULT_WINDOW);
+    }
+
+    CartCorpusReader(Path file, Format format, ObjectMapper objectMapper, int window) {
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open cart corpus " + file, ex);
+        }
+        this.window = window;
+        this.format = format;
+        this.cartReader = objectMapper.readerFor(Cart.class);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = format == Format.CSV ? readCsvCart() : readJsonCart();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Cart next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Cart cart = next;
+        next = null;
+        carts++;
+        return cart;
+    }
+
+    /**
+     * Carts returned so far.
+     */
+    public long carts() {
+        return carts;
+    }
+
+    /**
+     * Lines skipped so far because they did not parse.
+     */
+    public long invalidLines() {
+        return invalidLines;
+    }
+
+    @Override
+    public void close() {
+        mapped = null;
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Cart readJsonCart() {
+        while (readLine()) {
+            try {
+                Cart cart = cartReader.readValue(line, 0, lineLength);
+                if (cart != null && cart.getItems() != null) {
+                    return cart;
+                }
+            } catch (IOException ex) {
+                // counted below
+            }
+            invalidLines++;
+        }
+        return null;
+    }
+
+    private Cart readCsvCart() {
+        if (columns == null && !readHeader()) {
+            return null;
+        }
+        if (pendingItem == null && !readCsvRow()) {
+            return null;
+        }
+
+        String cartId = pendingCartId;
+        Cart cart = new Cart();
+        cart.getItems().add(pendingItem);
+        pendingItem = null;
+
+        while (readCsvRow()) {
+            if (!cartId.equals(pendingCartId)) {
+                break;
+            }
+            cart.getItems().add(pendingItem);
+            pendingItem = null;
+        }
+        return cart;
+    }
+
+    private boolean readHeader() {
+        if (!readLine()) {
+            return false;
+        }
+        String[] names = lineString().split(",", -1);
+        columns = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            columns.put(names[i].trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of(CART_ID, PRODUCT_ID, PRICE, QUANTITY)) {
+            if (!columns.containsKey(required)) {
+                throw new RuntimeException("CSV cart corpus has no '" + required + "' column");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read the next valid row into {@link #pendingCartId} and {@link #pendingItem}.
+     */
+    private boolean readCsvRow() {
+        while (readLine()) {
+            String[] fields = lineString().split(",", -1);
+            try {
+                String cartId = field(fields, CART_ID);
+                if (cartId == null) {
+                    throw new IllegalArgumentException("no cart id");
+                }
+                pendingItem = CartItem.builder()
+                        .productId(field(fields, PRODUCT_ID))
+                        .productName(field(fields, PRODUCT_NAME))
+                        .category(field(fields, CATEGORY))
+                        .price(Double.parseDouble(field(fields, PRICE)))
+                        .quantity(Integer.parseInt(field(fields, QUANTITY)))
+                        .build();
+                pendingCartId = cartId;
+                return true;
+            } catch (RuntimeException ex) {
+                invalidLines++;
+            }
+        }
+        pendingItem = null;
+        return false;
+    }
+
+    private String field(String[] fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.length) {
+            return null;
+        }
+        String value = fields[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private String lineString() {
+        return new String(line, 0, lineLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copy the next non-blank line, without its line terminator, into {@link #line}.
+     *
+     * @return false at the end of the file
+     */
+    private boolean readLine() {
+        while (position < size) {
+            if (mapped == null || position >= mappedAt + mapped.limit()) {
+                map(position);
+            }
+            int start = (int) (position - mappedAt);
+            int end = indexOfNewline(start);
+            if (end < 0) {
+                if (mappedAt + mapped.limit() < size) {
+                    if (start == 0) {
+                        throw new RuntimeException("Cart corpus line at byte " + position
+                                + " is longer than " + window + " bytes");
+                    }
+                    map(position);
+                    continue;
+                }
+                end = mapped.limit();
+            }
+            position = mappedAt + end + 1;
+
+            int length = end - start;
+            if (length > 0 && mapped.get(start + length - 1) == '\r') {
+                length--;
+            }
+            if (line.length < length) {
+                line = new byte[Math.max(length, line.length * 2)];
+            }
+            mapped.get(start, line, 0, length);
+            lineLength = length;
+            if (!isBlank()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from, limit = mapped.limit(); i < limit; i++) {
+            if (mapped.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isBlank() {
+        for (int i = 0; i < lineLength; i++) {
+            if (line[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void map(long offset) {
+        try {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(window, size - offset));
+            mappedAt = offset;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot map cart corpus", ex);
+        }
+    }
+}
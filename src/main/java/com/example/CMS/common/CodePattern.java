@@ -0,0 +1,111 @@
+package com.example.CMS.common;
+
+import java.util.Locale;
+
+/**
+ * A coupon code pattern such as {@code SUMMER-####-####}: each {@code #} is one random symbol,
+ * everything else is copied as is. Symbols come from 32 letters and digits that are hard to
+ * confuse (no 0/O or 1/I).
+ * <p>
+ * {@link #code(long, long)} maps index 0, 1, 2, ... through a keyed permutation of the pattern's
+ * code space. Distinct indexes therefore always give distinct codes, the codes do not reveal
+ * their order, and a run can stop at any index and resume from it later.
+ */
+public final class CodePattern {
+
+    private static final char[] ALPHABET = "23456789ABCDEFGHJKLMNPQRSTUVWXYZ".toCharArray();
+    private static final int SYMBOL_BITS = 5;
+    private static final int ROUNDS = 4;
+
+    private final String pattern;
+    private final int symbols;
+    private final int halfBits;
+    private final long halfMask;
+
+    private CodePattern(String pattern, int symbols) {
+        this.pattern = pattern;
+        this.symbols = symbols;
+        int bits = symbols * SYMBOL_BITS;
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+    }
+
+    /**
+     * @throws IllegalArgumentException for an empty pattern, characters other than letters,
+     * digits, '-' and '#', or more than 12 symbols
+     */
+    public static CodePattern parse(String pattern) {
+        if (pattern == null || pattern.isBlank()) {
+            throw new IllegalArgumentException("Code pattern is empty");
+        }
+        String normalized = pattern.strip().toUpperCase(Locale.ROOT);
+        int symbols = 0;
+        for (char c : normalized.toCharArray()) {
+            if (c == '#') {
+                symbols++;
+            } else if (!(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9') && c != '-') {
+                throw new IllegalArgumentException("Code pattern may only hold letters, digits, '-' and '#'");
+            }
+        }
+        if (symbols == 0 || symbols > 12) {
+            throw new IllegalArgumentException("Code pattern needs between 1 and 12 '#' symbols");
+        }
+        return new CodePattern(normalized, symbols);
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    /**
+     * Number of distinct codes the pattern can produce.
+     */
+    public long space() {
+        return 1L << (symbols * SYMBOL_BITS);
+    }
+
+    /**
+     * The code at {@code index} (0 until {@link #space()}) of the permutation chosen by {@code key}.
+     */
+    public String code(long index, long key) {
+        if (index < 0 || index >= space()) {
+            throw new IllegalArgumentException("Index " + index + " is outside the code space");
+        }
+        long value = permute(index, key);
+
+        char[] out = pattern.toCharArray();
+        for (int i = out.length - 1; i >= 0; i--) {
+            if (out[i] == '#') {
+                out[i] = ALPHABET[(int) (value & (ALPHABET.length - 1))];
+                value >>>= SYMBOL_BITS;
+            }
+        }
+        return new String(out);
+    }
+
+    // Balanced Feistel network over 2 * halfBits bits, walking the cycle back into the space
+    private long permute(long index, long key) {
+        long value = index;
+        do {
+            long left = value >>> halfBits;
+            long right = value & halfMask;
+            for (int round = 0; round < ROUNDS; round++) {
+                long next = left ^ (round(right, key, round) & halfMask);
+                left = right;
+                right = next;
+            }
+            value = (left << halfBits) | right;
+        } while (value >= space());
+        return value;
+    }
+
+    private static long round(long half, long key, int round) {
+        long h = half ^ key ^ (0x9E3779B97F4A7C15L * (round + 1));
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.CMS.common;
+
+import java.util.Locale;
+
+/**
+ * Coupon codes are matched ignoring case and surrounding whitespace.
+ */
+public final class CouponCodes {
+
+    private CouponCodes() {
+    }
+
+    /**
+     * @return the code in its lookup form, or null for a missing or blank code
+     */
+    public static String normalize(String code) {
+        if (code == null || code.isBlank()) {
+            return null;
+        }
+        return code.strip().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.CMS.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Cross-node cache sync settings, bound from {@code cms.cache-sync.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cms.cache-sync")
+public class CacheSyncProperties {
+
+    /**
+     * Write and poll the change log. Off for a single node, where changes apply locally only.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Names this node in the change log; random per start unless set.
+     */
+    private String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * The change log is read this often, which bounds how long another node's change goes unseen.
+     */
+    private long pollIntervalMs = 1000;
+
+    /**
+     * Most changes applied per poll.
+     */
+    private int batchSize = 500;
+
+    /**
+     * How long a hole in the change log ids is waited on before it is skipped. A hole is a
+     * change still committing (its id was taken before the rows after it committed) or one
+     * that rolled back and never will.
+     */
+    private long gapTimeoutMs = 10_000;
+
+    /**
+     * Rows older than this are deleted from the change log.
+     */
+    private long retentionMs = 24 * 60 * 60 * 1000;
+}
@@ -0,0 +1,38 @@
+package com.example.CMS.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bulk code generation settings, bound from {@code cms.codes.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cms.codes")
+public class CouponCodeProperties {
+
+    /**
+     * Codes inserted and committed together, along with the campaign's progress. Keep it at or
+     * below {@code hibernate.jdbc.batch_size} so each batch goes out as one JDBC batch.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Largest campaign accepted.
+     */
+    private long maxCount = 10_000_000;
+
+    /**
+     * The pattern must allow this many codes per generated one, so guessing a valid code stays
+     * unlikely.
+     */
+    private long minSparsity = 1000;
+
+    /**
+     * Target false positive rate of the in-memory filter that turns away unknown codes.
+     */
+    private double filterFalsePositiveRate = 0.01;
+}
@@ -0,0 +1,26 @@
+package com.example.CMS.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redemption limit settings, bound from {@code cms.redemption.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cms.redemption")
+public class RedemptionProperties {
+
+    /**
+     * An unconfirmed reservation is released after this long.
+     */
+    private long reservationTtlMs = 15 * 60 * 1000;
+
+    /**
+     * Confirmed redemptions are written to the database in one batch this often.
+     */
+    private long flushIntervalMs = 1000;
+}
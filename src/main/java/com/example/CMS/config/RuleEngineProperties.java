@@ -0,0 +1,269 @@
+package com.example.CMS.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning knobs for coupon rule evaluation, bound from {@code cms.rules.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cms.rules")
+public class RuleEngineProperties {
+
+    /**
+     * PER_COUPON builds one KieSession per coupon; SHARED_SESSION loads every
+     * eligible coupon's rules into one rule base and fires them once per cart.
+     */
+    private EvaluationMode evaluationMode = EvaluationMode.PER_COUPON;
+
+    /**
+     * Evaluate coupons built on the seeded templates with native Java evaluators instead of Drools.
+     */
+    private boolean nativeEvaluators = true;
+
+    /**
+     * Only evaluate coupons whose products, category or minimum cart value the cart can meet.
+     */
+    private boolean candidateIndex = true;
+
+    private Cache cache = new Cache();
+
+    private ResultCache resultCache = new ResultCache();
+
+    private Parallel parallel = new Parallel();
+
+    private Batch batch = new Batch();
+
+    private CartSession cartSession = new CartSession();
+
+    private WarmUp warmUp = new WarmUp();
+
+    private Metrics metrics = new Metrics();
+
+    private Store store = new Store();
+
+    private Admission admission = new Admission();
+
+    private Compile compile = new Compile();
+
+    public enum EvaluationMode {
+        PER_COUPON,
+        SHARED_SESSION
+    }
+
+    public enum MissPolicy {
+        WAIT,
+        SKIP
+    }
+
+    public enum BuildMode {
+        CLASSIC,
+        EXECUTABLE_MODEL
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        /**
+         * Maximum number of compiled containers kept.
+         */
+        private int maxEntries = 2000;
+
+        /**
+         * Upper bound on the DRL source size of all cached containers, a proxy for their heap footprint.
+         */
+        private long maxSourceBytes = 16L * 1024 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class ResultCache {
+
+        /**
+         * Reuse the applicable coupons computed for an identical cart under the same catalog version and day.
+         */
+        private boolean enabled = true;
+
+        private int maxEntries = 50_000;
+
+        /**
+         * Upper bound on the estimated heap held by cached results.
+         */
+        private long maxBytes = 64L * 1024 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Parallel {
+
+        /**
+         * Evaluate the coupons of a cart concurrently on a dedicated pool.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Worker threads; 0 means one per available processor.
+         */
+        private int threads = 0;
+
+        private int queueCapacity = 10_000;
+
+        /**
+         * Catalogs smaller than this are evaluated on the request thread.
+         */
+        private int minCoupons = 64;
+
+        /**
+         * Native coupons evaluated per task.
+         */
+        private int chunkSize = 256;
+
+        /**
+         * A coupon taking longer than this is skipped and its decision discarded.
+         */
+        private long couponTimeoutMs = 50;
+
+        /**
+         * Coupons not evaluated within this budget are left out of the response.
+         */
+        private long requestTimeoutMs = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+
+        /**
+         * Carts evaluated concurrently by a batch request; 0 means four per worker thread.
+         */
+        private int maxInFlight = 0;
+
+        /**
+         * Largest JSON array accepted by the batch endpoint. NDJSON streams are not limited.
+         */
+        private int maxCarts = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class CartSession {
+
+        /**
+         * A cart session untouched for this long is dropped.
+         */
+        private long ttlMs = 30 * 60 * 1000;
+
+        /**
+         * Upper bound on live sessions; the least recently used one is dropped beyond it.
+         */
+        private int maxSessions = 100_000;
+    }
+
+    @Getter
+    @Setter
+    public static class WarmUp {
+
+        /**
+         * Compile the rules of every live coupon before the application reports ready.
+         */
+        private boolean enabled = true;
+
+        private long timeoutMs = 300_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+
+        /**
+         * Record a latency histogram sample for every coupon evaluated, tagged by engine and template.
+         */
+        private boolean perCoupon = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Store {
+
+        /**
+         * Persist compiled rule bases so a restart can skip recompiling unchanged rules.
+         */
+        private boolean enabled = true;
+
+        private String directory = System.getProperty("java.io.tmpdir") + "/cms-rule-store";
+    }
+
+    @Getter
+    @Setter
+    public static class Admission {
+
+        /**
+         * Put the evaluation endpoints behind a bulkhead, so a slow rule engine sheds its own
+         * load instead of tying up every request thread and database connection.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Evaluations running at once; 0 means two per available processor.
+         */
+        private int maxConcurrent = 0;
+
+        /**
+         * Requests waiting for a slot; further ones are shed straight away.
+         */
+        private int maxQueued = 64;
+
+        /**
+         * A request that cannot get a slot and finish (at the recent evaluation time) within
+         * this long is shed rather than left to time out.
+         */
+        private long deadlineMs = 1000;
+
+        /**
+         * Answer shed applicable-coupon requests from the result cache, or with the natively
+         * evaluated coupons only, instead of rejecting them.
+         */
+        private boolean degraded = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Compile {
+
+        /**
+         * CLASSIC builds rules through the interpreted DRL pipeline; EXECUTABLE_MODEL translates
+         * them to Java first, so constraints run as compiled lambdas. For the small rules of the
+         * seeded templates the executable model compiles slower and keeps more heap per rule base
+         * (see RuleFootprintBenchmark), and its rule bases cannot go in the compiled rule store, so
+         * it is opt-in.
+         */
+        private BuildMode buildMode = BuildMode.CLASSIC;
+
+        /**
+         * Compiler threads; 0 means half the available processors, at least one.
+         */
+        private int threads = 0;
+
+        /**
+         * Compiles waiting for a thread; further ones are refused and retried by a later request.
+         */
+        private int queueCapacity = 1_000;
+
+        /**
+         * What an evaluation does with coupons whose rules are not compiled yet: WAIT for the
+         * compile up to the wait timeout, or SKIP them while they compile in the background.
+         */
+        private MissPolicy missPolicy = MissPolicy.WAIT;
+
+        /**
+         * Longest an evaluation waits for a compile before leaving the coupon out. Applying a
+         * single coupon always waits this long and answers 503 if its rules are still not ready.
+         */
+        private long waitTimeoutMs = 5_000;
+    }
+}
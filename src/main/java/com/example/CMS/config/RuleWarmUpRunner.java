@@ -0,0 +1,38 @@
+package com.example.CMS.config;
+
+import com.example.CMS.service.RuleEngineService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compiles coupon rules during startup. Runners complete before the application is marked
+ * ready, so traffic is not accepted until the rule cache is warm.
+ */
+@Component
+@RequiredArgsConstructor
+public class RuleWarmUpRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleWarmUpRunner.class);
+
+    private final RuleEngineService ruleEngineService;
+    private final RuleEngineProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.getWarmUp().isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            int compiled = ruleEngineService.warmUp(properties.getWarmUp().getTimeoutMs());
+            log.info("Rule warm-up prepared {} rule base(s) in {} ms",
+                    compiled, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception ex) {
+            log.error("Rule warm-up failed, rules will compile on first use: {}", ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.CMS.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What-if simulation settings, bound from {@code cms.simulation.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cms.simulation")
+public class SimulationProperties {
+
+    /**
+     * Directory holding cart corpora; simulations can only read files inside it.
+     */
+    private String corpusDirectory = System.getProperty("java.io.tmpdir") + "/cms-corpus";
+
+    /**
+     * Simulation threads, kept apart from the pool serving live requests; 0 means half the
+     * available processors, at least one.
+     */
+    private int threads = 0;
+
+    /**
+     * Carts handed to a simulation thread at a time.
+     */
+    private int chunkSize = 512;
+
+    /**
+     * Upper bounds of the discount distribution buckets; discounts above the last bound are
+     * counted in an open-ended bucket.
+     */
+    private List<Double> discountBuckets = new ArrayList<>(List.of(5.0, 10.0, 25.0, 50.0, 100.0, 250.0, 500.0, 1000.0));
+}
@@ -0,0 +1,51 @@
+package com.example.CMS.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request capture settings, bound from {@code cms.capture.*}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "cms.capture")
+public class TrafficCaptureProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Fraction of matching requests written to the capture file.
+     */
+    private double sampleRate = 0.01;
+
+    /**
+     * Path prefixes of the requests that may be captured.
+     */
+    private List<String> paths = new ArrayList<>(List.of("/applicable-coupons", "/apply-coupon", "/coupons"));
+
+    /**
+     * Capture file, appended to as NDJSON.
+     */
+    private String file = System.getProperty("java.io.tmpdir") + "/cms-capture.ndjson";
+
+    /**
+     * Capturing stops once the file reaches this size.
+     */
+    private long maxFileBytes = 1L << 30;
+
+    /**
+     * Requests with larger bodies are not captured.
+     */
+    private int maxBodyBytes = 256 * 1024;
+
+    /**
+     * Captured requests waiting to be written; requests sampled while it is full are dropped.
+     */
+    private int queueCapacity = 10_000;
+}
@@ -1,13 +1,29 @@
 package com.example.CMS.controller;
 
+import com.example.CMS.config.RuleEngineProperties;
 import com.example.CMS.model.cart.Cart;
 import com.example.CMS.model.dto.ApplicableCouponsRequest;
+import com.example.CMS.model.dto.AppliedCoupon;
+import com.example.CMS.model.dto.BatchApplicableCouponsRequest;
+import com.example.CMS.model.dto.CartCouponsResult;
+import com.example.CMS.model.rule.ApplicableCoupons;
 import com.example.CMS.model.rule.DiscountDecision;
 import com.example.CMS.service.CouponService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,27 +32,92 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class CartController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String PARTIAL_HEADER = "X-Coupons-Partial";
+
     private final CouponService couponService;
+    private final RuleEngineProperties properties;
+    private final ObjectMapper objectMapper;
 
-    // Fetch all applicable coupons for a given cart
+    // Fetch all applicable coupons for a given cart; a partial answer under overload is flagged in a header
     @PostMapping("/applicable-coupons")
     public ResponseEntity<List<DiscountDecision>> getApplicableCoupons(
             @RequestBody ApplicableCouponsRequest request) {
 
-        return ResponseEntity.ok(couponService.getApplicableCoupons(request.getCart()));
+        ApplicableCoupons result = couponService.getApplicableCoupons(request.getCart());
+        return ResponseEntity.ok()
+                .header(PARTIAL_HEADER, String.valueOf(result.isPartial()))
+                .body(result.getDecisions());
+    }
+
+    // Applicable coupons for many carts at once, evaluated against one catalog snapshot
+    @PostMapping(value = "/applicable-coupons/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<CartCouponsResult>> getApplicableCouponsBatch(
+            @RequestBody BatchApplicableCouponsRequest request) {
+
+        List<Cart> carts = request.getCarts();
+        if (carts.size() > properties.getBatch().getMaxCarts()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+
+        List<CartCouponsResult> results = new ArrayList<>(carts.size());
+        couponService.getApplicableCouponsBatch(carts.iterator(), results::add);
+        return ResponseEntity.ok(results);
+    }
+
+    // Streaming variant: one cart per NDJSON line in, one result per line out, in the same order
+    @PostMapping(value = "/applicable-coupons/batch", consumes = NDJSON)
+    public void streamApplicableCouponsBatch(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        response.setContentType(NDJSON);
+
+        try (MappingIterator<Cart> carts = objectMapper.readerFor(Cart.class).readValues(request.getInputStream());
+             SequenceWriter out = objectMapper.writer()
+                     .withRootValueSeparator("\n")
+                     .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                     .writeValues(response.getOutputStream())) {
+
+            couponService.getApplicableCouponsBatch(carts, result -> {
+                try {
+                    out.write(result);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
     }
 
-    // Apply a specific coupon to a cart and return updated cart
+    // Apply a specific coupon to a cart and return updated cart, plus the redemption held for a limited coupon
     @PostMapping("/apply-coupon/{id}")
     public ResponseEntity<Map<String, Object>> applyCouponToCart(
             @PathVariable Long id,
+            @RequestParam(required = false) String customerId,
             @RequestBody Map<String, Cart> payload) {
 
         Cart cart = payload.get("cart");
 
-        Cart updatedCart = couponService.applyCoupon(id, cart);
+        AppliedCoupon applied = couponService.applyCoupon(id, cart, customerId);
+        return ResponseEntity.ok(toResponse(applied));
+    }
+
+    // Apply the coupon a customer typed in; codes match ignoring case, unknown codes get 404
+    @PostMapping("/apply-coupon/code/{code}")
+    public ResponseEntity<Map<String, Object>> applyCouponCodeToCart(
+            @PathVariable String code,
+            @RequestParam(required = false) String customerId,
+            @RequestBody Map<String, Cart> payload) {
+
+        AppliedCoupon applied = couponService.applyCouponByCode(code, payload.get("cart"), customerId);
+        return ResponseEntity.ok(toResponse(applied));
+    }
+
+    private static Map<String, Object> toResponse(AppliedCoupon applied) {
         Map<String, Object> response = new HashMap<>();
-        response.put("updated_cart", updatedCart);
-        return ResponseEntity.ok(response);
+        response.put("updated_cart", applied.getCart());
+        if (applied.getReservation() != null) {
+            response.put("reservation", applied.getReservation());
+        }
+        return response;
     }
 }
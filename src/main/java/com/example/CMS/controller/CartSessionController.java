@@ -0,0 +1,54 @@
+package com.example.CMS.controller;
+
+import com.example.CMS.model.cart.CartDelta;
+import com.example.CMS.model.dto.ApplicableCouponsRequest;
+import com.example.CMS.model.dto.CartSessionResponse;
+import com.example.CMS.service.CartSessionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/cart-sessions")
+@RequiredArgsConstructor
+public class CartSessionController {
+
+    private final CartSessionService cartSessionService;
+
+    // Start a cart session with a generated id and evaluate the whole cart once
+    @PostMapping
+    public ResponseEntity<CartSessionResponse> openSession(@RequestBody ApplicableCouponsRequest request) {
+        return ResponseEntity.ok(cartSessionService.open(null, request.getCart()));
+    }
+
+    // Start or replace the session of a known cart id
+    @PutMapping("/{cartId}")
+    public ResponseEntity<CartSessionResponse> putSession(
+            @PathVariable String cartId,
+            @RequestBody ApplicableCouponsRequest request) {
+
+        return ResponseEntity.ok(cartSessionService.open(cartId, request.getCart()));
+    }
+
+    // Apply item edits and return the updated applicable coupons
+    @PostMapping("/{cartId}/deltas")
+    public ResponseEntity<CartSessionResponse> applyDeltas(
+            @PathVariable String cartId,
+            @RequestBody List<CartDelta> deltas) {
+
+        return ResponseEntity.ok(cartSessionService.applyDeltas(cartId, deltas));
+    }
+
+    @GetMapping("/{cartId}")
+    public ResponseEntity<CartSessionResponse> getSession(@PathVariable String cartId) {
+        return ResponseEntity.ok(cartSessionService.get(cartId));
+    }
+
+    @DeleteMapping("/{cartId}")
+    public ResponseEntity<String> closeSession(@PathVariable String cartId) {
+        cartSessionService.close(cartId);
+        return ResponseEntity.ok("Cart session closed");
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.CMS.controller;
+
+import com.example.CMS.model.dto.CodeCampaignRequest;
+import com.example.CMS.model.dto.CodeCampaignResponse;
+import com.example.CMS.service.CodeCampaignService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/code-campaigns")
+@RequiredArgsConstructor
+public class CodeCampaignController {
+
+    private final CodeCampaignService codeCampaignService;
+
+    // Start generating single-use codes for a coupon; poll the campaign for progress
+    @PostMapping
+    public ResponseEntity<CodeCampaignResponse> start(@RequestBody CodeCampaignRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(codeCampaignService.start(request));
+    }
+
+    // Progress of a campaign
+    @GetMapping("/{id}")
+    public ResponseEntity<CodeCampaignResponse> get(@PathVariable Long id) {
+        return ResponseEntity.ok(codeCampaignService.get(id));
+    }
+
+    // Continue a failed or interrupted campaign from its last committed batch
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<CodeCampaignResponse> resume(@PathVariable Long id) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(codeCampaignService.resume(id));
+    }
+}
@@ -1,21 +1,31 @@
 package com.example.CMS.controller;
 
-import com.example.CMS.entity.Coupon;
+import com.example.CMS.model.dto.CouponFilter;
+import com.example.CMS.model.dto.CouponPage;
 import com.example.CMS.model.dto.CreateCouponRequest;
 import com.example.CMS.model.dto.CouponResponse;
 import com.example.CMS.service.CouponService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 @RestController
 @RequestMapping("/coupons")
 @RequiredArgsConstructor
 public class CouponController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final CouponService couponService;
+    private final ObjectMapper objectMapper;
 
     // Create a new coupon
     @PostMapping
@@ -23,10 +33,39 @@ public class CouponController {
         return ResponseEntity.ok(couponService.createCoupon(request));
     }
 
-    // Fetch all coupons
+    // Fetch all coupons, streamed as a JSON array (or NDJSON) while they are read
     @GetMapping
-    public ResponseEntity<List<CouponResponse>> getAllCoupons() {
-        return ResponseEntity.ok(couponService.getAllCoupons());
+    public ResponseEntity<StreamingResponseBody> getAllCoupons(
+            CouponFilter filter,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        boolean ndjson = accept != null && accept.contains(NDJSON.toString());
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = ndjson
+                    ? objectMapper.writer().withRootValueSeparator("\n").writeValues(out)
+                    : objectMapper.writer().writeValuesAsArray(out)) {
+                couponService.exportCoupons(filter, coupon -> {
+                    try {
+                        writer.write(coupon);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    // Fetch one page of coupons after the given id
+    @GetMapping("/page")
+    public ResponseEntity<CouponPage> getCouponPage(
+            CouponFilter filter,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit) {
+
+        return ResponseEntity.ok(couponService.getCouponPage(filter, after, limit));
     }
 
     // Fetch a coupon by ID
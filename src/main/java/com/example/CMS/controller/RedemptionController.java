@@ -0,0 +1,28 @@
+package com.example.CMS.controller;
+
+import com.example.CMS.service.RedemptionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/redemptions")
+@RequiredArgsConstructor
+public class RedemptionController {
+
+    private final RedemptionService redemptionService;
+
+    // The order went through: the held redemption counts for good
+    @PostMapping("/{reservationId}/confirm")
+    public ResponseEntity<String> confirm(@PathVariable String reservationId) {
+        redemptionService.confirm(reservationId);
+        return ResponseEntity.ok("Redemption confirmed.");
+    }
+
+    // The cart was abandoned or the coupon removed: give the redemption back
+    @DeleteMapping("/{reservationId}")
+    public ResponseEntity<String> release(@PathVariable String reservationId) {
+        redemptionService.release(reservationId);
+        return ResponseEntity.ok("Reservation released.");
+    }
+}
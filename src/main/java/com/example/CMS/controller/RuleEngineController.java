@@ -0,0 +1,28 @@
+package com.example.CMS.controller;
+
+import com.example.CMS.model.rule.ResultCacheStats;
+import com.example.CMS.model.rule.RuleCacheStats;
+import com.example.CMS.service.RuleEngineService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/rule-engine")
+@RequiredArgsConstructor
+public class RuleEngineController {
+
+    private final RuleEngineService ruleEngineService;
+
+    // Compiled rule cache statistics
+    @GetMapping("/cache")
+    public ResponseEntity<RuleCacheStats> getCacheStats() {
+        return ResponseEntity.ok(ruleEngineService.getCacheStats());
+    }
+
+    // Applicable-coupon result cache statistics
+    @GetMapping("/result-cache")
+    public ResponseEntity<ResultCacheStats> getResultCacheStats() {
+        return ResponseEntity.ok(ruleEngineService.getResultCacheStats());
+    }
+}
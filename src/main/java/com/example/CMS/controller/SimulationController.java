@@ -0,0 +1,22 @@
+package com.example.CMS.controller;
+
+import com.example.CMS.model.dto.SimulationReport;
+import com.example.CMS.model.dto.SimulationRequest;
+import com.example.CMS.service.SimulationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/simulations")
+@RequiredArgsConstructor
+public class SimulationController {
+
+    private final SimulationService simulationService;
+
+    // Replay a cart corpus against a draft coupon (or an edited template) and report its payout; runs to completion
+    @PostMapping
+    public ResponseEntity<SimulationReport> simulate(@RequestBody SimulationRequest request) {
+        return ResponseEntity.ok(simulationService.simulate(request));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.CMS.controller;
+
+import com.example.CMS.config.TrafficCaptureProperties;
+import com.example.CMS.model.capture.CapturedRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples cart and coupon requests to a local NDJSON file for the replay harness, when
+ * {@code cms.capture.enabled} is set. Requests only hand their record to a bounded queue; a
+ * background thread writes it, and records that do not fit are dropped rather than slowing
+ * the request down.
+ */
+@Component
+public class TrafficCaptureFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(TrafficCaptureFilter.class);
+
+    private final TrafficCaptureProperties properties;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<CapturedRequest> queue;
+    private final Thread writer;
+
+    private volatile boolean full;
+
+    public TrafficCaptureFilter(TrafficCaptureProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.writer = new Thread(this::writeCaptures, "traffic-capture-writer");
+        this.writer.setDaemon(true);
+        if (properties.isEnabled()) {
+            writer.start();
+            log.info("Capturing {}% of {} requests to {}", properties.getSampleRate() * 100,
+                    properties.getPaths(), properties.getFile());
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled() || full) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return properties.getPaths().stream().noneMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        if (ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long arrived = System.currentTimeMillis();
+        long start = System.nanoTime();
+        LimitedBody body = new LimitedBody(request, properties.getMaxBodyBytes());
+        try {
+            chain.doFilter(body, response);
+        } finally {
+            if (!body.overflowed) {
+                byte[] content = body.getContentAsByteArray();
+                CapturedRequest captured = CapturedRequest.builder()
+                        .at(arrived)
+                        .method(request.getMethod())
+                        .path(request.getRequestURI())
+                        .query(request.getQueryString())
+                        .contentType(request.getContentType())
+                        .body(content.length == 0 ? null : new String(content, StandardCharsets.UTF_8))
+                        .status(response.getStatus())
+                        .latencyMicros(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start))
+                        .build();
+                if (!queue.offer(captured)) {
+                    log.debug("Capture queue full, request dropped");
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.interrupt();
+    }
+
+    private void writeCaptures() {
+        Path file = Path.of(properties.getFile());
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            long written = Files.exists(file) ? Files.size(file) : 0;
+
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                while (written < properties.getMaxFileBytes()) {
+                    CapturedRequest captured = queue.poll();
+                    if (captured == null) {
+                        out.flush();
+                        captured = queue.take();
+                    }
+                    String line = toJson(captured);
+                    if (line != null) {
+                        out.write(line);
+                        out.write('\n');
+                        written += line.length() + 1;
+                    }
+                }
+                log.warn("Capture file {} reached {} bytes, capture stopped", file, properties.getMaxFileBytes());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            log.error("Capture to {} failed, capture stopped: {}", file, ex.getMessage(), ex);
+        } finally {
+            full = true;
+            queue.clear();
+        }
+    }
+
+    private String toJson(CapturedRequest captured) {
+        try {
+            return objectMapper.writeValueAsString(captured);
+        } catch (JsonProcessingException ex) {
+            log.debug("Captured request not serializable: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Keeps the body the controller reads, up to a limit; bodies over it are not captured.
+     */
+    private static final class LimitedBody extends ContentCachingRequestWrapper {
+
+        private boolean overflowed;
+
+        LimitedBody(HttpServletRequest request, int limit) {
+            super(request, limit);
+        }
+
+        @Override
+        protected void handleContentOverflow(int contentCacheLimit) {
+            overflowed = true;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.CMS.engine;
+
+import com.example.CMS.config.RuleEngineProperties;
+import com.example.CMS.model.rule.RuleCacheStats;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Bounded LRU cache of compiled rule bases keyed by the hash of their DRL, so coupons
+ * that render to identical DRL share one artifact. Compiling is left to the caller, so a miss
+ * never holds the cache lock.
+ * <p>
+ * Callers hold a {@link Lease} while they use a rule base. An evicted or invalidated rule base
+ * is disposed as soon as its last lease is closed, never while a session may still use it.
+ */
+@Component
+@RequiredArgsConstructor
+public class CompiledRuleCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CompiledRuleCache.class);
+
+    private final RuleEngineProperties properties;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Return a lease on the rule base for {@code drlHash}, or null on a miss. The caller compiles
+     * missing rules and {@link #put}s them.
+     */
+    public synchronized Lease acquire(String drlHash) {
+        Entry entry = entries.get(drlHash);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entry.refs++;
+        return new Lease(entry);
+    }
+
+    /**
+     * Like {@link #acquire(String)} but not counted as a lookup: for a caller whose miss was
+     * already counted and who waited for the compile to fill it.
+     */
+    public synchronized Lease reacquire(String drlHash) {
+        Entry entry = entries.get(drlHash);
+        if (entry == null) {
+            return null;
+        }
+        entry.refs++;
+        return new Lease(entry);
+    }
+
+    /**
+     * Add a compiled rule base. If the hash is already cached, {@code compiled} is disposed.
+     */
+    public synchronized void put(String drlHash, long sourceBytes, CompiledRules compiled) {
+        if (entries.containsKey(drlHash)) {
+            compiled.dispose();
+            return;
+        }
+        Entry entry = new Entry(drlHash, compiled, sourceBytes);
+        entries.put(drlHash, entry);
+        weight += sourceBytes;
+        evictIfNeeded(entry);
+    }
+
+    /**
+     * Drop a compiled artifact; it is disposed once no lease holds it.
+     */
+    public synchronized void invalidate(String drlHash) {
+        Entry entry = entries.remove(drlHash);
+        if (entry != null) {
+            retire(entry);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.values().forEach(this::retire);
+        entries.clear();
+    }
+
+    public synchronized RuleCacheStats stats() {
+        long lookups = hits + misses;
+        return RuleCacheStats.builder()
+                .hits(hits)
+                .misses(misses)
+                .evictions(evictions)
+                .size(entries.size())
+                .weightBytes(weight)
+                .hitRatio(lookups == 0 ? 0.0 : (double) hits / lookups)
+                .build();
+    }
+
+    private void evictIfNeeded(Entry keep) {
+        RuleEngineProperties.Cache limits = properties.getCache();
+        Iterator<Entry> it = entries.values().iterator();
+
+        while ((entries.size() > limits.getMaxEntries() || weight > limits.getMaxSourceBytes()) && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest == keep) {
+                continue;
+            }
+            it.remove();
+            evictions++;
+            retire(eldest);
+            log.debug("Evicted compiled rules {}", eldest.hash);
+        }
+    }
+
+    private void retire(Entry entry) {
+        if (entry.retired) {
+            return;
+        }
+        entry.retired = true;
+        weight -= entry.weight;
+        if (entry.refs == 0) {
+            entry.rules.dispose();
+        }
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.refs--;
+        if (entry.refs == 0 && entry.retired) {
+            entry.rules.dispose();
+        }
+    }
+
+    private static final class Entry {
+        private final String hash;
+        private final CompiledRules rules;
+        private final long weight;
+        private int refs;
+        private boolean retired;
+
+        private Entry(String hash, CompiledRules rules, long weight) {
+            this.hash = hash;
+            this.rules = rules;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Use of a cached rule base; close it once the session built from it is disposed.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Entry entry;
+        private boolean closed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public CompiledRules rules() {
+            return entry.rules;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+}
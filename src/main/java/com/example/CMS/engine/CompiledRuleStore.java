@@ -0,0 +1,133 @@
+package com.example.CMS.engine;
+
+import com.example.CMS.common.ContentHash;
+import com.example.CMS.config.RuleEngineProperties;
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.cart.CartItem;
+import com.example.CMS.model.rule.DiscountDecision;
+import org.drools.base.common.DroolsObjectInputStream;
+import org.drools.base.common.DroolsObjectOutputStream;
+import org.drools.kiesession.rulebase.InternalKnowledgeBase;
+import org.drools.kiesession.rulebase.KnowledgeBaseFactory;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.definition.KiePackage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Local directory of compiled rule packages keyed by DRL hash, so restarts and new nodes
+ * restore rule bases instead of recompiling them.
+ * <p>
+ * Entries live under a directory named after the Drools version and a fingerprint of the
+ * fact classes the rules are compiled against, so an upgrade never loads stale bytecode.
+ * Executable-model packages carry lambda consequences that do not serialize, so the store is
+ * off in that build mode.
+ */
+@Component
+public class CompiledRuleStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CompiledRuleStore.class);
+
+    private static final String SUFFIX = ".kpkg";
+
+    private final boolean enabled;
+    private final Path directory;
+
+    public CompiledRuleStore(RuleEngineProperties properties) {
+        this.enabled = properties.getStore().isEnabled()
+                && properties.getCompile().getBuildMode() == RuleEngineProperties.BuildMode.CLASSIC;
+        if (properties.getStore().isEnabled() && !enabled) {
+            log.info("Compiled rule store is off: executable-model rule bases cannot be stored");
+        }
+        this.directory = Path.of(properties.getStore().getDirectory()).resolve(formatVersion());
+    }
+
+    /**
+     * @return the stored rule base for the hash, or null when absent or unreadable
+     */
+    @SuppressWarnings("unchecked")
+    public CompiledRules load(String drlHash) {
+        if (!enabled) {
+            return null;
+        }
+        Path file = directory.resolve(drlHash + SUFFIX);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file));
+             DroolsObjectInputStream packages = new DroolsObjectInputStream(in, getClass().getClassLoader())) {
+
+            InternalKnowledgeBase kieBase = KnowledgeBaseFactory.newKnowledgeBase();
+            kieBase.addPackages((Collection<KiePackage>) packages.readObject());
+            return CompiledRules.of(kieBase);
+
+        } catch (Exception ex) {
+            log.warn("Discarding unreadable compiled rules {}: {}", file, ex.getMessage());
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    /**
+     * Persist the packages of a compiled rule base. Failures are logged and otherwise ignored.
+     */
+    public void save(String drlHash, KieBase kieBase) {
+        if (!enabled) {
+            return;
+        }
+        Path file = directory.resolve(drlHash + SUFFIX);
+        Path tmp = null;
+
+        try {
+            Files.createDirectories(directory);
+            tmp = Files.createTempFile(directory, drlHash, ".tmp");
+
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp));
+                 DroolsObjectOutputStream packages = new DroolsObjectOutputStream(out)) {
+                packages.writeObject(new ArrayList<>(kieBase.getKiePackages()));
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (Exception ex) {
+            log.warn("Could not store compiled rules {}: {}", file, ex.getMessage());
+            if (tmp != null) {
+                deleteQuietly(tmp);
+            }
+        }
+    }
+
+    private static String formatVersion() {
+        String drools = KieServices.class.getPackage().getImplementationVersion();
+        String facts = ContentHash.of(classBytes(Cart.class), classBytes(CartItem.class),
+                classBytes(Coupon.class), classBytes(DiscountDecision.class));
+        return (drools == null ? "unknown" : drools) + "-" + facts.substring(0, 12);
+    }
+
+    private static byte[] classBytes(Class<?> type) {
+        try (InputStream in = type.getResourceAsStream(type.getSimpleName() + ".class")) {
+            return in == null ? type.getName().getBytes(StandardCharsets.UTF_8) : in.readAllBytes();
+        } catch (IOException e) {
+            return type.getName().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignore) {
+            // best effort
+        }
+    }
+}
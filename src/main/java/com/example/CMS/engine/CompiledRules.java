@@ -0,0 +1,42 @@
+package com.example.CMS.engine;
+
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+
+/**
+ * A compiled rule base, either freshly built into a KieContainer or restored from the
+ * on-disk {@link CompiledRuleStore}.
+ */
+public final class CompiledRules {
+
+    private final KieBase kieBase;
+    private final KieContainer container;
+
+    private CompiledRules(KieBase kieBase, KieContainer container) {
+        this.kieBase = kieBase;
+        this.container = container;
+    }
+
+    public static CompiledRules of(KieContainer container) {
+        return new CompiledRules(container.getKieBase(), container);
+    }
+
+    public static CompiledRules of(KieBase kieBase) {
+        return new CompiledRules(kieBase, null);
+    }
+
+    public KieBase getKieBase() {
+        return kieBase;
+    }
+
+    public KieSession newSession() {
+        return kieBase.newKieSession();
+    }
+
+    public void dispose() {
+        if (container != null) {
+            container.dispose();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.CMS.engine;
+
+import com.example.CMS.common.BloomFilter;
+import com.example.CMS.config.CouponCodeProperties;
+import com.example.CMS.entity.CouponCode;
+import com.example.CMS.repository.CouponCodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bloom filter over every generated coupon code, so a code nobody generated is rejected without
+ * a database query. Codes the filter lets through are looked up by their unique index.
+ * <p>
+ * The filter is loaded in the background at startup; until then every lookup goes to the
+ * database. It only grows: codes of deleted coupons stay in it and cost one query when tried.
+ */
+@Component
+public class CouponCodeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CouponCodeIndex.class);
+
+    private static final int LOAD_PAGE = 10_000;
+    private static final long MIN_CAPACITY = 1 << 20;
+
+    private final CouponCodeRepository repository;
+    private final CouponCodeProperties properties;
+
+    private volatile BloomFilter filter;
+    private long capacity;
+    private long count;
+
+    public CouponCodeIndex(CouponCodeRepository repository, CouponCodeProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        Thread loader = new Thread(() -> {
+            try {
+                ensureCapacity(0);
+            } catch (RuntimeException ex) {
+                log.warn("Loading the coupon code filter failed, codes are looked up in the database", ex);
+            }
+        }, "coupon-code-index-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * @param code a normalized code
+     * @return the generated code, or null when no such code exists
+     */
+    public CouponCode find(String code) {
+        BloomFilter current = filter;
+        if (code == null || current != null && !current.mightContain(code)) {
+            return null;
+        }
+        return repository.findByCode(code).orElse(null);
+    }
+
+    /**
+     * Make room for {@code additional} codes, rebuilding the filter from the database when it
+     * would otherwise fill past the size it was built for.
+     */
+    public synchronized void ensureCapacity(long additional) {
+        if (filter != null && count + additional <= capacity) {
+            return;
+        }
+        long existing = repository.count();
+        long newCapacity = Math.max(MIN_CAPACITY, 2 * (existing + additional));
+        BloomFilter rebuilt = BloomFilter.withCapacity(newCapacity, properties.getFilterFalsePositiveRate());
+
+        long loaded = 0;
+        long after = 0;
+        List<Object[]> page;
+        do {
+            page = repository.findCodesAfter(after, PageRequest.of(0, LOAD_PAGE));
+            for (Object[] row : page) {
+                after = (Long) row[0];
+                rebuilt.add((String) row[1]);
+            }
+            loaded += page.size();
+        } while (page.size() == LOAD_PAGE);
+
+        capacity = newCapacity;
+        count = loaded;
+        filter = rebuilt;
+        log.info("Coupon code filter holds {} codes in {} KB", loaded, rebuilt.sizeBytes() / 1024);
+    }
+
+    /**
+     * Record committed codes. Loading holds the same lock, so codes committed while it runs are
+     * either read by it or added here once it is done.
+     */
+    public synchronized void add(Collection<String> codes) {
+        BloomFilter current = filter;
+        if (current == null) {
+            return; // the pending load reads them from the database
+        }
+        codes.forEach(current::add);
+        count += codes.size();
+    }
+}
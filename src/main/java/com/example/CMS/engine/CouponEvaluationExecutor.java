@@ -0,0 +1,124 @@
+package com.example.CMS.engine;
+
+import com.example.CMS.config.RuleEngineProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Dedicated worker pool for evaluating independent coupons of one cart, or independent carts
+ * of a batch, concurrently.
+ * The queue is bounded; when it is full the submitting request thread runs the task itself.
+ */
+@Component
+public class CouponEvaluationExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(CouponEvaluationExecutor.class);
+
+    private final ThreadPoolExecutor pool;
+
+    public CouponEvaluationExecutor(RuleEngineProperties properties) {
+        RuleEngineProperties.Parallel parallel = properties.getParallel();
+        int threads = parallel.getThreads() > 0 ? parallel.getThreads() : Runtime.getRuntime().availableProcessors();
+
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(parallel.getQueueCapacity()),
+                r -> {
+                    Thread t = new Thread(r, "coupon-eval-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Run the tasks on the pool and merge their results in task order, waiting no longer than
+     * {@code deadlineNanos} (a {@link System#nanoTime()} value). Tasks still running at the
+     * deadline are cancelled and contribute nothing.
+     */
+    public <T> List<T> invokeAll(List<Callable<List<T>>> tasks, long deadlineNanos) {
+        List<Future<List<T>>> futures = new ArrayList<>(tasks.size());
+        for (Callable<List<T>> task : tasks) {
+            futures.add(pool.submit(task));
+        }
+
+        List<T> results = new ArrayList<>();
+        int timedOut = 0;
+
+        for (Future<List<T>> future : futures) {
+            long remaining = deadlineNanos - System.nanoTime();
+            try {
+                if (remaining <= 0 && !future.isDone()) {
+                    throw new TimeoutException();
+                }
+                results.addAll(future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException ex) {
+                future.cancel(true);
+                timedOut++;
+            } catch (ExecutionException ex) {
+                log.error("Coupon evaluation task failed: {}", ex.getCause().getMessage(), ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                break;
+            }
+        }
+
+        if (timedOut > 0) {
+            log.warn("{} of {} coupon evaluation tasks missed the request deadline and were skipped",
+                    timedOut, tasks.size());
+        }
+        return results;
+    }
+
+    /**
+     * Run a stream of tasks with at most {@code maxInFlight} submitted at a time (0 picks a window
+     * from the pool size) and hand their results to {@code sink} on the calling thread, in
+     * submission order. A task failure aborts the pipeline and cancels the tasks still in flight.
+     */
+    public <T> void pipeline(Iterator<Callable<T>> tasks, int maxInFlight, Consumer<T> sink) {
+        int window = maxInFlight > 0 ? maxInFlight : pool.getMaximumPoolSize() * 4;
+        Deque<Future<T>> inFlight = new ArrayDeque<>(window);
+
+        try {
+            while (tasks.hasNext()) {
+                inFlight.add(pool.submit(tasks.next()));
+                if (inFlight.size() >= window) {
+                    sink.accept(await(inFlight.poll()));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                sink.accept(await(inFlight.poll()));
+            }
+        } finally {
+            inFlight.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Batch evaluation failed: " + ex.getCause().getMessage(), ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch evaluation interrupted", ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.CMS.engine;
+
+import com.example.CMS.common.ContentHash;
+import com.example.CMS.config.RuleEngineProperties;
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.cart.CartItem;
+import com.example.CMS.model.rule.DiscountDecision;
+import com.example.CMS.model.rule.ResultCacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Bounded LRU cache of the applicable coupons of a cart, keyed by the catalog version, the
+ * evaluation day and a canonical fingerprint of the cart's lines. Any coupon change publishes a
+ * new catalog version, so older results are never served; the cache is emptied the first time
+ * a newer version or day is seen.
+ */
+@Component
+@RequiredArgsConstructor
+public class CouponResultCache {
+
+    // Rough heap cost of a key and of one cached decision, used for the memory bound
+    private static final long ENTRY_OVERHEAD_BYTES = 240;
+    private static final long DECISION_BYTES = 80;
+
+    private final RuleEngineProperties properties;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long version = -1;
+    private LocalDate day;
+
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public record Key(long catalogVersion, LocalDate day, String cartFingerprint) {
+    }
+
+    /**
+     * Key for a cart: its lines (product, category, price, quantity) sorted, so the same
+     * contents in any order share one entry.
+     */
+    public static Key key(long catalogVersion, LocalDate day, Cart cart) {
+        List<String> lines = new ArrayList<>(cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            lines.add(item.getProductId() + '\u001f' + item.getCategory() + '\u001f'
+                    + item.getPrice() + '\u001f' + item.getQuantity());
+        }
+        lines.sort(null);
+        return new Key(catalogVersion, day, ContentHash.of(lines));
+    }
+
+    /**
+     * The cached decisions for {@code key}, or null. Callers get their own copies.
+     */
+    public synchronized List<DiscountDecision> get(Key key) {
+        Entry entry = admit(key) ? entries.get(key) : null;
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(entry.decisions);
+    }
+
+    /**
+     * Like {@link #get(Key)}, but a miss is not counted: for a quick look before deciding
+     * whether to evaluate, where the evaluation's own lookup records the miss.
+     */
+    public synchronized List<DiscountDecision> peek(Key key) {
+        Entry entry = admit(key) ? entries.get(key) : null;
+        if (entry == null) {
+            return null;
+        }
+        hits++;
+        return copy(entry.decisions);
+    }
+
+    public synchronized void put(Key key, List<DiscountDecision> decisions) {
+        if (!admit(key)) {
+            return; // computed against a catalog version that has since been replaced
+        }
+        Entry entry = new Entry(copy(decisions), weigh(decisions));
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += entry.weight;
+        evictIfNeeded();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized ResultCacheStats stats() {
+        long lookups = hits + misses;
+        return ResultCacheStats.builder()
+                .hits(hits)
+                .misses(misses)
+                .evictions(evictions)
+                .size(entries.size())
+                .estimatedBytes(weight)
+                .hitRatio(lookups == 0 ? 0.0 : (double) hits / lookups)
+                .build();
+    }
+
+    /**
+     * Move to a newer catalog version or day (dropping every older result) and tell whether
+     * {@code key} belongs to the current one.
+     */
+    private boolean admit(Key key) {
+        if (key.catalogVersion() > version
+                || key.catalogVersion() == version && (day == null || key.day().isAfter(day))) {
+            clear();
+            version = key.catalogVersion();
+            day = key.day();
+        }
+        return key.catalogVersion() == version && key.day().equals(day);
+    }
+
+    private void evictIfNeeded() {
+        RuleEngineProperties.ResultCache limits = properties.getResultCache();
+        Iterator<Entry> it = entries.values().iterator();
+
+        while ((entries.size() > limits.getMaxEntries() || weight > limits.getMaxBytes()) && it.hasNext()) {
+            weight -= it.next().weight;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private static long weigh(List<DiscountDecision> decisions) {
+        long bytes = ENTRY_OVERHEAD_BYTES;
+        for (DiscountDecision dd : decisions) {
+            bytes += DECISION_BYTES + (dd.getMessage() == null ? 0 : dd.getMessage().length());
+        }
+        return bytes;
+    }
+
+    // DiscountDecision is mutable, so nothing handed out may alias a cached instance
+    private static List<DiscountDecision> copy(List<DiscountDecision> decisions) {
+        List<DiscountDecision> copy = new ArrayList<>(decisions.size());
+        for (DiscountDecision dd : decisions) {
+            copy.add(new DiscountDecision(dd.getCouponId(), dd.isApplicable(), dd.getDiscountAmount(), dd.getMessage()));
+        }
+        return copy;
+    }
+
+    private record Entry(List<DiscountDecision> decisions, long weight) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.CMS.engine;
+
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.rule.DiscountDecision;
+
+/**
+ * A coupon that is not in the catalog, prepared once and evaluated against any number of carts.
+ * Safe to use from several threads; close it to release its rules.
+ */
+public interface DraftCouponEvaluator extends AutoCloseable {
+
+    /**
+     * @return the decision when the coupon applies to the cart, otherwise null. The cart is not mutated.
+     */
+    DiscountDecision evaluate(Cart cart);
+
+    /**
+     * @return true when the coupon runs on a native evaluator rather than through Drools
+     */
+    boolean isNative();
+
+    @Override
+    void close();
+}
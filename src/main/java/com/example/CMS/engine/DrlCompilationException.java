@@ -0,0 +1,21 @@
+package com.example.CMS.engine;
+
+import org.kie.api.builder.Results;
+
+/**
+ * Raised when generated DRL does not compile; carries the KIE build results so callers
+ * can tell which resource failed.
+ */
+public class DrlCompilationException extends RuntimeException {
+
+    private final transient Results results;
+
+    public DrlCompilationException(String message, Results results) {
+        super(message);
+        this.results = results;
+    }
+
+    public Results getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.CMS.engine;
+
+import com.example.CMS.config.RuleEngineProperties;
+import org.drools.compiler.kie.builder.impl.DrlProject;
+import org.drools.model.codegen.ExecutableModelProject;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.builder.Results;
+import org.kie.api.io.Resource;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles DRL sources into a KieContainer.
+ * <p>
+ * Every build gets its own ReleaseId, so concurrent builds never meet in the global
+ * KieRepository and need no lock. The module leaves the repository as soon as its container
+ * exists; the container keeps what it needs.
+ */
+@Component
+public class DrlCompiler {
+
+    private static final Logger log = LoggerFactory.getLogger(DrlCompiler.class);
+
+    private static final String GROUP_ID = "com.example.cms.rules";
+    private static final String VERSION = "1.0.0";
+
+    private final RuleEngineProperties.BuildMode buildMode;
+
+    public DrlCompiler(RuleEngineProperties properties) {
+        this.buildMode = properties.getCompile().getBuildMode();
+    }
+
+    public KieContainer compile(String drl) {
+        String drlPath = "src/main/resources/rules/dynamic-" + UUID.randomUUID() + ".drl";
+        return compile(Map.of(drlPath, drl));
+    }
+
+    /**
+     * Compile several DRL files (path -> source) into one container.
+     */
+    public KieContainer compile(Map<String, String> drlByPath) {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId(GROUP_ID, "rules-" + UUID.randomUUID(), VERSION);
+        KieFileSystem kfs = ks.newKieFileSystem().generateAndWritePomXML(releaseId);
+
+        drlByPath.forEach((drlPath, drl) -> {
+            Resource drlResource = ks.getResources()
+                    .newByteArrayResource(drl.getBytes(StandardCharsets.UTF_8))
+                    .setResourceType(ResourceType.DRL)
+                    .setSourcePath(drlPath);
+
+            kfs.write(drlResource);
+        });
+
+        try {
+            KieBuilder builder = ks.newKieBuilder(kfs).buildAll(buildMode == RuleEngineProperties.BuildMode.EXECUTABLE_MODEL
+                    ? ExecutableModelProject.class
+                    : DrlProject.class);
+            Results results = builder.getResults();
+
+            if (results.hasMessages(Message.Level.ERROR)) {
+                String errors = results.getMessages().stream()
+                        .map(Message::getText)
+                        .collect(Collectors.joining("\n"));
+                log.error("DRL compilation errors:\n{}", errors);
+                throw new DrlCompilationException("Failed to compile DRL: \n" + errors, results);
+            }
+
+            return ks.newKieContainer(releaseId);
+        } finally {
+            ks.getRepository().removeKieModule(releaseId);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.CMS.engine;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * A rule template parsed once into literal segments and {@code {{name}}} placeholders, so a
+ * coupon's DRL is rendered in a single pass.
+ * <p>
+ * Each placeholder remembers whether it sits inside a string literal of the template (as in
+ * {@code "{{category}}"}). There values are written as escaped string content; elsewhere strings
+ * become quoted, escaped literals, numbers and booleans are written as is, and lists become
+ * comma-separated string literals (for {@code Arrays.asList(...)}).
+ */
+public final class DrlTemplate {
+
+    /**
+     * Filled from the coupon itself rather than from its metadata.
+     */
+    public static final String COUPON_ID = "couponId";
+
+    private final String source;
+    private final String[] literals;
+    private final Placeholder[] placeholders;
+    private final Set<String> names;
+
+    private record Placeholder(String name, boolean inString) {
+    }
+
+    private DrlTemplate(String source, List<String> literals, List<Placeholder> placeholders) {
+        this.source = source;
+        this.literals = literals.toArray(String[]::new);
+        this.placeholders = placeholders.toArray(Placeholder[]::new);
+
+        Set<String> names = new LinkedHashSet<>();
+        placeholders.forEach(p -> names.add(p.name()));
+        this.names = Collections.unmodifiableSet(names);
+    }
+
+    public static DrlTemplate parse(String source) {
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        boolean inString = false;
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+
+            if (c == '{' && source.startsWith("{{", i)) {
+                int end = source.indexOf("}}", i + 2);
+                if (end < 0) {
+                    throw new DrlTemplateException(List.of("Unclosed placeholder at offset " + i));
+                }
+                String name = source.substring(i + 2, end).trim();
+                if (name.isEmpty()) {
+                    throw new DrlTemplateException(List.of("Empty placeholder at offset " + i));
+                }
+                literals.add(literal.toString());
+                literal.setLength(0);
+                placeholders.add(new Placeholder(name, inString));
+                i = end + 2;
+                continue;
+            }
+
+            if (inString) {
+                if (c == '\\' && i + 1 < source.length()) {
+                    literal.append(c).append(source.charAt(i + 1));
+                    i += 2;
+                    continue;
+                }
+                if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '/' && source.startsWith("//", i)) {
+                int end = source.indexOf('\n', i);
+                end = end < 0 ? source.length() : end;
+                literal.append(source, i, end);
+                i = end;
+                continue;
+            } else if (c == '/' && source.startsWith("/*", i)) {
+                int end = source.indexOf("*/", i + 2);
+                end = end < 0 ? source.length() : end + 2;
+                literal.append(source, i, end);
+                i = end;
+                continue;
+            }
+            literal.append(c);
+            i++;
+        }
+        literals.add(literal.toString());
+
+        return new DrlTemplate(source, literals, placeholders);
+    }
+
+    public String source() {
+        return source;
+    }
+
+    /**
+     * Placeholder names used by the template, {@link #COUPON_ID} included.
+     */
+    public Set<String> placeholderNames() {
+        return names;
+    }
+
+    /**
+     * Everything wrong with rendering this template from {@code metadata}: placeholders with no
+     * value, metadata keys the template does not use, and values that cannot be written into DRL.
+     */
+    public List<String> check(Map<String, Object> metadata) {
+        Map<String, Object> values = metadata == null ? Map.of() : metadata;
+        List<String> problems = new ArrayList<>();
+
+        for (String name : names) {
+            if (!COUPON_ID.equals(name) && values.get(name) == null) {
+                problems.add("Missing metadata '" + name + "'");
+            }
+        }
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (COUPON_ID.equals(entry.getKey())) {
+                problems.add("Metadata 'couponId' is reserved");
+            } else if (!names.contains(entry.getKey())) {
+                problems.add("Unknown metadata '" + entry.getKey() + "': the rule template has no such placeholder");
+            } else if (entry.getValue() != null && !isRenderable(entry.getValue())) {
+                problems.add("Metadata '" + entry.getKey() + "' has an unsupported value type "
+                        + entry.getValue().getClass().getSimpleName());
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Render the DRL of one coupon. Metadata keys without a placeholder are ignored here; see
+     * {@link #check(Map)}.
+     */
+    public String render(Long couponId, Map<String, Object> metadata) {
+        StringBuilder out = new StringBuilder(source.length() + 64);
+
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+
+            Placeholder placeholder = placeholders[i];
+            Object value = COUPON_ID.equals(placeholder.name())
+                    ? couponId
+                    : metadata == null ? null : metadata.get(placeholder.name());
+            if (value == null) {
+                throw new DrlTemplateException(List.of("Missing metadata '" + placeholder.name() + "'"));
+            }
+            if (placeholder.inString()) {
+                appendStringContent(out, placeholder.name(), value);
+            } else {
+                appendCode(out, placeholder.name(), value);
+            }
+        }
+        out.append(literals[placeholders.length]);
+        return out.toString();
+    }
+
+    private static boolean isRenderable(Object value) {
+        if (value instanceof List<?> list) {
+            return list.stream().allMatch(item -> item != null && isScalar(item));
+        }
+        return isScalar(value);
+    }
+
+    private static boolean isScalar(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean;
+    }
+
+    private static void appendCode(StringBuilder out, String name, Object value) {
+        if (value instanceof String s) {
+            out.append('"');
+            escape(out, s);
+            out.append('"');
+        } else if (value instanceof Number n) {
+            out.append(numberLiteral(name, n));
+        } else if (value instanceof Boolean b) {
+            out.append(b);
+        } else if (value instanceof List<?> list) {
+            for (int i = 0; i < list.size(); i++) {
+                Object item = list.get(i);
+                if (item == null || !isScalar(item)) {
+                    throw unsupported(name, item);
+                }
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append('"');
+                escape(out, item.toString());
+                out.append('"');
+            }
+        } else {
+            throw unsupported(name, value);
+        }
+    }
+
+    private static void appendStringContent(StringBuilder out, String name, Object value) {
+        if (value instanceof List<?> list) {
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendStringContent(out, name, list.get(i));
+            }
+        } else if (value != null && isScalar(value)) {
+            escape(out, value.toString());
+        } else {
+            throw unsupported(name, value);
+        }
+    }
+
+    private static String numberLiteral(String name, Number n) {
+        if (n instanceof BigDecimal d) {
+            return d.toPlainString();
+        }
+        if ((n instanceof Double || n instanceof Float) && !Double.isFinite(n.doubleValue())) {
+            throw new DrlTemplateException(List.of("Metadata '" + name + "' is not a finite number"));
+        }
+        return n.toString();
+    }
+
+    private static DrlTemplateException unsupported(String name, Object value) {
+        return new DrlTemplateException(List.of("Metadata '" + name + "' has an unsupported value type "
+                + (value == null ? "null" : value.getClass().getSimpleName())));
+    }
+
+    // Java string-literal escaping, which DRL shares
+    private static void escape(StringBuilder out, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+    }
+}
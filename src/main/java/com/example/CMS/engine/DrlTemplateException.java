@@ -0,0 +1,25 @@
+package com.example.CMS.engine;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.List;
+
+/**
+ * Raised when a coupon's metadata does not fit its rule template: a placeholder without a value,
+ * a metadata key the template never uses, or a value that cannot be written into DRL.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class DrlTemplateException extends RuntimeException {
+
+    private final List<String> problems;
+
+    public DrlTemplateException(List<String> problems) {
+        super(String.join("; ", problems));
+        this.problems = List.copyOf(problems);
+    }
+
+    public List<String> getProblems() {
+        return problems;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.CMS.engine;
+
+import com.example.CMS.config.RuleEngineProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for coupon evaluation: a fixed number of evaluations run at once and a
+ * bounded number of requests wait for a slot. A request is shed, rather than queued to time
+ * out, when the queue is full or when it could not get a slot and still finish within the
+ * deadline at the recent evaluation time. Shed requests get the caller's degraded answer or an
+ * {@link EvaluationRejectedException}.
+ * <p>
+ * Waiting parks on a semaphore, so it holds no carrier thread when requests run on virtual threads.
+ */
+@Component
+public class EvaluationBulkhead {
+
+    private static final double SMOOTHING = 0.2;
+
+    private final RuleEngineProperties.Admission properties;
+    private final MeterRegistry registry;
+    private final Semaphore slots;
+    private final int maxConcurrent;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    // Exponentially weighted recent evaluation time; updated without a lock, so approximate
+    private volatile long serviceNanos;
+
+    public EvaluationBulkhead(RuleEngineProperties properties, MeterRegistry registry) {
+        this.properties = properties.getAdmission();
+        this.registry = registry;
+        this.maxConcurrent = this.properties.getMaxConcurrent() > 0
+                ? this.properties.getMaxConcurrent()
+                : 2 * Runtime.getRuntime().availableProcessors();
+        this.slots = new Semaphore(maxConcurrent, true);
+
+        Gauge.builder("cms.rules.admission.in-flight", this, b -> b.maxConcurrent - b.slots.availablePermits())
+                .description("Evaluations holding a bulkhead slot")
+                .register(registry);
+        Gauge.builder("cms.rules.admission.waiting", waiting, AtomicInteger::get)
+                .description("Requests waiting for a bulkhead slot")
+                .register(registry);
+    }
+
+    /**
+     * Run {@code work} in a slot, or answer with {@code degraded} (which runs outside the
+     * bulkhead) when the request is shed.
+     *
+     * @param degraded the degraded answer, or null to reject shed requests
+     * @throws EvaluationRejectedException when the request is shed and there is no degraded answer
+     */
+    public <T> T execute(Supplier<T> work, Supplier<T> degraded) {
+        if (!properties.isEnabled()) {
+            return work.get();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getDeadlineMs());
+        String admitted = "immediate";
+        if (!slots.tryAcquire()) {
+            String shed = awaitSlot(deadline);
+            if (shed != null) {
+                count(shed);
+                if (degraded == null || !properties.isDegraded()) {
+                    throw new EvaluationRejectedException("Coupon evaluation is overloaded, retry shortly");
+                }
+                return degraded.get();
+            }
+            admitted = "queued";
+        }
+
+        count(admitted);
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            slots.release();
+            long previous = serviceNanos;
+            serviceNanos = previous == 0 ? elapsed : (long) (previous + SMOOTHING * (elapsed - previous));
+        }
+    }
+
+    /**
+     * @return null once a slot is held, otherwise why the request was shed
+     */
+    private String awaitSlot(long deadline) {
+        if (waiting.incrementAndGet() > properties.getMaxQueued()) {
+            waiting.decrementAndGet();
+            return "queue-full";
+        }
+        try {
+            long budget = deadline - System.nanoTime() - serviceNanos;
+            return budget > 0 && slots.tryAcquire(budget, TimeUnit.NANOSECONDS) ? null : "deadline";
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private void count(String outcome) {
+        registry.counter("cms.rules.admission", "outcome", outcome).increment();
+    }
+}
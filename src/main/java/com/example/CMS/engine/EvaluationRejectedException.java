@@ -0,0 +1,16 @@
+package com.example.CMS.engine;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Raised when the evaluation bulkhead sheds a request. Thrown in bursts under overload, so the
+ * exception skips capturing a stack trace.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class EvaluationRejectedException extends RuntimeException {
+
+    public EvaluationRejectedException(String message) {
+        super(message, null, false, false);
+    }
+}
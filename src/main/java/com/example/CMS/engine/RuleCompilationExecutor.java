@@ -0,0 +1,158 @@
+package com.example.CMS.engine;
+
+import com.example.CMS.config.RuleEngineProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded worker pool that compiles rule bases off the request path.
+ * <p>
+ * Compiles are single-flight per key: while one is queued or running, further requests for the
+ * same key get the same future instead of starting another build. Callers wait on that future
+ * for as long as their miss policy allows and carry on without the rules when it is not done.
+ */
+@Component
+public class RuleCompilationExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleCompilationExecutor.class);
+
+    private final ThreadPoolExecutor pool;
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final Counter started;
+    private final Counter joined;
+    private final Counter rejected;
+    private final Counter ready;
+    private final Counter notReady;
+
+    public RuleCompilationExecutor(RuleEngineProperties properties, MeterRegistry registry) {
+        RuleEngineProperties.Compile compile = properties.getCompile();
+        int threads = compile.getThreads() > 0
+                ? compile.getThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(compile.getQueueCapacity()),
+                r -> {
+                    Thread t = new Thread(r, "rule-compiler-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        this.started = compileCounter(registry, "started");
+        this.joined = compileCounter(registry, "joined");
+        this.rejected = compileCounter(registry, "rejected");
+        this.ready = waitCounter(registry, "ready");
+        this.notReady = waitCounter(registry, "skipped");
+        Gauge.builder("cms.rules.compile.in-flight", inFlight, Map::size)
+                .description("Rule compiles queued or running")
+                .register(registry);
+    }
+
+    /**
+     * Compile under {@code key} on the pool unless a compile for that key is already in flight,
+     * and return the future of whichever compile will answer. A compile refused because the queue
+     * is full fails with a {@link RejectedExecutionException}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(String key, Supplier<T> compiler) {
+        CompletableFuture<T> mine = new CompletableFuture<>();
+        CompletableFuture<?> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            joined.increment();
+            return (CompletableFuture<T>) running;
+        }
+
+        try {
+            pool.execute(() -> {
+                try {
+                    T result = compiler.get();
+                    // Leave the map first, so a caller that sees the future done never joins a finished compile
+                    inFlight.remove(key, mine);
+                    mine.complete(result);
+                } catch (Throwable ex) {
+                    inFlight.remove(key, mine);
+                    mine.completeExceptionally(ex);
+                }
+            });
+            started.increment();
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(key, mine);
+            rejected.increment();
+            mine.completeExceptionally(ex);
+        }
+        return mine;
+    }
+
+    /**
+     * Wait up to {@code timeoutMs} for a compile.
+     *
+     * @return its result, or null when it is not done in time or was refused by a full queue
+     * @throws RuntimeException the compile's own failure
+     */
+    public <T> T await(CompletableFuture<T> compile, long timeoutMs) {
+        try {
+            T result = compile.get(Math.max(timeoutMs, 0), TimeUnit.MILLISECONDS);
+            ready.increment();
+            return result;
+        } catch (TimeoutException ex) {
+            return skip();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return skip();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RejectedExecutionException) {
+                log.warn("Rule compile queue is full; rules left out until a later request");
+                return skip();
+            }
+            throw cause instanceof RuntimeException re ? re : new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Number of waits that gave up so far. An evaluation that saw this change may have left
+     * coupons out and should not be cached as complete.
+     */
+    public long skipped() {
+        return skipped.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private <T> T skip() {
+        skipped.incrementAndGet();
+        notReady.increment();
+        return null;
+    }
+
+    private static Counter compileCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("cms.rules.compile.requests")
+                .description("Rule compiles requested, by whether they started a build")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Counter waitCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("cms.rules.compile.waits")
+                .description("Evaluations that needed rules still compiling, by whether they got them")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.CMS.engine;
+
+import com.example.CMS.config.RuleEngineProperties;
+import io.micrometer.core.instrument.*;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation of the rule engine, published under {@code cms.rules.*} and
+ * readable at {@code /actuator/metrics}.
+ */
+@Component
+public class RuleEngineMetrics {
+
+    public static final String NATIVE = "native";
+    public static final String DROOLS = "drools";
+
+    private final MeterRegistry registry;
+    private final RuleEngineProperties properties;
+
+    private final Timer render;
+    private final Timer sessionCreate;
+    private final Timer sessionFire;
+    private final Timer sessionDispose;
+    private final Timer request;
+    private final DistributionSummary evaluated;
+    private final DistributionSummary applicable;
+
+    private final Map<String, Timer> nativeCouponTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> droolsCouponTimers = new ConcurrentHashMap<>();
+
+    public RuleEngineMetrics(MeterRegistry registry, RuleEngineProperties properties, CompiledRuleCache ruleCache,
+                             CouponResultCache resultCache) {
+        this.registry = registry;
+        this.properties = properties;
+
+        this.render = Timer.builder("cms.rules.drl.render")
+                .description("Rendering a coupon's DRL from its template")
+                .register(registry);
+        this.sessionCreate = sessionTimer("create");
+        this.sessionFire = sessionTimer("fire");
+        this.sessionDispose = sessionTimer("dispose");
+        this.request = Timer.builder("cms.rules.request")
+                .description("Evaluating every coupon for one cart")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.evaluated = DistributionSummary.builder("cms.rules.request.coupons")
+                .description("Coupons evaluated per cart")
+                .tag("result", "evaluated")
+                .register(registry);
+        this.applicable = DistributionSummary.builder("cms.rules.request.coupons")
+                .description("Coupons applicable per cart")
+                .tag("result", "applicable")
+                .register(registry);
+
+        FunctionCounter.builder("cms.rules.cache.requests", ruleCache, c -> c.stats().getHits())
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("cms.rules.cache.requests", ruleCache, c -> c.stats().getMisses())
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("cms.rules.cache.evictions", ruleCache, c -> c.stats().getEvictions())
+                .register(registry);
+        Gauge.builder("cms.rules.cache.size", ruleCache, c -> c.stats().getSize())
+                .description("Compiled rule bases held by the cache")
+                .register(registry);
+        Gauge.builder("cms.rules.cache.source.bytes", ruleCache, c -> c.stats().getWeightBytes())
+                .baseUnit("bytes")
+                .register(registry);
+
+        FunctionCounter.builder("cms.rules.result-cache.requests", resultCache, c -> c.stats().getHits())
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("cms.rules.result-cache.requests", resultCache, c -> c.stats().getMisses())
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("cms.rules.result-cache.evictions", resultCache, c -> c.stats().getEvictions())
+                .register(registry);
+        Gauge.builder("cms.rules.result-cache.size", resultCache, c -> c.stats().getSize())
+                .description("Carts whose applicable coupons are cached")
+                .register(registry);
+        Gauge.builder("cms.rules.result-cache.bytes", resultCache, c -> c.stats().getEstimatedBytes())
+                .description("Estimated heap held by cached results")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public String renderDrl(Supplier<String> renderer) {
+        return render.record(renderer);
+    }
+
+    /**
+     * Time a DRL compile; {@code kind} is "coupon" or "shared". The timer's count is the compile count.
+     */
+    public <T> T compile(String kind, Supplier<T> compiler) {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            T compiled = compiler.get();
+            outcome = "success";
+            return compiled;
+        } finally {
+            Timer.builder("cms.rules.compile")
+                    .description("Compiling DRL into a rule base")
+                    .tags("kind", kind, "outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * A rule base restored from the on-disk store instead of being compiled.
+     */
+    public void restored(String kind, long startNanos) {
+        Timer.builder("cms.rules.restore")
+                .description("Restoring a compiled rule base from the on-disk store")
+                .tag("kind", kind)
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void sessionCreated(long startNanos) {
+        sessionCreate.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void sessionFired(long startNanos) {
+        sessionFire.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void sessionDisposed(long startNanos) {
+        sessionDispose.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Per-coupon evaluation latency by engine and template. Skipped when per-coupon timing is off.
+     */
+    public void couponEvaluated(String engine, String template, long startNanos) {
+        if (!properties.getMetrics().isPerCoupon()) {
+            return;
+        }
+        Map<String, Timer> timers = NATIVE.equals(engine) ? nativeCouponTimers : droolsCouponTimers;
+        String name = template == null ? "none" : template;
+        timers.computeIfAbsent(name, t -> Timer.builder("cms.rules.coupon.evaluation")
+                        .description("Evaluating one coupon against one cart")
+                        .tags("engine", engine, "template", t)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofNanos(100))
+                        .maximumExpectedValue(Duration.ofSeconds(1))
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void requestCompleted(int couponsEvaluated, int couponsApplicable, long startNanos) {
+        request.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        evaluated.record(couponsEvaluated);
+        applicable.record(couponsApplicable);
+    }
+
+    private Timer sessionTimer(String phase) {
+        return Timer.builder("cms.rules.session")
+                .description("KieSession lifecycle")
+                .tag("phase", phase)
+                .register(registry);
+    }
+}
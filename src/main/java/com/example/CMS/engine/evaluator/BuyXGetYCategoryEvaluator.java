@@ -0,0 +1,69 @@
+package com.example.CMS.engine.evaluator;
+
+import com.example.CMS.model.cart.CartItem;
+import com.example.CMS.model.cart.CartSummary;
+import com.example.CMS.model.metadata.BuyXGetYCategoryMetadata;
+import com.example.CMS.model.metadata.CouponMetadata;
+import com.example.CMS.model.metadata.CouponMetadataSchema;
+import com.example.CMS.model.rule.DiscountDecision;
+import org.springframework.stereotype.Component;
+
+/**
+ * Native version of the seeded "BUY_X_GET_Y_CATEGORY" template: every buyQty units of a
+ * category earn getQty free units of the cheapest items of that category.
+ */
+@Component
+public class BuyXGetYCategoryEvaluator implements CouponEvaluator {
+
+    private static final String MESSAGE = "Buy X Get Y Free (Category-based)";
+
+    @Override
+    public CouponMetadataSchema getSchema() {
+        return CouponMetadataSchema.BXGY_CATEGORY;
+    }
+
+    @Override
+    public PreparedCouponRule prepare(Long couponId, CouponMetadata metadata) {
+        BuyXGetYCategoryMetadata m = (BuyXGetYCategoryMetadata) metadata;
+        return new Rule(couponId, m.buyQty(), m.getQty(), m.repetitionLimit(), m.category());
+    }
+
+    private record Rule(Long couponId, int buyQty, int getQty, int repetitionLimit, String category)
+            implements PreparedCouponRule {
+
+        @Override
+        public DiscountDecision evaluate(CartSummary cart) {
+            int totalBuyCount = cart.categoryQuantity(category);
+            if (totalBuyCount < buyQty) {
+                return null;
+            }
+
+            int eligibleFreeUnits = (totalBuyCount / buyQty) * getQty;
+            if (repetitionLimit > 0 && eligibleFreeUnits > repetitionLimit) {
+                eligibleFreeUnits = repetitionLimit;
+            }
+
+            double discount = 0.0;
+            int appliedFreeUnits = 0;
+
+            for (CartItem item : cart.categoryItemsByPrice(category)) {
+                int freeUnits = Math.min(eligibleFreeUnits, item.getQuantity());
+                discount += freeUnits * item.getPrice();
+                appliedFreeUnits += freeUnits;
+                eligibleFreeUnits -= freeUnits;
+
+                if (eligibleFreeUnits <= 0) break;
+            }
+
+            if (appliedFreeUnits == 0) {
+                return null;
+            }
+            return new DiscountDecision(couponId, true, discount, MESSAGE);
+        }
+
+        @Override
+        public CouponTrigger trigger() {
+            return CouponTrigger.category(category);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.CMS.engine.evaluator;
+
+import com.example.CMS.model.cart.CartItem;
+import com.example.CMS.model.cart.CartSummary;
+import com.example.CMS.model.metadata.BuyXGetYProductMetadata;
+import com.example.CMS.model.metadata.CouponMetadata;
+import com.example.CMS.model.metadata.CouponMetadataSchema;
+import com.example.CMS.model.rule.DiscountDecision;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Native version of the seeded "BUY_X_GET_Y_PRODUCT" template: every buyQty units of
+ * buyProducts earn getQty free units of getProducts, capped by repetitionLimit.
+ */
+@Component
+public class BuyXGetYProductEvaluator implements CouponEvaluator {
+
+    private static final String MESSAGE = "Buy X Get Y Free (Product-based)";
+
+    @Override
+    public CouponMetadataSchema getSchema() {
+        return CouponMetadataSchema.BXGY_PRODUCT;
+    }
+
+    @Override
+    public PreparedCouponRule prepare(Long couponId, CouponMetadata metadata) {
+        BuyXGetYProductMetadata m = (BuyXGetYProductMetadata) metadata;
+        return new Rule(couponId, m.buyQty(), m.getQty(), m.repetitionLimit(), m.buyProducts(), m.getProducts());
+    }
+
+    private record Rule(Long couponId, int buyQty, int getQty, int repetitionLimit,
+                        Set<String> buyProducts, Set<String> getProducts) implements PreparedCouponRule {
+
+        @Override
+        public DiscountDecision evaluate(CartSummary cart) {
+            int totalBuyCount = cart.quantityOfAny(buyProducts);
+
+            if (totalBuyCount < buyQty) {
+                return null;
+            }
+
+            int eligibleFreeUnits = (totalBuyCount / buyQty) * getQty;
+            if (repetitionLimit > 0 && eligibleFreeUnits >= repetitionLimit) {
+                eligibleFreeUnits = repetitionLimit;
+            }
+
+            double discount = 0.0;
+            int appliedFreeUnits = 0;
+
+            for (CartItem item : cart.itemsOfAny(getProducts)) {
+                int freeUnitsForItem = Math.min(eligibleFreeUnits, item.getQuantity());
+                discount += freeUnitsForItem * item.getPrice();
+                appliedFreeUnits += freeUnitsForItem;
+                eligibleFreeUnits -= freeUnitsForItem;
+
+                if (eligibleFreeUnits <= 0) break;
+            }
+
+            if (appliedFreeUnits == 0) {
+                return null;
+            }
+            return new DiscountDecision(couponId, true, discount, MESSAGE);
+        }
+
+        @Override
+        public CouponTrigger trigger() {
+            // Nothing is free until at least one buy product is in the cart.
+            return CouponTrigger.anyProduct(buyProducts);
+        }
+
+        @Override
+        public CouponTrigger inputs() {
+            // The free units depend on the get products in the cart as well.
+            Set<String> products = new HashSet<>(buyProducts);
+            products.addAll(getProducts);
+            return CouponTrigger.anyProduct(products);
+        }
+    }
+}
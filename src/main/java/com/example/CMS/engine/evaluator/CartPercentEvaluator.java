@@ -0,0 +1,49 @@
+package com.example.CMS.engine.evaluator;
+
+import com.example.CMS.model.cart.CartSummary;
+import com.example.CMS.model.metadata.CartPercentMetadata;
+import com.example.CMS.model.metadata.CouponMetadata;
+import com.example.CMS.model.metadata.CouponMetadataSchema;
+import com.example.CMS.model.rule.DiscountDecision;
+import org.springframework.stereotype.Component;
+
+/**
+ * Native version of the seeded "Cart Percent Template": discountPercent off the whole cart
+ * once its total reaches minCartValue.
+ */
+@Component
+public class CartPercentEvaluator implements CouponEvaluator {
+
+    @Override
+    public CouponMetadataSchema getSchema() {
+        return CouponMetadataSchema.CART_PERCENT;
+    }
+
+    @Override
+    public PreparedCouponRule prepare(Long couponId, CouponMetadata metadata) {
+        CartPercentMetadata m = (CartPercentMetadata) metadata;
+        return new Rule(couponId, m.minCartValue(), m.discountPercent());
+    }
+
+    private record Rule(Long couponId, double minCartValue, double percent, String message)
+            implements PreparedCouponRule {
+
+        Rule(Long couponId, double minCartValue, double percent) {
+            this(couponId, minCartValue, percent, percent + "% off on cart");
+        }
+
+        @Override
+        public DiscountDecision evaluate(CartSummary cart) {
+            double total = cart.getTotalAmount();
+            if (total < minCartValue) {
+                return null;
+            }
+            return new DiscountDecision(couponId, true, total * (percent / 100.0), message);
+        }
+
+        @Override
+        public CouponTrigger trigger() {
+            return CouponTrigger.cartTotalAtLeast(minCartValue);
+        }
+    }
+}
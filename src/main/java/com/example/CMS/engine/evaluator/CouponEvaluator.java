@@ -0,0 +1,20 @@
+package com.example.CMS.engine.evaluator;
+
+import com.example.CMS.model.metadata.CouponMetadata;
+import com.example.CMS.model.metadata.CouponMetadataSchema;
+
+/**
+ * Native Java implementation of a built-in rule template.
+ */
+public interface CouponEvaluator {
+
+    /**
+     * The built-in template this evaluator implements, and so the metadata it is given.
+     */
+    CouponMetadataSchema getSchema();
+
+    /**
+     * Prepare a coupon for native evaluation from its decoded metadata.
+     */
+    PreparedCouponRule prepare(Long couponId, CouponMetadata metadata);
+}
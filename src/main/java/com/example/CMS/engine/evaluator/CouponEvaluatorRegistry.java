@@ -0,0 +1,88 @@
+package com.example.CMS.engine.evaluator;
+
+import com.example.CMS.config.RuleEngineProperties;
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.model.metadata.CouponMetadata;
+import com.example.CMS.model.metadata.CouponMetadataSchema;
+import com.example.CMS.model.metadata.InvalidCouponMetadataException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Native evaluators keyed by the built-in template (metadata schema) they implement. Coupons
+ * no evaluator claims (custom templates) keep going through Drools.
+ */
+@Component
+public class CouponEvaluatorRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CouponEvaluatorRegistry.class);
+
+    private final Map<CouponMetadataSchema, CouponEvaluator> evaluators = new EnumMap<>(CouponMetadataSchema.class);
+    private final RuleEngineProperties properties;
+
+    public CouponEvaluatorRegistry(List<CouponEvaluator> evaluators, RuleEngineProperties properties) {
+        this.properties = properties;
+        for (CouponEvaluator evaluator : evaluators) {
+            this.evaluators.put(evaluator.getSchema(), evaluator);
+        }
+    }
+
+    /**
+     * Decode a coupon's metadata by the schema of its template.
+     *
+     * @return the typed metadata, or null for custom templates and for metadata that does not
+     * match the schema (such coupons are left to Drools)
+     */
+    public CouponMetadata decode(Coupon coupon, CouponRuleTemplate template) {
+        CouponMetadataSchema schema = CouponMetadataSchema.of(template).orElse(null);
+        if (schema == null) {
+            return null;
+        }
+        try {
+            return schema.decode(coupon.getType(), coupon.getMetadata());
+        } catch (InvalidCouponMetadataException ex) {
+            log.warn("Coupon {} falls back to Drools, metadata not usable natively: {}",
+                    coupon.getId(), ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return the natively prepared rule for the coupon, or null when it must be evaluated by Drools
+     */
+    public PreparedCouponRule prepare(Long couponId, CouponMetadata metadata) {
+        return properties.isNativeEvaluators() ? rule(couponId, metadata) : null;
+    }
+
+    /**
+     * What a cart needs for the coupon to apply, known for built-in templates whether or not
+     * they are evaluated natively.
+     *
+     * @return the trigger, or null when any cart may match
+     */
+    public CouponTrigger trigger(Long couponId, CouponMetadata metadata) {
+        PreparedCouponRule rule = rule(couponId, metadata);
+        return rule == null ? null : rule.trigger();
+    }
+
+    /**
+     * The cart contents a coupon's decision is computed from, known for built-in templates.
+     *
+     * @return the inputs, or null when the coupon may read anything in the cart
+     */
+    public CouponTrigger inputs(Long couponId, CouponMetadata metadata) {
+        PreparedCouponRule rule = rule(couponId, metadata);
+        return rule == null ? null : rule.inputs();
+    }
+
+    private PreparedCouponRule rule(Long couponId, CouponMetadata metadata) {
+        CouponEvaluator evaluator = metadata == null ? null : evaluators.get(metadata.schema());
+        return evaluator == null ? null : evaluator.prepare(couponId, metadata);
+    }
+}
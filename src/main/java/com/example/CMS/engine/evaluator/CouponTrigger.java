@@ -0,0 +1,35 @@
+package com.example.CMS.engine.evaluator;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * What a cart must contain for a coupon to possibly apply: one of the products, one of the
+ * categories (case-insensitive), or a total of at least {@code minCartValue}. A cart that meets
+ * none of these can be skipped without evaluating the coupon.
+ */
+public record CouponTrigger(Set<String> productIds, Set<String> categories, double minCartValue) {
+
+    public static CouponTrigger anyProduct(Set<String> productIds) {
+        return new CouponTrigger(Set.copyOf(productIds), Set.of(), Double.NaN);
+    }
+
+    public static CouponTrigger category(String category) {
+        return new CouponTrigger(Set.of(), Set.of(normalizeCategory(category)), Double.NaN);
+    }
+
+    public static CouponTrigger cartTotalAtLeast(double minCartValue) {
+        return new CouponTrigger(Set.of(), Set.of(), minCartValue);
+    }
+
+    public boolean hasMinCartValue() {
+        return !Double.isNaN(minCartValue);
+    }
+
+    /**
+     * Case-fold a category the way {@link String#equalsIgnoreCase} compares it.
+     */
+    public static String normalizeCategory(String category) {
+        return category == null ? null : category.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.CMS.engine.evaluator;
+
+import com.example.CMS.model.cart.CartSummary;
+import com.example.CMS.model.rule.DiscountDecision;
+
+/**
+ * A coupon whose metadata has been decoded once, ready to be evaluated against carts.
+ * Implementations are immutable and safe to share between threads.
+ */
+public interface PreparedCouponRule {
+
+    /**
+     * @return the decision when the coupon applies to the cart, otherwise null. The cart is not mutated.
+     */
+    DiscountDecision evaluate(CartSummary cart);
+
+    /**
+     * @return the cart contents the coupon needs in order to apply, or null when any cart may match
+     */
+    default CouponTrigger trigger() {
+        return null;
+    }
+
+    /**
+     * @return the cart contents the decision is computed from: when none of them changes, the
+     * previous decision still holds. Null when the coupon may read anything in the cart.
+     */
+    default CouponTrigger inputs() {
+        return trigger();
+    }
+}
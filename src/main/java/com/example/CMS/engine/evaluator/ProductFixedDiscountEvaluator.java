@@ -0,0 +1,50 @@
+package com.example.CMS.engine.evaluator;
+
+import com.example.CMS.model.cart.CartSummary;
+import com.example.CMS.model.metadata.CouponMetadata;
+import com.example.CMS.model.metadata.CouponMetadataSchema;
+import com.example.CMS.model.metadata.ProductDiscountMetadata;
+import com.example.CMS.model.rule.DiscountDecision;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Native version of the seeded "Product Fixed Discount" template: discountAmount off every
+ * unit of the listed products.
+ */
+@Component
+public class ProductFixedDiscountEvaluator implements CouponEvaluator {
+
+    private static final String MESSAGE = "Flat discount on selected products";
+
+    @Override
+    public CouponMetadataSchema getSchema() {
+        return CouponMetadataSchema.PRODUCT_DISCOUNT;
+    }
+
+    @Override
+    public PreparedCouponRule prepare(Long couponId, CouponMetadata metadata) {
+        ProductDiscountMetadata m = (ProductDiscountMetadata) metadata;
+        return new Rule(couponId, m.discountAmount(), m.productIds());
+    }
+
+    private record Rule(Long couponId, double discountAmount, Set<String> productIds)
+            implements PreparedCouponRule {
+
+        @Override
+        public DiscountDecision evaluate(CartSummary cart) {
+            double totalDiscount = cart.quantityOfAny(productIds) * discountAmount;
+
+            if (totalDiscount <= 0) {
+                return null;
+            }
+            return new DiscountDecision(couponId, true, totalDiscount, MESSAGE);
+        }
+
+        @Override
+        public CouponTrigger trigger() {
+            return CouponTrigger.anyProduct(productIds);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.CMS.entity;
+
+import com.example.CMS.entity.enums.CacheChangeType;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One row of the change log every node polls to keep its caches in step with the others. Rows
+ * are written in the transaction of the change they describe, so a rolled back change never
+ * shows up here.
+ * <p>
+ * Changes made straight in the database (a template edited by hand, say) reach every node by
+ * inserting a row for them, e.g. {@code insert into cache_change_log (type, entity_id, node_id,
+ * created_at) values ('TEMPLATE', 1, 'sql', 0)}.
+ */
+@Entity
+@Table(name = "cache_change_log", indexes = @Index(name = "idx_cache_change_created", columnList = "created_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CacheChangeType type;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    private Long firstId;
+
+    private Long lastId;
+
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;    // epoch millis on the writing node
+}
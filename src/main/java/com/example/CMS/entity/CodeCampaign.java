@@ -0,0 +1,44 @@
+package com.example.CMS.entity;
+
+import com.example.CMS.entity.enums.CodeCampaignStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A bulk generation run of single-use codes for one coupon. Progress is saved with every batch
+ * of codes, so a stopped run resumes where it left off.
+ */
+@Entity
+@Table(name = "coupon_code_campaign")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CodeCampaign {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "coupon_id", nullable = false)
+    private Long couponId;
+
+    @Column(nullable = false, length = 64)
+    private String pattern;
+
+    private long requestedCount;
+
+    private long generatedCount;
+
+    private long nextIndex;    // next position in the pattern's permutation
+
+    private long secret;       // key of the permutation, never exposed
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private CodeCampaignStatus status;
+
+    @Column(length = 1000)
+    private String error;
+}
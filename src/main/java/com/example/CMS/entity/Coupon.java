@@ -3,6 +3,7 @@ package com.example.CMS.entity;
 import com.example.CMS.entity.enums.CouponType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import com.example.CMS.common.MapToJsonConverter;
 import java.time.LocalDate;
 import java.util.Map;
@@ -30,6 +31,15 @@ public class Coupon {
     private LocalDate startDate;
     private LocalDate endDate;
 
+    private Integer maxRedemptions;             // null means unlimited
+
+    private Integer maxRedemptionsPerCustomer;  // null means unlimited
+
+    // Maintained by the redemption write-behind, never written with the rest of the coupon
+    @ColumnDefault("0")
+    @Column(name = "redemption_count", nullable = false, insertable = false, updatable = false)
+    private long redemptionCount;
+
     @Column(columnDefinition = "JSON")
     @Convert(converter = MapToJsonConverter.class)
     private Map<String, Object> metadata;
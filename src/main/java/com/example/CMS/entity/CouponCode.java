@@ -0,0 +1,39 @@
+package com.example.CMS.entity;
+
+import com.example.CMS.entity.enums.CouponCodeStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A generated single-use code for a coupon. Every code of a campaign applies its coupon's rule.
+ */
+@Entity
+@Table(name = "coupon_code", indexes = @Index(name = "idx_coupon_code_coupon", columnList = "coupon_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CouponCode {
+
+    // Pooled sequence: Hibernate hands out ids from memory, so inserts can be batched
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coupon_code_seq")
+    @SequenceGenerator(name = "coupon_code_seq", sequenceName = "coupon_code_seq", allocationSize = 1000)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String code;   // normalized, see CouponCodes
+
+    @Column(name = "coupon_id", nullable = false)
+    private Long couponId;
+
+    @Column(name = "campaign_id", nullable = false)
+    private Long campaignId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CouponCodeStatus status;
+
+    private Long reservedUntil; // epoch millis
+}
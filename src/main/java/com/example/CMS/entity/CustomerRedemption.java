@@ -0,0 +1,42 @@
+package com.example.CMS.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Confirmed redemptions of one coupon by one customer, for per-customer limits.
+ */
+@Entity
+@Table(name = "coupon_customer_redemption")
+@IdClass(CustomerRedemption.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerRedemption {
+
+    @Id
+    @Column(name = "coupon_id")
+    private Long couponId;
+
+    @Id
+    @Column(name = "customer_id")
+    private String customerId;
+
+    private long redeemed;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        private Long couponId;
+
+        private String customerId;
+    }
+}
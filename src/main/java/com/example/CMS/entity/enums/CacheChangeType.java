@@ -0,0 +1,7 @@
+package com.example.CMS.entity.enums;
+
+public enum CacheChangeType {
+    COUPON,      // entity id is the coupon id
+    TEMPLATE,    // entity id is the rule template id
+    CODES        // entity id is the campaign id, the id range covers one committed batch of codes
+}
@@ -0,0 +1,7 @@
+package com.example.CMS.entity.enums;
+
+public enum CodeCampaignStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,7 @@
+package com.example.CMS.entity.enums;
+
+public enum CouponCodeStatus {
+    AVAILABLE,
+    RESERVED,   // held by a cart until reservedUntil
+    REDEEMED
+}
@@ -0,0 +1,30 @@
+package com.example.CMS.model.capture;
+
+import lombok.*;
+
+/**
+ * One sampled request, as written to the capture file and read back by the replay harness.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CapturedRequest {
+
+    private long at;              // epoch millis when the request arrived
+
+    private String method;
+
+    private String path;
+
+    private String query;         // raw query string, null when absent
+
+    private String contentType;
+
+    private String body;          // request body as the controller read it, null when empty
+
+    private int status;
+
+    private long latencyMicros;   // time spent in the application, as served when captured
+}
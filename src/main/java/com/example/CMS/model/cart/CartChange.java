@@ -0,0 +1,21 @@
+package com.example.CMS.model.cart;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * What an edit to a cart touched: the products of the changed lines, their categories before
+ * and after the edit, and the cart total before and after.
+ */
+@Value
+public class CartChange {
+
+    Set<String> productIds;
+
+    Set<String> categories;
+
+    double previousTotal;
+
+    double newTotal;
+}
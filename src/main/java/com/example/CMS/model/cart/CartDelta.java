@@ -0,0 +1,34 @@
+package com.example.CMS.model.cart;
+
+import lombok.*;
+
+/**
+ * One edit of a cart line. ADD adds {@code quantity} units (creating the line from the given
+ * product details if needed), REMOVE drops the line, SET_QUANTITY sets the line's quantity
+ * (0 removes it).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartDelta {
+
+    public enum Op {
+        ADD,
+        REMOVE,
+        SET_QUANTITY
+    }
+
+    private Op op;
+
+    private String productId;
+
+    private String productName;
+
+    private String category;
+
+    private Double price; // only needed when ADD creates a new line, otherwise updates it
+
+    private int quantity;
+}
@@ -0,0 +1,163 @@
+package com.example.CMS.model.cart;
+
+import com.example.CMS.engine.evaluator.CouponTrigger;
+
+import java.util.*;
+
+/**
+ * Aggregates of a cart computed in one pass over its items: the total, and per product and per
+ * category the quantity, amount and lines. Coupon rules (native and DRL, where it is inserted
+ * next to the {@link Cart}) look these up instead of re-scanning the items for every coupon.
+ * <p>
+ * Built once per evaluation; the cart must not change while the summary is in use.
+ */
+public final class CartSummary {
+
+    private static final Comparator<CartItem> BY_PRICE = Comparator.comparingDouble(CartItem::getPrice);
+
+    private final Cart cart;
+    private final List<CartItem> items;
+    private final double totalAmount;
+    private final int totalQuantity;
+    private final Map<String, Lines> products;
+    private final Map<String, Lines> categories;
+
+    private CartSummary(Cart cart) {
+        this.cart = cart;
+        this.items = List.copyOf(cart.getItems());
+        this.products = new HashMap<>();
+        this.categories = new HashMap<>();
+
+        // Same compensated summation as Cart.getTotalAmount(), so both agree to the last bit
+        DoubleSummaryStatistics total = new DoubleSummaryStatistics();
+        int quantity = 0;
+
+        for (int i = 0; i < items.size(); i++) {
+            CartItem item = items.get(i);
+            double amount = item.getPrice() * item.getQuantity();
+            total.accept(amount);
+            quantity += item.getQuantity();
+
+            products.computeIfAbsent(item.getProductId(), k -> new Lines()).add(i, item, amount);
+            if (item.getCategory() != null) {
+                categories.computeIfAbsent(CouponTrigger.normalizeCategory(item.getCategory()), k -> new Lines())
+                        .add(i, item, amount);
+            }
+        }
+
+        this.totalAmount = total.getSum();
+        this.totalQuantity = quantity;
+        categories.values().forEach(lines -> lines.items.sort(BY_PRICE));
+    }
+
+    public static CartSummary of(Cart cart) {
+        return new CartSummary(cart);
+    }
+
+    public Cart getCart() {
+        return cart;
+    }
+
+    public List<CartItem> getItems() {
+        return items;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public int getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public Set<String> productIds() {
+        return Collections.unmodifiableSet(products.keySet());
+    }
+
+    /**
+     * Categories in the cart, case-folded with {@link CouponTrigger#normalizeCategory}.
+     */
+    public Set<String> categories() {
+        return Collections.unmodifiableSet(categories.keySet());
+    }
+
+    public int quantityOf(String productId) {
+        Lines lines = products.get(productId);
+        return lines == null ? 0 : lines.quantity;
+    }
+
+    public double amountOf(String productId) {
+        Lines lines = products.get(productId);
+        return lines == null ? 0.0 : lines.amount;
+    }
+
+    /**
+     * Units in the cart of any of {@code productIds}; each id is counted once.
+     */
+    public int quantityOfAny(Collection<String> productIds) {
+        int quantity = 0;
+        for (String productId : distinct(productIds)) {
+            quantity += quantityOf(productId);
+        }
+        return quantity;
+    }
+
+    /**
+     * Lines of any of {@code productIds}, in cart order.
+     */
+    public List<CartItem> itemsOfAny(Collection<String> productIds) {
+        List<Integer> positions = new ArrayList<>();
+        for (String productId : distinct(productIds)) {
+            Lines lines = products.get(productId);
+            if (lines != null) {
+                positions.addAll(lines.positions);
+            }
+        }
+        positions.sort(null);
+
+        List<CartItem> matching = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            matching.add(items.get(position));
+        }
+        return matching;
+    }
+
+    /**
+     * Units in the cart of a category, compared case-insensitively.
+     */
+    public int categoryQuantity(String category) {
+        Lines lines = categories.get(CouponTrigger.normalizeCategory(category));
+        return lines == null ? 0 : lines.quantity;
+    }
+
+    public double categoryAmount(String category) {
+        Lines lines = categories.get(CouponTrigger.normalizeCategory(category));
+        return lines == null ? 0.0 : lines.amount;
+    }
+
+    /**
+     * Lines of a category, cheapest first (lines of equal price keep their cart order).
+     */
+    public List<CartItem> categoryItemsByPrice(String category) {
+        Lines lines = categories.get(CouponTrigger.normalizeCategory(category));
+        return lines == null ? List.of() : Collections.unmodifiableList(lines.items);
+    }
+
+    private static Collection<String> distinct(Collection<String> ids) {
+        return ids instanceof Set ? ids : new LinkedHashSet<>(ids);
+    }
+
+    private static final class Lines {
+        private final List<Integer> positions = new ArrayList<>(1);
+        private final List<CartItem> items = new ArrayList<>(1);
+        private int quantity;
+        private double amount;
+
+        private void add(int position, CartItem item, double lineAmount) {
+            positions.add(position);
+            items.add(item);
+            quantity += item.getQuantity();
+            amount += lineAmount;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.CMS.model.catalog;
+
+import com.example.CMS.engine.evaluator.CouponTrigger;
+import com.example.CMS.model.cart.CartSummary;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Inverted index from cart contents to the coupons they can trigger: productId and category
+ * postings plus the CART coupons sorted by minCartValue. Coupons without a known trigger
+ * (custom templates) are candidates for every cart.
+ * <p>
+ * Built over {@link CatalogEntry#getInputs()} instead, the same structure answers which
+ * coupons a cart edit can affect.
+ * <p>
+ * Entries are identified by their position in the list the index was built from, so
+ * candidates come back in catalog order.
+ */
+public final class CandidateIndex {
+
+    private final List<CatalogEntry> entries;
+    private final Function<CatalogEntry, CouponTrigger> triggers;
+    private final BitSet unconstrained = new BitSet();
+    private final Map<String, int[]> byProduct;
+    private final Map<String, int[]> byCategory;
+    private final double[] minCartValues;
+    private final int[] minCartPositions;
+
+    public CandidateIndex(List<CatalogEntry> entries, Function<CatalogEntry, CouponTrigger> triggers) {
+        this.entries = entries;
+        this.triggers = triggers;
+
+        Map<String, List<Integer>> products = new HashMap<>();
+        Map<String, List<Integer>> categories = new HashMap<>();
+        List<Integer> cartCoupons = new ArrayList<>();
+
+        for (int i = 0; i < entries.size(); i++) {
+            CouponTrigger trigger = triggers.apply(entries.get(i));
+            if (trigger == null) {
+                unconstrained.set(i);
+                continue;
+            }
+            for (String productId : trigger.productIds()) {
+                products.computeIfAbsent(productId, k -> new ArrayList<>()).add(i);
+            }
+            for (String category : trigger.categories()) {
+                categories.computeIfAbsent(category, k -> new ArrayList<>()).add(i);
+            }
+            if (trigger.hasMinCartValue()) {
+                cartCoupons.add(i);
+            }
+        }
+
+        this.byProduct = postings(products);
+        this.byCategory = postings(categories);
+
+        cartCoupons.sort(Comparator.comparingDouble(i -> triggers.apply(entries.get(i)).minCartValue()));
+        this.minCartValues = new double[cartCoupons.size()];
+        this.minCartPositions = new int[cartCoupons.size()];
+        for (int k = 0; k < cartCoupons.size(); k++) {
+            minCartPositions[k] = cartCoupons.get(k);
+            minCartValues[k] = triggers.apply(entries.get(minCartPositions[k])).minCartValue();
+        }
+    }
+
+    /**
+     * Coupons the cart could trigger, in catalog order. Every coupon left out is guaranteed
+     * not to apply to the cart.
+     */
+    public List<CatalogEntry> candidates(CartSummary cart) {
+        BitSet hits = (BitSet) unconstrained.clone();
+
+        for (String productId : cart.productIds()) {
+            mark(hits, byProduct.get(productId));
+        }
+        for (String category : cart.categories()) {
+            mark(hits, byCategory.get(category));
+        }
+
+        // CART coupons apply once total >= minCartValue: a prefix of the sorted array.
+        int reachable = upperBound(minCartValues, cart.getTotalAmount());
+        for (int k = 0; k < reachable; k++) {
+            hits.set(minCartPositions[k]);
+        }
+
+        return collect(hits);
+    }
+
+    /**
+     * Coupons whose inputs include one of the products or categories, or whose minimum lies at or
+     * below the larger of the two totals when the total changed. Every coupon left out reads
+     * nothing the change touched.
+     */
+    public List<CatalogEntry> affected(Set<String> productIds, Set<String> categories,
+                                       double previousTotal, double newTotal) {
+        BitSet hits = (BitSet) unconstrained.clone();
+
+        for (String productId : productIds) {
+            mark(hits, byProduct.get(productId));
+        }
+        for (String category : categories) {
+            mark(hits, byCategory.get(CouponTrigger.normalizeCategory(category)));
+        }
+
+        if (Double.compare(previousTotal, newTotal) != 0) {
+            int reachable = upperBound(minCartValues, Math.max(previousTotal, newTotal));
+            for (int k = 0; k < reachable; k++) {
+                hits.set(minCartPositions[k]);
+            }
+        }
+        return collect(hits);
+    }
+
+    private List<CatalogEntry> collect(BitSet hits) {
+        List<CatalogEntry> result = new ArrayList<>(hits.cardinality());
+        for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i + 1)) {
+            result.add(entries.get(i));
+        }
+        return result;
+    }
+
+    private static void mark(BitSet hits, int[] positions) {
+        if (positions != null) {
+            for (int position : positions) {
+                hits.set(position);
+            }
+        }
+    }
+
+    /**
+     * Number of values that are {@code <= key}.
+     */
+    private static int upperBound(double[] sorted, double key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Map<String, int[]> postings(Map<String, List<Integer>> lists) {
+        Map<String, int[]> result = new HashMap<>(lists.size() * 2);
+        lists.forEach((key, positions) ->
+                result.put(key, positions.stream().mapToInt(Integer::intValue).toArray()));
+        return result;
+    }
+}
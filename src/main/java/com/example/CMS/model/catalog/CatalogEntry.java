@@ -0,0 +1,57 @@
+package com.example.CMS.model.catalog;
+
+import com.example.CMS.engine.evaluator.CouponTrigger;
+import com.example.CMS.engine.evaluator.PreparedCouponRule;
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.model.metadata.CouponMetadata;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * One coupon of a {@link CatalogSnapshot}: a detached copy of the coupon with its
+ * template already loaded and its metadata frozen.
+ */
+@Value
+@Builder
+public class CatalogEntry {
+
+    Coupon coupon;
+
+    CouponRuleTemplate template;
+
+    Map<String, Object> metadata;
+
+    /**
+     * The metadata decoded by its template's schema, or null for custom templates.
+     */
+    CouponMetadata typedMetadata;
+
+    /**
+     * Native evaluator for the coupon, or null when it has to run through Drools.
+     */
+    PreparedCouponRule nativeRule;
+
+    /**
+     * What a cart must contain for the coupon to apply, or null when any cart may match.
+     */
+    CouponTrigger trigger;
+
+    /**
+     * The cart contents the coupon's decision depends on, or null when it may read anything.
+     */
+    CouponTrigger inputs;
+
+    public Long getId() {
+        return coupon.getId();
+    }
+
+    public boolean isLiveOn(LocalDate day) {
+        LocalDate start = coupon.getStartDate();
+        LocalDate end = coupon.getEndDate();
+        return (start == null || !start.isAfter(day)) && (end == null || !end.isBefore(day));
+    }
+}
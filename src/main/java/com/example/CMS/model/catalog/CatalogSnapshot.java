@@ -0,0 +1,140 @@
+package com.example.CMS.model.catalog;
+
+import com.example.CMS.common.BloomFilter;
+import com.example.CMS.common.CouponCodes;
+import com.example.CMS.model.cart.CartChange;
+import com.example.CMS.model.cart.CartSummary;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of the active coupon catalog. Holds every active coupon that has not
+ * expired as of {@link #getAsOf()}, so it stays correct (if slightly over-inclusive)
+ * until the next rebuild even when the day rolls over.
+ */
+@Getter
+public class CatalogSnapshot {
+
+    private final long version;
+
+    private final LocalDate asOf;
+
+    private final Instant builtAt;
+
+    private final List<CatalogEntry> entries;
+
+    private final List<CatalogEntry> liveEntries;
+
+    private final List<CatalogEntry> liveRuleEntries;
+
+    private final Map<Long, CatalogEntry> entriesById;
+
+    private final CandidateIndex candidateIndex;
+
+    private final CandidateIndex dependencyIndex;
+
+    private final Map<String, CatalogEntry> entriesByCode;
+
+    /**
+     * Holds every code in {@link #entriesByCode}, so most unknown codes are turned away by a
+     * few bit probes.
+     */
+    private final BloomFilter codeFilter;
+
+    public CatalogSnapshot(long version, LocalDate asOf, List<CatalogEntry> entries) {
+        this.version = version;
+        this.asOf = asOf;
+        this.builtAt = Instant.now();
+        this.entries = List.copyOf(entries);
+        this.liveEntries = this.entries.stream().filter(e -> e.isLiveOn(asOf)).toList();
+        this.liveRuleEntries = this.liveEntries.stream().filter(e -> e.getNativeRule() == null).toList();
+
+        Map<Long, CatalogEntry> byId = new LinkedHashMap<>();
+        for (CatalogEntry entry : this.entries) {
+            byId.put(entry.getId(), entry);
+        }
+        this.entriesById = Collections.unmodifiableMap(byId);
+
+        // Codes are not unique in the table; the oldest coupon keeps a duplicated code
+        Map<String, CatalogEntry> byCode = new HashMap<>();
+        for (CatalogEntry entry : this.entries) {
+            String code = CouponCodes.normalize(entry.getCoupon().getCode());
+            if (code != null) {
+                byCode.putIfAbsent(code, entry);
+            }
+        }
+        this.entriesByCode = Collections.unmodifiableMap(byCode);
+        this.codeFilter = BloomFilter.of(byCode.keySet(), 0.01);
+        this.candidateIndex = new CandidateIndex(liveEntries, CatalogEntry::getTrigger);
+        this.dependencyIndex = new CandidateIndex(liveEntries, CatalogEntry::getInputs);
+    }
+
+    /**
+     * Coupons whose date window contains the given day.
+     */
+    public List<CatalogEntry> liveEntries(LocalDate day) {
+        if (day.equals(asOf)) {
+            return liveEntries;
+        }
+        return entries.stream().filter(e -> e.isLiveOn(day)).toList();
+    }
+
+    /**
+     * Live coupons that have no native evaluator and run through Drools.
+     */
+    public List<CatalogEntry> liveRuleEntries(LocalDate day) {
+        if (day.equals(asOf)) {
+            return liveRuleEntries;
+        }
+        return liveEntries(day).stream().filter(e -> e.getNativeRule() == null).toList();
+    }
+
+    /**
+     * Live coupons the cart could trigger. Off the snapshot's day the index does not apply and
+     * every live coupon is returned until the next rebuild.
+     */
+    public List<CatalogEntry> candidates(CartSummary cart, LocalDate day) {
+        if (day.equals(asOf)) {
+            return candidateIndex.candidates(cart);
+        }
+        return liveEntries(day);
+    }
+
+    /**
+     * Live coupons whose decision an edit to a cart may have changed. Off the snapshot's day
+     * every live coupon is returned.
+     */
+    public List<CatalogEntry> affected(CartChange change, LocalDate day) {
+        if (day.equals(asOf)) {
+            return dependencyIndex.affected(change.getProductIds(), change.getCategories(),
+                    change.getPreviousTotal(), change.getNewTotal());
+        }
+        return liveEntries(day);
+    }
+
+    public CatalogEntry find(Long couponId) {
+        return entriesById.get(couponId);
+    }
+
+    /**
+     * @param code a code already passed through {@link CouponCodes#normalize(String)}
+     * @return the coupon with this code, or null
+     */
+    public CatalogEntry findByCode(String code) {
+        if (code == null || !codeFilter.mightContain(code)) {
+            return null;
+        }
+        return entriesByCode.get(code);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
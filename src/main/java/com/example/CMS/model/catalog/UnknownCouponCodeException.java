@@ -0,0 +1,16 @@
+package com.example.CMS.model.catalog;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Raised for a code no live coupon has. Guessed codes make up much of this traffic, so the
+ * exception skips capturing a stack trace.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class UnknownCouponCodeException extends RuntimeException {
+
+    public UnknownCouponCodeException() {
+        super("Coupon code not found", null, false, false);
+    }
+}
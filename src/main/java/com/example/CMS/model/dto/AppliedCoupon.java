@@ -0,0 +1,15 @@
+package com.example.CMS.model.dto;
+
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.redemption.Reservation;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class AppliedCoupon {
+
+    private final Cart cart;
+
+    private final Reservation reservation; // null when the coupon has no redemption limit
+}
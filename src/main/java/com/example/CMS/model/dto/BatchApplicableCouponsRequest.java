@@ -0,0 +1,18 @@
+package com.example.CMS.model.dto;
+
+import com.example.CMS.model.cart.Cart;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchApplicableCouponsRequest {
+
+    @Builder.Default
+    private List<Cart> carts = new ArrayList<>();
+}
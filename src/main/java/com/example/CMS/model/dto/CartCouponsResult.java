@@ -0,0 +1,18 @@
+package com.example.CMS.model.dto;
+
+import com.example.CMS.model.rule.DiscountDecision;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartCouponsResult {
+
+    private int index; // position of the cart in the batch
+
+    private List<DiscountDecision> coupons;
+}
@@ -0,0 +1,23 @@
+package com.example.CMS.model.dto;
+
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.rule.DiscountDecision;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartSessionResponse {
+
+    private String cartId;
+
+    private Cart cart;
+
+    private List<DiscountDecision> coupons;
+
+    private int couponsEvaluated; // coupons re-run for this call; the rest were reused
+}
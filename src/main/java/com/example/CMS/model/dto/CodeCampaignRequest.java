@@ -0,0 +1,17 @@
+package com.example.CMS.model.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CodeCampaignRequest {
+
+    private Long couponId;     // the coupon whose rule every code applies
+
+    private String pattern;    // e.g. SUMMER-####-####, '#' is a random symbol
+
+    private long count;
+}
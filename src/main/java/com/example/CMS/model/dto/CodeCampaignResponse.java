@@ -0,0 +1,26 @@
+package com.example.CMS.model.dto;
+
+import com.example.CMS.entity.enums.CodeCampaignStatus;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CodeCampaignResponse {
+
+    private Long id;
+
+    private Long couponId;
+
+    private String pattern;
+
+    private long requestedCount;
+
+    private long generatedCount;
+
+    private CodeCampaignStatus status;
+
+    private String error;
+}
@@ -0,0 +1,30 @@
+package com.example.CMS.model.dto;
+
+import com.example.CMS.entity.enums.CouponType;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Coupon listing filters, bound from query parameters. Unset filters match every coupon.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CouponFilter {
+
+    private CouponType type;
+
+    private Boolean active;
+
+    private Long templateId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;    // coupons valid on some day from here...
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;      // ...up to here
+}
@@ -0,0 +1,17 @@
+package com.example.CMS.model.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CouponPage {
+
+    private List<CouponResponse> items;
+
+    private Long nextAfter;   // pass as 'after' for the next page; null on the last page
+}
@@ -26,5 +26,9 @@ public class CouponResponse {
 
     private Map<String,Object> metadata;
 
+    private Integer maxRedemptions;             // null means unlimited
+
+    private Integer maxRedemptionsPerCustomer;  // null means unlimited; needs a customer id at apply time
+
     private Long ruleTemplateId;
 }
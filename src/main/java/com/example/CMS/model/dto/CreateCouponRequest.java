@@ -24,5 +24,9 @@ public class CreateCouponRequest {
 
     private Map<String, Object> metadata;   // JSON string
 
+    private Integer maxRedemptions;             // null means unlimited
+
+    private Integer maxRedemptionsPerCustomer;  // null means unlimited; needs a customer id at apply time
+
     private Long ruleTemplateId; // FK to coupon_rule_template
 }
@@ -0,0 +1,46 @@
+package com.example.CMS.model.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SimulationReport {
+
+    private long carts;
+
+    private long invalidLines;    // corpus lines skipped because they did not parse
+
+    private long hits;            // carts the coupon applied to
+
+    private double hitRate;
+
+    private double totalPayout;
+
+    private double meanDiscount;  // per cart the coupon applied to
+
+    private double maxDiscount;
+
+    private double payoutShare;   // total payout over the total value of all carts
+
+    private List<DiscountBucket> distribution;
+
+    private boolean nativeEvaluation;
+
+    private long elapsedMs;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DiscountBucket {
+
+        private Double upTo;      // inclusive upper bound, null for the open-ended last bucket
+
+        private long carts;
+    }
+}
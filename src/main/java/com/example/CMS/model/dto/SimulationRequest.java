@@ -0,0 +1,22 @@
+package com.example.CMS.model.dto;
+
+import com.example.CMS.common.CartCorpusReader;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SimulationRequest {
+
+    private String corpus;                    // file name inside cms.simulation.corpus-directory
+
+    private CartCorpusReader.Format format;   // NDJSON or CSV; taken from the file extension when null
+
+    private CreateCouponRequest coupon;       // the draft; never saved
+
+    private String drlTemplate;               // edited DRL for the coupon's template, when trying a template change
+
+    private Long maxCarts;                    // null means the whole corpus
+}
@@ -0,0 +1,13 @@
+package com.example.CMS.model.metadata;
+
+/**
+ * @param repetitionLimit cap on free units, 0 for no cap
+ */
+public record BuyXGetYCategoryMetadata(int buyQty, int getQty, int repetitionLimit, String category)
+        implements CouponMetadata {
+
+    @Override
+    public CouponMetadataSchema schema() {
+        return CouponMetadataSchema.BXGY_CATEGORY;
+    }
+}
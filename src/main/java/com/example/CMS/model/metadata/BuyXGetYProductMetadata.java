@@ -0,0 +1,15 @@
+package com.example.CMS.model.metadata;
+
+import java.util.Set;
+
+/**
+ * @param repetitionLimit cap on free units, 0 for no cap
+ */
+public record BuyXGetYProductMetadata(int buyQty, int getQty, int repetitionLimit,
+                                      Set<String> buyProducts, Set<String> getProducts) implements CouponMetadata {
+
+    @Override
+    public CouponMetadataSchema schema() {
+        return CouponMetadataSchema.BXGY_PRODUCT;
+    }
+}
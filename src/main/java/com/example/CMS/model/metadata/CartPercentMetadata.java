@@ -0,0 +1,9 @@
+package com.example.CMS.model.metadata;
+
+public record CartPercentMetadata(double minCartValue, double discountPercent) implements CouponMetadata {
+
+    @Override
+    public CouponMetadataSchema schema() {
+        return CouponMetadataSchema.CART_PERCENT;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.CMS.model.metadata;
+
+/**
+ * A coupon's metadata decoded by its {@link CouponMetadataSchema}: primitive fields and
+ * immutable sets, read directly by the native evaluators.
+ */
+public sealed interface CouponMetadata
+        permits CartPercentMetadata, ProductDiscountMetadata, BuyXGetYProductMetadata, BuyXGetYCategoryMetadata {
+
+    CouponMetadataSchema schema();
+}
@@ -0,0 +1,177 @@
+package com.example.CMS.model.metadata;
+
+import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.entity.enums.CouponType;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Metadata schemas of the built-in rule templates. A coupon's metadata is checked against its
+ * schema when the coupon is written, and decoded into a typed {@link CouponMetadata} once per
+ * catalog load. Coupons on custom templates have no schema; their metadata is only checked
+ * against the template's placeholders.
+ */
+public enum CouponMetadataSchema {
+
+    CART_PERCENT("Cart Percent Template", CouponType.CART, m -> new CartPercentMetadata(
+            m.number("minCartValue", 0, Double.MAX_VALUE),
+            m.number("discountPercent", 0, 100))),
+
+    PRODUCT_DISCOUNT("Product Fixed Discount", CouponType.PRODUCT, m -> new ProductDiscountMetadata(
+            m.number("discountAmount", 0, Double.MAX_VALUE),
+            m.stringSet("productIds"))),
+
+    BXGY_PRODUCT("BUY_X_GET_Y_PRODUCT", CouponType.BXGY, m -> new BuyXGetYProductMetadata(
+            m.integer("buyQty", 1),
+            m.integer("getQty", 1),
+            m.integer("repetitionLimit", 0),
+            m.stringSet("buyProducts"),
+            m.stringSet("getProducts"))),
+
+    BXGY_CATEGORY("BUY_X_GET_Y_CATEGORY", CouponType.BXGY, m -> new BuyXGetYCategoryMetadata(
+            m.integer("buyQty", 1),
+            m.integer("getQty", 1),
+            m.integer("repetitionLimit", 0),
+            m.string("category")));
+
+    private final String templateName;
+    private final CouponType type;
+    private final Function<Reader, CouponMetadata> decoder;
+
+    CouponMetadataSchema(String templateName, CouponType type, Function<Reader, CouponMetadata> decoder) {
+        this.templateName = templateName;
+        this.type = type;
+        this.decoder = decoder;
+    }
+
+    public String getTemplateName() {
+        return templateName;
+    }
+
+    public CouponType getType() {
+        return type;
+    }
+
+    /**
+     * The schema of a built-in template, empty for custom templates.
+     */
+    public static Optional<CouponMetadataSchema> of(CouponRuleTemplate template) {
+        if (template == null) {
+            return Optional.empty();
+        }
+        for (CouponMetadataSchema schema : values()) {
+            if (schema.templateName.equals(template.getName())) {
+                return Optional.of(schema);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Decode metadata written for a coupon of {@code couponType}.
+     *
+     * @throws InvalidCouponMetadataException listing every problem found
+     */
+    public CouponMetadata decode(CouponType couponType, Map<String, Object> metadata) {
+        Reader reader = new Reader(metadata);
+        if (couponType != type) {
+            reader.problems.add("Template '" + templateName + "' is for " + type + " coupons, not " + couponType);
+        }
+        CouponMetadata decoded = decoder.apply(reader);
+        if (!reader.problems.isEmpty()) {
+            throw new InvalidCouponMetadataException(reader.problems);
+        }
+        return decoded;
+    }
+
+    /**
+     * Reads typed values out of the JSON map, collecting problems instead of stopping at the first.
+     */
+    private static final class Reader {
+
+        private final Map<String, Object> metadata;
+        private final List<String> problems = new ArrayList<>();
+
+        private Reader(Map<String, Object> metadata) {
+            this.metadata = metadata == null ? Map.of() : metadata;
+        }
+
+        private double number(String key, double min, double max) {
+            Object value = require(key);
+            if (!(value instanceof Number n) || !Double.isFinite(n.doubleValue())) {
+                invalid(key, "must be a number");
+                return 0;
+            }
+            double d = n.doubleValue();
+            if (d < min || d > max) {
+                invalid(key, max == Double.MAX_VALUE
+                        ? "must be at least " + format(min)
+                        : "must be between " + format(min) + " and " + format(max));
+                return 0;
+            }
+            return d;
+        }
+
+        private int integer(String key, int min) {
+            Object value = require(key);
+            if (!(value instanceof Number n) || n.doubleValue() != Math.rint(n.doubleValue())
+                    || n.doubleValue() > Integer.MAX_VALUE) {
+                invalid(key, "must be a whole number");
+                return 0;
+            }
+            if (n.intValue() < min) {
+                invalid(key, "must be at least " + min);
+                return 0;
+            }
+            return n.intValue();
+        }
+
+        private String string(String key) {
+            Object value = require(key);
+            if (!(value instanceof String s) || s.isBlank()) {
+                invalid(key, "must be a non-empty string");
+                return "";
+            }
+            return s;
+        }
+
+        private Set<String> stringSet(String key) {
+            Object value = require(key);
+            if (!(value instanceof Collection<?> items) || items.isEmpty()) {
+                invalid(key, "must be a non-empty list");
+                return Set.of();
+            }
+            Set<String> result = new LinkedHashSet<>();
+            for (Object item : items) {
+                // Numeric ids are accepted and compared as text, as the DRL templates do
+                String id = item instanceof Number ? item.toString() : item instanceof String s ? s : null;
+                if (id == null || id.isBlank()) {
+                    invalid(key, "must only hold non-empty ids");
+                    return Set.of();
+                }
+                result.add(id);
+            }
+            return Set.copyOf(result);
+        }
+
+        private Object require(String key) {
+            Object value = metadata.get(key);
+            if (value == null) {
+                problems.add("Metadata '" + key + "' is missing");
+            }
+            return value;
+        }
+
+        // A missing value was already reported by require
+        private void invalid(String key, String problem) {
+            if (metadata.get(key) != null) {
+                problems.add("Metadata '" + key + "' " + problem);
+            }
+        }
+
+        private static String format(double d) {
+            return d == Math.rint(d) ? String.valueOf((long) d) : String.valueOf(d);
+        }
+    }
+}
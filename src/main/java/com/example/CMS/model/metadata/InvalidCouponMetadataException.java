@@ -0,0 +1,24 @@
+package com.example.CMS.model.metadata;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.List;
+
+/**
+ * Raised when a coupon's metadata does not match the schema of its template.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCouponMetadataException extends RuntimeException {
+
+    private final List<String> problems;
+
+    public InvalidCouponMetadataException(List<String> problems) {
+        super(String.join("; ", problems));
+        this.problems = List.copyOf(problems);
+    }
+
+    public List<String> getProblems() {
+        return problems;
+    }
+}
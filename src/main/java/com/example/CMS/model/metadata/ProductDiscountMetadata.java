@@ -0,0 +1,11 @@
+package com.example.CMS.model.metadata;
+
+import java.util.Set;
+
+public record ProductDiscountMetadata(double discountAmount, Set<String> productIds) implements CouponMetadata {
+
+    @Override
+    public CouponMetadataSchema schema() {
+        return CouponMetadataSchema.PRODUCT_DISCOUNT;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.CMS.model.redemption;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Raised when a coupon has no redemption left, overall or for the customer.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class RedemptionLimitExceededException extends RuntimeException {
+
+    public RedemptionLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.CMS.model.redemption;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A redemption slot held for a cart. It counts against the coupon's limits until it is confirmed
+ * (the order went through) or released (the cart was abandoned); unconfirmed slots are released
+ * when they expire.
+ */
+@Getter
+@AllArgsConstructor
+public class Reservation {
+
+    private final String id;
+
+    private final Long couponId;
+
+    private final String customerId;
+
+    private final String code; // the single-use code held, if the coupon was applied with one
+
+    private final long expiresAt; // epoch millis
+}
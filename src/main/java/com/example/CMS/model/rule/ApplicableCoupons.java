@@ -0,0 +1,23 @@
+package com.example.CMS.model.rule;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The applicable coupons of a cart. A partial result comes from degraded mode, when the
+ * evaluation bulkhead was full: only the natively evaluated coupons were checked.
+ */
+@Getter
+@AllArgsConstructor
+public class ApplicableCoupons {
+
+    private final List<DiscountDecision> decisions;
+
+    private final boolean partial;
+
+    public static ApplicableCoupons complete(List<DiscountDecision> decisions) {
+        return new ApplicableCoupons(decisions, false);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.CMS.model.rule;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Applicable coupons for a cart together with the catalog version and day they were computed
+ * against, so a later edit of the same cart can reuse the decisions it did not affect.
+ */
+@Value
+public class CartEvaluation {
+
+    long catalogVersion;
+
+    LocalDate day;
+
+    List<DiscountDecision> decisions;
+
+    int couponsEvaluated; // coupons actually run to produce this result
+}
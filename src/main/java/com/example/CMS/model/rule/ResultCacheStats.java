@@ -0,0 +1,23 @@
+package com.example.CMS.model.rule;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultCacheStats {
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private int size;
+
+    private long estimatedBytes; // approximate heap held by the cached results
+
+    private double hitRatio;
+}
@@ -0,0 +1,23 @@
+package com.example.CMS.model.rule;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RuleCacheStats {
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private int size;
+
+    private long weightBytes; // total DRL source size of the cached artifacts
+
+    private double hitRatio;
+}
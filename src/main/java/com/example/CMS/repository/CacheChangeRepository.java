@@ -0,0 +1,31 @@
+package com.example.CMS.repository;
+
+import com.example.CMS.entity.CacheChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface CacheChangeRepository extends JpaRepository<CacheChange, Long> {
+
+    @Query("select c from CacheChange c where c.id > :after order by c.id")
+    List<CacheChange> findAfter(@Param("after") long after, Pageable page);
+
+    /**
+     * Highest id among rows written before {@code before}, null when there are none.
+     */
+    @Query("select max(c.id) from CacheChange c where c.createdAt < :before")
+    Long findLastIdBefore(@Param("before") long before);
+
+    @Query("select min(c.id) from CacheChange c")
+    Long findFirstId();
+
+    @Transactional
+    @Modifying
+    @Query("delete from CacheChange c where c.createdAt < :before")
+    int deleteOlderThan(@Param("before") long before);
+}
@@ -0,0 +1,16 @@
+package com.example.CMS.repository;
+
+import com.example.CMS.entity.CodeCampaign;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface CodeCampaignRepository extends JpaRepository<CodeCampaign, Long> {
+
+    @Transactional
+    @Modifying
+    @Query("delete from CodeCampaign c where c.couponId = :couponId")
+    int deleteByCouponId(@Param("couponId") Long couponId);
+}
@@ -0,0 +1,53 @@
+package com.example.CMS.repository;
+
+import com.example.CMS.entity.CouponCode;
+import com.example.CMS.entity.enums.CouponCodeStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CouponCodeRepository extends JpaRepository<CouponCode, Long> {
+
+    Optional<CouponCode> findByCode(String code);
+
+    boolean existsByCode(String code);
+
+    @Query("select c.code from CouponCode c where c.code in :codes")
+    List<String> findExistingCodes(@Param("codes") Collection<String> codes);
+
+    @Query("select c.id, c.code from CouponCode c where c.id > :after order by c.id")
+    List<Object[]> findCodesAfter(@Param("after") long after, Pageable page);
+
+    @Query("select c.code from CouponCode c where c.campaignId = :campaignId and c.id between :firstId and :lastId")
+    List<String> findCampaignCodes(@Param("campaignId") Long campaignId, @Param("firstId") long firstId,
+                                   @Param("lastId") long lastId);
+
+    /**
+     * Hold a code for a cart unless it is redeemed or held by a reservation that has not expired.
+     *
+     * @return 1 when the code was claimed
+     */
+    @Transactional
+    @Modifying
+    @Query("update CouponCode c set c.status = :reserved, c.reservedUntil = :until " +
+            "where c.code = :code and (c.status = :available or (c.status = :reserved and c.reservedUntil < :now))")
+    int claim(@Param("code") String code, @Param("now") long now, @Param("until") long until,
+              @Param("available") CouponCodeStatus available, @Param("reserved") CouponCodeStatus reserved);
+
+    @Transactional
+    @Modifying
+    @Query("update CouponCode c set c.status = :to, c.reservedUntil = null where c.code = :code and c.status = :from")
+    int transition(@Param("code") String code, @Param("from") CouponCodeStatus from, @Param("to") CouponCodeStatus to);
+
+    @Transactional
+    @Modifying
+    @Query("delete from CouponCode c where c.couponId = :couponId")
+    int deleteByCouponId(@Param("couponId") Long couponId);
+}
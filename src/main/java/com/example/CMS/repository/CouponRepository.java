@@ -1,7 +1,70 @@
 package com.example.CMS.repository;
 
 import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.enums.CouponType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CouponRepository extends JpaRepository<Coupon, Long> {
+
+    /**
+     * Optional listing filters; a null parameter matches every coupon. A coupon with no active
+     * flag counts as active, and one with an open date bound overlaps every window.
+     */
+    String LISTING_FILTER = "(:type is null or c.type = :type) " +
+            "and (:active is null or (:active = true and (c.active is null or c.active = true)) " +
+            "or (:active = false and c.active = false)) " +
+            "and (:templateId is null or c.ruleTemplate.id = :templateId) " +
+            "and (:from is null or c.endDate is null or c.endDate >= :from) " +
+            "and (:to is null or c.startDate is null or c.startDate <= :to) ";
+
+    /**
+     * Keyset page: the coupons after {@code after} in id order. Unlike an offset, the cost of a
+     * page does not grow with how deep into the table it is.
+     */
+    @Query("select c from Coupon c where c.id > :after and " + LISTING_FILTER + "order by c.id")
+    List<Coupon> findPage(@Param("after") long after, @Param("type") CouponType type,
+                          @Param("active") Boolean active, @Param("templateId") Long templateId,
+                          @Param("from") LocalDate from, @Param("to") LocalDate to, Pageable page);
+
+    /**
+     * Every matching coupon in id order, read through a cursor. Must be consumed inside a
+     * transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c from Coupon c where " + LISTING_FILTER + "order by c.id")
+    Stream<Coupon> streamAll(@Param("type") CouponType type, @Param("active") Boolean active,
+                             @Param("templateId") Long templateId,
+                             @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select c from Coupon c left join fetch c.ruleTemplate " +
+            "where (c.active is null or c.active = true) and (c.endDate is null or c.endDate >= :day) " +
+            "order by c.id")
+    List<Coupon> findActiveNotExpired(@Param("day") LocalDate day);
+
+    boolean existsByCodeIgnoreCase(String code);
+
+    @Query("select upper(c.code) from Coupon c where upper(c.code) in :codes")
+    List<String> findExistingCodes(@Param("codes") Collection<String> codes);
+
+    boolean existsByCodeIgnoreCaseAndIdNot(String code, Long id);
+
+    @Query("select c.redemptionCount from Coupon c where c.id = :id")
+    Optional<Long> findRedemptionCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Coupon c set c.redemptionCount = c.redemptionCount + :count where c.id = :id")
+    int addRedemptions(@Param("id") Long id, @Param("count") long count);
 }
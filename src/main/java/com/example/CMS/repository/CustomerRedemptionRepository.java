@@ -0,0 +1,21 @@
+package com.example.CMS.repository;
+
+import com.example.CMS.entity.CustomerRedemption;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface CustomerRedemptionRepository extends JpaRepository<CustomerRedemption, CustomerRedemption.Key> {
+
+    @Query("select r.redeemed from CustomerRedemption r where r.couponId = :couponId and r.customerId = :customerId")
+    Optional<Long> findRedeemed(@Param("couponId") Long couponId, @Param("customerId") String customerId);
+
+    @Modifying
+    @Query("update CustomerRedemption r set r.redeemed = r.redeemed + :count " +
+            "where r.couponId = :couponId and r.customerId = :customerId")
+    int addRedemptions(@Param("couponId") Long couponId, @Param("customerId") String customerId,
+                       @Param("count") long count);
+}
@@ -0,0 +1,26 @@
+package com.example.CMS.service;
+
+/**
+ * Keeps the coupon catalog, compiled rules and coupon code filter of every node in step.
+ * <p>
+ * The record methods must be called inside the transaction making the change: they add a row to
+ * the change log in that transaction and apply the change to this node's caches once it commits.
+ * Other nodes pick the row up on their next poll and apply the changes in log order.
+ */
+public interface CacheSyncService {
+
+    void recordCouponChange(Long couponId);
+
+    void recordTemplateChange(Long templateId);
+
+    /**
+     * Record a committed batch of generated codes, with ids from {@code firstId} to {@code lastId}.
+     * This node's code filter is updated by the generator itself.
+     */
+    void recordCodeBatch(Long campaignId, long firstId, long lastId);
+
+    /**
+     * Apply the changes other nodes logged since the last poll.
+     */
+    void poll();
+}
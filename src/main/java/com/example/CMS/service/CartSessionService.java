@@ -0,0 +1,26 @@
+package com.example.CMS.service;
+
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.cart.CartDelta;
+import com.example.CMS.model.dto.CartSessionResponse;
+
+import java.util.List;
+
+/**
+ * Server-side carts that keep their coupon decisions between edits, so each edit only
+ * re-evaluates the coupons it can affect. Sessions expire after a period of inactivity.
+ */
+public interface CartSessionService {
+
+    /**
+     * Start (or replace) the session for {@code cartId} with a full evaluation of the cart.
+     * A new id is generated when {@code cartId} is null.
+     */
+    CartSessionResponse open(String cartId, Cart cart);
+
+    CartSessionResponse applyDeltas(String cartId, List<CartDelta> deltas);
+
+    CartSessionResponse get(String cartId);
+
+    void close(String cartId);
+}
@@ -0,0 +1,19 @@
+package com.example.CMS.service;
+
+import com.example.CMS.model.dto.CodeCampaignRequest;
+import com.example.CMS.model.dto.CodeCampaignResponse;
+
+public interface CodeCampaignService {
+
+    /**
+     * Start generating codes in the background.
+     */
+    CodeCampaignResponse start(CodeCampaignRequest request);
+
+    CodeCampaignResponse get(Long campaignId);
+
+    /**
+     * Continue a failed or interrupted campaign from its last committed batch.
+     */
+    CodeCampaignResponse resume(Long campaignId);
+}
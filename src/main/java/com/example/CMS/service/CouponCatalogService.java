@@ -0,0 +1,31 @@
+package com.example.CMS.service;
+
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.model.catalog.CatalogEntry;
+import com.example.CMS.model.catalog.CatalogSnapshot;
+
+public interface CouponCatalogService {
+
+    /**
+     * Latest published snapshot of the active coupon catalog. Never blocks on a rebuild
+     * once the first snapshot exists.
+     */
+    CatalogSnapshot current();
+
+    /**
+     * Schedule a background rebuild; concurrent requests are coalesced into one rebuild.
+     * Should be called whenever coupons or templates change.
+     */
+    void refresh();
+
+    /**
+     * Rebuild the snapshot on the calling thread and publish it.
+     */
+    CatalogSnapshot rebuild();
+
+    /**
+     * Prepare a coupon the way a snapshot would hold it, without publishing it. Used for draft
+     * coupons that are evaluated but never saved.
+     */
+    CatalogEntry prepare(Coupon coupon);
+}
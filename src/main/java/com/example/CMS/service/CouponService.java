@@ -1,17 +1,32 @@
 package com.example.CMS.service;
 
 import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.dto.AppliedCoupon;
+import com.example.CMS.model.dto.CartCouponsResult;
 import com.example.CMS.model.dto.CreateCouponRequest;
+import com.example.CMS.model.dto.CouponFilter;
+import com.example.CMS.model.dto.CouponPage;
 import com.example.CMS.model.dto.CouponResponse;
-import com.example.CMS.model.rule.DiscountDecision;
+import com.example.CMS.model.rule.ApplicableCoupons;
 
-import java.util.List;
+import java.util.Iterator;
+import java.util.function.Consumer;
 
 public interface CouponService {
 
     CouponResponse createCoupon(CreateCouponRequest request);
 
-    List<CouponResponse> getAllCoupons();
+    /**
+     * One page of coupons in id order, starting after the coupon id {@code after} (0 for the
+     * first page).
+     */
+    CouponPage getCouponPage(CouponFilter filter, long after, int limit);
+
+    /**
+     * Hand every matching coupon to {@code sink} in id order, read through a database cursor
+     * without holding the listing in memory.
+     */
+    void exportCoupons(CouponFilter filter, Consumer<CouponResponse> sink);
 
     CouponResponse getCouponById(Long id);
 
@@ -19,7 +34,30 @@ public interface CouponService {
 
     void deleteCoupon(Long id);
 
-    List<DiscountDecision> getApplicableCoupons(Cart cart);
-
-    Cart applyCoupon(Long id, Cart cart);
+    /**
+     * Applicable coupons of a cart. Cached results are served straight away; evaluations go
+     * through the bulkhead, and one it sheds is answered in degraded mode (a partial result) or
+     * rejected.
+     *
+     * @throws com.example.CMS.engine.EvaluationRejectedException when shed without degraded mode
+     */
+    ApplicableCoupons getApplicableCoupons(Cart cart);
+
+    void getApplicableCouponsBatch(Iterator<Cart> carts, Consumer<CartCouponsResult> sink);
+
+    /**
+     * Apply a coupon to a cart. A discounted cart holds one redemption of a limited coupon until
+     * the reservation is confirmed or released. Runs in the evaluation bulkhead and is rejected
+     * when shed.
+     */
+    AppliedCoupon applyCoupon(Long id, Cart cart, String customerId);
+
+    /**
+     * Apply the live coupon with this code, ignoring case. The code is either the coupon's own or
+     * a generated single-use code, which the reservation then holds. Unknown codes are rejected
+     * from memory, without a database query or rule evaluation.
+     *
+     * @throws com.example.CMS.model.catalog.UnknownCouponCodeException when no live coupon has the code
+     */
+    AppliedCoupon applyCouponByCode(String code, Cart cart, String customerId);
 }
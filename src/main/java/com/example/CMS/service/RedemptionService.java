@@ -0,0 +1,27 @@
+package com.example.CMS.service;
+
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.model.redemption.Reservation;
+
+public interface RedemptionService {
+
+    /**
+     * Hold one redemption of the coupon for a customer, and the single-use code it was applied
+     * with if any.
+     *
+     * @param singleUseCode a generated code, or null when the coupon was applied by id or its own code
+     * @return the reservation, or null when the coupon has no limit and no single-use code was given
+     * @throws com.example.CMS.model.redemption.RedemptionLimitExceededException when no redemption is
+     * left or the code is used or held
+     */
+    Reservation reserve(Coupon coupon, String customerId, String singleUseCode);
+
+    void confirm(String reservationId);
+
+    void release(String reservationId);
+
+    /**
+     * Write confirmed redemptions not yet persisted.
+     */
+    void flush();
+}
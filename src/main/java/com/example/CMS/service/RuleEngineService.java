@@ -1,19 +1,78 @@
 package com.example.CMS.service;
 
+import com.example.CMS.engine.DraftCouponEvaluator;
+import com.example.CMS.entity.Coupon;
 import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.cart.CartChange;
+import com.example.CMS.model.rule.ApplicableCoupons;
+import com.example.CMS.model.rule.CartEvaluation;
 import com.example.CMS.model.rule.DiscountDecision;
+import com.example.CMS.model.rule.ResultCacheStats;
+import com.example.CMS.model.rule.RuleCacheStats;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public interface RuleEngineService {
 
     List<DiscountDecision> evaluateAllCoupons(Cart cart);
 
+    /**
+     * The result cached for an identical cart under the current catalog version, or null.
+     */
+    List<DiscountDecision> findCachedResult(Cart cart);
+
+    /**
+     * Evaluate only the coupons with native evaluators, skipping Drools. Degraded mode for when
+     * full evaluation is shed; the result is partial when Drools coupons were skipped.
+     */
+    ApplicableCoupons evaluateNativeOnly(Cart cart);
+
+    /**
+     * Evaluate many carts against the same catalog snapshot, handing each cart's decisions
+     * (with its position in the input) to {@code sink} in input order.
+     */
+    /**
+     * Evaluate all coupons for a cart, keeping the catalog version the result was computed against.
+     */
+    CartEvaluation evaluateCart(Cart cart);
+
+    /**
+     * Evaluate a cart after an edit, re-running only the coupons the change can affect and reusing
+     * the other decisions of {@code previous}. Falls back to a full evaluation when the catalog
+     * or the day changed since.
+     */
+    CartEvaluation reevaluateCart(CartEvaluation previous, Cart cart, CartChange change);
+
+    void evaluateBatch(Iterator<Cart> carts, BiConsumer<Integer, List<DiscountDecision>> sink);
+
     Cart applyCouponToCart(Long couponId, Cart cart);
 
+    /**
+     * Prepare a coupon that is not saved (a draft) for evaluation against arbitrary carts, ignoring
+     * its dates and active flag. Its rules are compiled privately and never reach the rule cache,
+     * the rule store or the result cache.
+     */
+    DraftCouponEvaluator prepareDraft(Coupon draft);
+
     /**
      * Invalidate cached compiled artifact for a coupon.
      * Should be called when coupon metadata or template changes.
      */
     void invalidateCacheForCoupon(Long couponId);
+
+    /**
+     * Compile the rules of every live coupon ahead of traffic.
+     *
+     * @return number of rule bases compiled or restored
+     */
+    int warmUp(long timeoutMs);
+
+    /**
+     * Hit/miss/eviction counters of the compiled rule cache.
+     */
+    RuleCacheStats getCacheStats();
+
+    ResultCacheStats getResultCacheStats();
 }
@@ -0,0 +1,13 @@
+package com.example.CMS.service;
+
+import com.example.CMS.model.dto.SimulationReport;
+import com.example.CMS.model.dto.SimulationRequest;
+
+public interface SimulationService {
+
+    /**
+     * Evaluate a draft coupon against every cart of a corpus file and summarise what it would
+     * have paid out. The draft is never saved and no live cache sees it.
+     */
+    SimulationReport simulate(SimulationRequest request);
+}
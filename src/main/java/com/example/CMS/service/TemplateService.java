@@ -3,7 +3,16 @@ package com.example.CMS.service;
 import com.example.CMS.entity.Coupon;
 import com.example.CMS.entity.CouponRuleTemplate;
 
+import java.util.Map;
+
 public interface TemplateService {
 
     String generateDRL(Coupon coupon, CouponRuleTemplate template);
+
+    /**
+     * Check that {@code metadata} fills every placeholder of the template and nothing else.
+     *
+     * @throws com.example.CMS.engine.DrlTemplateException listing every problem found
+     */
+    void validateMetadata(Map<String, Object> metadata, CouponRuleTemplate template);
 }
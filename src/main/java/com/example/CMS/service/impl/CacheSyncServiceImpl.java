@@ -0,0 +1,236 @@
+package com.example.CMS.service.impl;
+
+import com.example.CMS.config.CacheSyncProperties;
+import com.example.CMS.engine.CouponCodeIndex;
+import com.example.CMS.entity.CacheChange;
+import com.example.CMS.entity.enums.CacheChangeType;
+import com.example.CMS.repository.CacheChangeRepository;
+import com.example.CMS.repository.CouponCodeRepository;
+import com.example.CMS.service.CacheSyncService;
+import com.example.CMS.service.CouponCatalogService;
+import com.example.CMS.service.RuleEngineService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the change log in id order and applies other nodes' changes to this node's caches.
+ * <p>
+ * Ids are taken when a row is inserted but become visible when its transaction commits, so a
+ * hole after the last applied id may still fill in. The poller stops at a hole and waits for it
+ * up to the gap timeout; past that the hole is skipped and the catalog rebuilt, which picks up
+ * whatever did commit. Every batch of coupon and template changes ends in one synchronous catalog
+ * rebuild, so a change is visible here within about one poll interval of its commit.
+ */
+@Service
+public class CacheSyncServiceImpl implements CacheSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSyncServiceImpl.class);
+
+    private static final long PRUNE_INTERVAL_MS = 60 * 60 * 1000;
+
+    private final CacheChangeRepository changeRepository;
+    private final CouponCodeRepository codeRepository;
+    private final RuleEngineService ruleEngineService;
+    private final CouponCatalogService catalogService;
+    private final CouponCodeIndex codeIndex;
+    private final CacheSyncProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Timer lag;
+
+    private final long startedAt = System.currentTimeMillis();
+
+    // Guarded by this
+    private long cursor = -1;          // last change id applied, -1 until the log has been read
+    private long gapSince;             // when the hole after the cursor was first seen, 0 while there is none
+    private long lastPrune;
+
+    private volatile long lastPolled = startedAt;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cache-sync-poller");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CacheSyncServiceImpl(CacheChangeRepository changeRepository, CouponCodeRepository codeRepository,
+                                RuleEngineService ruleEngineService, CouponCatalogService catalogService,
+                                CouponCodeIndex codeIndex, CacheSyncProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.changeRepository = changeRepository;
+        this.codeRepository = codeRepository;
+        this.ruleEngineService = ruleEngineService;
+        this.catalogService = catalogService;
+        this.codeIndex = codeIndex;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.lag = Timer.builder("cms.cache.sync.lag")
+                .description("From a change committing on another node to it being applied on this one")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        if (properties.isEnabled()) {
+            Gauge.builder("cms.cache.sync.poll.age", this, s -> System.currentTimeMillis() - s.lastPolled)
+                    .description("Time since the change log was last read, bounding how stale this node can be")
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            long period = properties.getPollIntervalMs();
+            scheduler.scheduleWithFixedDelay(this::runPoll, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void recordCouponChange(Long couponId) {
+        append(CacheChangeType.COUPON, couponId, null, null);
+        afterCommit(() -> {
+            ruleEngineService.invalidateCacheForCoupon(couponId);
+            catalogService.refresh();
+        });
+    }
+
+    @Override
+    public void recordTemplateChange(Long templateId) {
+        append(CacheChangeType.TEMPLATE, templateId, null, null);
+        afterCommit(catalogService::refresh);
+    }
+
+    @Override
+    public void recordCodeBatch(Long campaignId, long firstId, long lastId) {
+        append(CacheChangeType.CODES, campaignId, firstId, lastId);
+    }
+
+    @Override
+    public synchronized void poll() {
+        long now = System.currentTimeMillis();
+        if (cursor < 0 && (cursor = startCursor()) < 0) {
+            lastPolled = now;
+            return;
+        }
+
+        List<CacheChange> applied = new ArrayList<>();
+        boolean rebuild = false;
+        for (CacheChange change : changeRepository.findAfter(cursor, PageRequest.of(0, properties.getBatchSize()))) {
+            if (change.getId() != cursor + 1) {
+                if (gapSince == 0) {
+                    gapSince = now;
+                }
+                if (now - gapSince < properties.getGapTimeoutMs()) {
+                    break;
+                }
+                log.warn("Change log ids {} to {} never committed, skipping them", cursor + 1, change.getId() - 1);
+                rebuild = true;
+            }
+            gapSince = 0;
+            cursor = change.getId();
+            if (!properties.getNodeId().equals(change.getNodeId())) {
+                rebuild |= apply(change);
+                applied.add(change);
+            }
+        }
+        if (rebuild) {
+            catalogService.rebuild();
+        }
+
+        long done = System.currentTimeMillis();
+        for (CacheChange change : applied) {
+            lag.record(Math.max(0, done - change.getCreatedAt()), TimeUnit.MILLISECONDS);
+            meterRegistry.counter("cms.cache.sync.changes", "type", change.getType().name()).increment();
+        }
+        lastPolled = now;
+        prune(now);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void runPoll() {
+        try {
+            poll();
+        } catch (RuntimeException ex) {
+            log.warn("Reading the cache change log failed, retrying next poll", ex);
+        }
+    }
+
+    /**
+     * Where to start reading: changes from a gap timeout before this node started are replayed,
+     * as they may have committed after its caches were loaded. -1 while the log is empty.
+     */
+    private long startCursor() {
+        Long last = changeRepository.findLastIdBefore(startedAt - properties.getGapTimeoutMs());
+        if (last != null) {
+            return last;
+        }
+        Long first = changeRepository.findFirstId();
+        return first == null ? -1 : first - 1;
+    }
+
+    /**
+     * @return whether the catalog must be rebuilt for the change
+     */
+    private boolean apply(CacheChange change) {
+        return switch (change.getType()) {
+            case COUPON -> {
+                ruleEngineService.invalidateCacheForCoupon(change.getEntityId());
+                yield true;
+            }
+            case TEMPLATE -> true;
+            case CODES -> {
+                codeIndex.add(codeRepository.findCampaignCodes(change.getEntityId(), change.getFirstId(), change.getLastId()));
+                yield false;
+            }
+        };
+    }
+
+    private void append(CacheChangeType type, Long entityId, Long firstId, Long lastId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        changeRepository.save(CacheChange.builder()
+                .type(type)
+                .entityId(entityId)
+                .firstId(firstId)
+                .lastId(lastId)
+                .nodeId(properties.getNodeId())
+                .createdAt(System.currentTimeMillis())
+                .build());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void prune(long now) {
+        if (now - lastPrune < PRUNE_INTERVAL_MS) {
+            return;
+        }
+        lastPrune = now;
+        int deleted = changeRepository.deleteOlderThan(now - properties.getRetentionMs());
+        if (deleted > 0) {
+            log.info("Pruned {} cache change log rows", deleted);
+        }
+    }
+}
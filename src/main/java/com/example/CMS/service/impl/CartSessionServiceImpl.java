@@ -0,0 +1,234 @@
+package com.example.CMS.service.impl;
+
+import com.example.CMS.config.RuleEngineProperties;
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.cart.CartChange;
+import com.example.CMS.model.cart.CartDelta;
+import com.example.CMS.model.cart.CartItem;
+import com.example.CMS.model.dto.CartSessionResponse;
+import com.example.CMS.model.rule.CartEvaluation;
+import com.example.CMS.service.CartSessionService;
+import com.example.CMS.service.RuleEngineService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class CartSessionServiceImpl implements CartSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CartSessionServiceImpl.class);
+
+    private final RuleEngineService ruleEngineService;
+    private final RuleEngineProperties properties;
+
+    /**
+     * Access-ordered, so the eldest entry is the least recently used session.
+     */
+    private final LinkedHashMap<String, CartSession> sessions;
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cart-session-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CartSessionServiceImpl(RuleEngineService ruleEngineService, RuleEngineProperties properties) {
+        this.ruleEngineService = ruleEngineService;
+        this.properties = properties;
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CartSession> eldest) {
+                return size() > properties.getCartSession().getMaxSessions();
+            }
+        };
+
+        long period = Math.max(1000, properties.getCartSession().getTtlMs() / 4);
+        sweeper.scheduleWithFixedDelay(this::removeExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CartSessionResponse open(String cartId, Cart cart) {
+        CartSession session = new CartSession(cartId != null ? cartId : UUID.randomUUID().toString(), copy(cart));
+
+        session.lock.lock();
+        try {
+            session.evaluation = ruleEngineService.evaluateCart(session.cart);
+            synchronized (sessions) {
+                sessions.put(session.id, session);
+            }
+            return session.toResponse();
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    @Override
+    public CartSessionResponse applyDeltas(String cartId, List<CartDelta> deltas) {
+        CartSession session = find(cartId);
+
+        session.lock.lock();
+        try {
+            double previousTotal = session.cart.getTotalAmount();
+            Set<String> productIds = new HashSet<>();
+            Set<String> categories = new HashSet<>();
+
+            for (CartDelta delta : deltas) {
+                apply(session.cart, delta, productIds, categories);
+            }
+
+            CartChange change = new CartChange(productIds, categories, previousTotal, session.cart.getTotalAmount());
+            session.evaluation = ruleEngineService.reevaluateCart(session.evaluation, session.cart, change);
+            return session.toResponse();
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    @Override
+    public CartSessionResponse get(String cartId) {
+        CartSession session = find(cartId);
+        session.lock.lock();
+        try {
+            return session.toResponse();
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close(String cartId) {
+        synchronized (sessions) {
+            sessions.remove(cartId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private CartSession find(String cartId) {
+        synchronized (sessions) {
+            CartSession session = sessions.get(cartId);
+            if (session == null || session.isExpired(properties.getCartSession().getTtlMs())) {
+                sessions.remove(cartId);
+                throw new RuntimeException("Cart session not found");
+            }
+            session.touch();
+            return session;
+        }
+    }
+
+    private void removeExpired() {
+        long ttl = properties.getCartSession().getTtlMs();
+        int removed = 0;
+        synchronized (sessions) {
+            Iterator<CartSession> it = sessions.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().isExpired(ttl)) {
+                    it.remove();
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            log.debug("Expired {} cart sessions", removed);
+        }
+    }
+
+    /**
+     * Apply one edit, recording the products and categories (before and after) it touched.
+     */
+    private static void apply(Cart cart, CartDelta delta, Set<String> productIds, Set<String> categories) {
+        if (delta.getOp() == null || delta.getProductId() == null) {
+            throw new RuntimeException("Cart delta needs an op and a productId");
+        }
+        productIds.add(delta.getProductId());
+
+        CartItem line = cart.getItems().stream()
+                .filter(item -> delta.getProductId().equals(item.getProductId()))
+                .findFirst()
+                .orElse(null);
+        if (line != null && line.getCategory() != null) {
+            categories.add(line.getCategory());
+        }
+
+        switch (delta.getOp()) {
+            case ADD -> {
+                if (delta.getQuantity() <= 0) {
+                    throw new RuntimeException("ADD needs a positive quantity");
+                }
+                if (line == null) {
+                    line = new CartItem(delta.getProductId(), delta.getProductName(), delta.getCategory(),
+                            delta.getPrice() != null ? delta.getPrice() : 0.0, 0);
+                    cart.getItems().add(line);
+                } else {
+                    if (delta.getCategory() != null) {
+                        line.setCategory(delta.getCategory());
+                    }
+                    if (delta.getPrice() != null) {
+                        line.setPrice(delta.getPrice());
+                    }
+                }
+                line.setQuantity(line.getQuantity() + delta.getQuantity());
+                if (line.getCategory() != null) {
+                    categories.add(line.getCategory());
+                }
+            }
+            case REMOVE -> cart.getItems().remove(line);
+            case SET_QUANTITY -> {
+                if (line == null) {
+                    throw new RuntimeException("Product " + delta.getProductId() + " is not in the cart");
+                }
+                if (delta.getQuantity() <= 0) {
+                    cart.getItems().remove(line);
+                } else {
+                    line.setQuantity(delta.getQuantity());
+                }
+            }
+        }
+    }
+
+    private static Cart copy(Cart cart) {
+        Cart copy = new Cart();
+        for (CartItem item : cart.getItems()) {
+            copy.getItems().add(new CartItem(item.getProductId(), item.getProductName(), item.getCategory(),
+                    item.getPrice(), item.getQuantity()));
+        }
+        return copy;
+    }
+
+    private static final class CartSession {
+        // Held across evaluation, which can block
+        private final ReentrantLock lock = new ReentrantLock();
+        private final String id;
+        private final Cart cart;
+        private CartEvaluation evaluation;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private CartSession(String id, Cart cart) {
+            this.id = id;
+            this.cart = cart;
+        }
+
+        private void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+
+        private boolean isExpired(long ttlMs) {
+            return System.currentTimeMillis() - lastAccess > ttlMs;
+        }
+
+        private CartSessionResponse toResponse() {
+            return new CartSessionResponse(id, copy(cart), new ArrayList<>(evaluation.getDecisions()),
+                    evaluation.getCouponsEvaluated());
+        }
+    }
+}
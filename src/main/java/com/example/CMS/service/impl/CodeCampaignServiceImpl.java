@@ -0,0 +1,237 @@
+package com.example.CMS.service.impl;
+
+import com.example.CMS.common.CodePattern;
+import com.example.CMS.config.CouponCodeProperties;
+import com.example.CMS.engine.CouponCodeIndex;
+import com.example.CMS.entity.CodeCampaign;
+import com.example.CMS.entity.CouponCode;
+import com.example.CMS.entity.enums.CodeCampaignStatus;
+import com.example.CMS.entity.enums.CouponCodeStatus;
+import com.example.CMS.model.dto.CodeCampaignRequest;
+import com.example.CMS.model.dto.CodeCampaignResponse;
+import com.example.CMS.repository.CodeCampaignRepository;
+import com.example.CMS.repository.CouponCodeRepository;
+import com.example.CMS.repository.CouponRepository;
+import com.example.CMS.service.CacheSyncService;
+import com.example.CMS.service.CodeCampaignService;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Generates campaign codes on a background thread, one transaction per batch. Each transaction
+ * inserts the batch as a single JDBC batch and saves how far the campaign got, so progress is
+ * visible while it runs and a stopped campaign resumes from its last committed batch.
+ */
+@Service
+public class CodeCampaignServiceImpl implements CodeCampaignService {
+
+    private static final Logger log = LoggerFactory.getLogger(CodeCampaignServiceImpl.class);
+
+    private final CouponRepository couponRepository;
+    private final CouponCodeRepository codeRepository;
+    private final CodeCampaignRepository campaignRepository;
+    private final CouponCodeIndex codeIndex;
+    private final CacheSyncService cacheSyncService;
+    private final TransactionTemplate transactionTemplate;
+    private final CouponCodeProperties properties;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService generator = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "coupon-code-generator");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CodeCampaignServiceImpl(CouponRepository couponRepository, CouponCodeRepository codeRepository,
+                                   CodeCampaignRepository campaignRepository, CouponCodeIndex codeIndex,
+                                   CacheSyncService cacheSyncService, PlatformTransactionManager transactionManager,
+                                   CouponCodeProperties properties) {
+        this.couponRepository = couponRepository;
+        this.codeRepository = codeRepository;
+        this.campaignRepository = campaignRepository;
+        this.codeIndex = codeIndex;
+        this.cacheSyncService = cacheSyncService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    @Override
+    public CodeCampaignResponse start(CodeCampaignRequest request) {
+        if (request.getCouponId() == null || !couponRepository.existsById(request.getCouponId())) {
+            throw new RuntimeException("Coupon not found");
+        }
+        if (request.getCount() <= 0 || request.getCount() > properties.getMaxCount()) {
+            throw new RuntimeException("Code count must be between 1 and " + properties.getMaxCount());
+        }
+        CodePattern pattern = CodePattern.parse(request.getPattern());
+        if (pattern.space() / request.getCount() < properties.getMinSparsity()) {
+            throw new RuntimeException("Code pattern is too short: it needs at least "
+                    + properties.getMinSparsity() + " possible codes per generated code");
+        }
+
+        CodeCampaign campaign = campaignRepository.save(CodeCampaign.builder()
+                .couponId(request.getCouponId())
+                .pattern(pattern.pattern())
+                .requestedCount(request.getCount())
+                .secret(random.nextLong())
+                .status(CodeCampaignStatus.RUNNING)
+                .build());
+        submit(campaign.getId());
+        return toResponse(campaign);
+    }
+
+    @Override
+    public CodeCampaignResponse get(Long campaignId) {
+        return toResponse(find(campaignId));
+    }
+
+    @Override
+    public CodeCampaignResponse resume(Long campaignId) {
+        CodeCampaign campaign = find(campaignId);
+        if (campaign.getStatus() == CodeCampaignStatus.COMPLETED) {
+            return toResponse(campaign);
+        }
+        if (running.contains(campaignId)) {
+            throw new RuntimeException("Code campaign is already running");
+        }
+        campaign.setStatus(CodeCampaignStatus.RUNNING);
+        campaign.setError(null);
+        campaignRepository.save(campaign);
+        submit(campaignId);
+        return toResponse(campaign);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted campaigns stay RUNNING with their committed progress and can be resumed
+        generator.shutdownNow();
+    }
+
+    private void submit(Long campaignId) {
+        running.add(campaignId);
+        generator.execute(() -> run(campaignId));
+    }
+
+    private void run(Long campaignId) {
+        try {
+            CodeCampaign campaign = find(campaignId);
+            CodePattern pattern = CodePattern.parse(campaign.getPattern());
+            codeIndex.ensureCapacity(campaign.getRequestedCount() - campaign.getGeneratedCount());
+
+            long started = System.nanoTime();
+            long generated = 0;
+            int batch;
+            while ((batch = generateBatch(campaignId, pattern)) > 0) {
+                generated += batch;
+                if (Thread.currentThread().isInterrupted()) {
+                    log.info("Code campaign {} stopped after {} codes", campaignId, generated);
+                    return;
+                }
+            }
+            updateStatus(campaignId, CodeCampaignStatus.COMPLETED, null);
+            log.info("Code campaign {} generated {} codes in {} ms", campaignId, generated,
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException ex) {
+            log.error("Code campaign {} failed: {}", campaignId, ex.getMessage(), ex);
+            updateStatus(campaignId, CodeCampaignStatus.FAILED, ex.getMessage());
+        } finally {
+            running.remove(campaignId);
+        }
+    }
+
+    /**
+     * Insert the campaign's next batch of codes and its progress in one transaction. Codes taken
+     * by another campaign or coupon are skipped and replaced from further along the permutation.
+     *
+     * @return codes inserted, 0 once the campaign is complete
+     */
+    private int generateBatch(Long campaignId, CodePattern pattern) {
+        List<String> codes = transactionTemplate.execute(status -> {
+            CodeCampaign campaign = find(campaignId);
+            long wanted = Math.min(properties.getBatchSize(), campaign.getRequestedCount() - campaign.getGeneratedCount());
+            if (wanted <= 0) {
+                return List.<String>of();
+            }
+
+            List<String> fresh = new ArrayList<>((int) wanted);
+            long index = campaign.getNextIndex();
+            while (fresh.size() < wanted) {
+                List<String> candidates = new ArrayList<>();
+                while (candidates.size() < wanted - fresh.size()) {
+                    if (index >= pattern.space()) {
+                        throw new RuntimeException("Code pattern " + pattern.pattern() + " has no unused codes left");
+                    }
+                    candidates.add(pattern.code(index++, campaign.getSecret()));
+                }
+                Set<String> taken = new HashSet<>(codeRepository.findExistingCodes(candidates));
+                taken.addAll(couponRepository.findExistingCodes(candidates));
+                candidates.stream().filter(code -> !taken.contains(code)).forEach(fresh::add);
+            }
+
+            long firstId = Long.MAX_VALUE;
+            long lastId = Long.MIN_VALUE;
+            for (String code : fresh) {
+                CouponCode row = CouponCode.builder()
+                        .code(code)
+                        .couponId(campaign.getCouponId())
+                        .campaignId(campaignId)
+                        .status(CouponCodeStatus.AVAILABLE)
+                        .build();
+                entityManager.persist(row);
+                firstId = Math.min(firstId, row.getId());
+                lastId = Math.max(lastId, row.getId());
+            }
+            campaign.setGeneratedCount(campaign.getGeneratedCount() + fresh.size());
+            campaign.setNextIndex(index);
+            // Other nodes add the batch to their code filters once it commits
+            cacheSyncService.recordCodeBatch(campaignId, firstId, lastId);
+            entityManager.flush();
+            entityManager.clear();
+            return fresh;
+        });
+
+        codeIndex.add(codes);
+        return codes.size();
+    }
+
+    private void updateStatus(Long campaignId, CodeCampaignStatus status, String error) {
+        CodeCampaign campaign = find(campaignId);
+        campaign.setStatus(status);
+        campaign.setError(error);
+        campaignRepository.save(campaign);
+    }
+
+    private CodeCampaign find(Long campaignId) {
+        return campaignRepository.findById(campaignId)
+                .orElseThrow(() -> new RuntimeException("Code campaign not found"));
+    }
+
+    private CodeCampaignResponse toResponse(CodeCampaign campaign) {
+        return CodeCampaignResponse.builder()
+                .id(campaign.getId())
+                .couponId(campaign.getCouponId())
+                .pattern(campaign.getPattern())
+                .requestedCount(campaign.getRequestedCount())
+                .generatedCount(campaign.getGeneratedCount())
+                .status(campaign.getStatus())
+                .error(campaign.getError())
+                .build();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.CMS.service.impl;
+
+import com.example.CMS.engine.evaluator.CouponEvaluatorRegistry;
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.model.catalog.CatalogEntry;
+import com.example.CMS.model.catalog.CatalogSnapshot;
+import com.example.CMS.model.metadata.CouponMetadata;
+import com.example.CMS.repository.CouponRepository;
+import com.example.CMS.service.CouponCatalogService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+@RequiredArgsConstructor
+public class CouponCatalogServiceImpl implements CouponCatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(CouponCatalogServiceImpl.class);
+
+    private final CouponRepository couponRepository;
+    private final CouponEvaluatorRegistry evaluatorRegistry;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    // Guards rebuilds; requests waiting on the first load park on it without pinning a carrier
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "coupon-catalog-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        // The rule warm-up runner usually builds the first snapshot already.
+        current();
+    }
+
+    @Override
+    public CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) {
+            rebuildLock.lock();
+            try {
+                current = snapshot.get();
+                if (current == null) {
+                    current = rebuild();
+                }
+            } finally {
+                rebuildLock.unlock();
+            }
+        }
+        if (!current.getAsOf().equals(LocalDate.now())) {
+            // Day rolled over: the old snapshot still answers correctly, rebuild to drop expired coupons.
+            refresh();
+        }
+        return current;
+    }
+
+    @Override
+    public void refresh() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                // Clear the flag first so a change made while we rebuild queues another pass.
+                refreshQueued.set(false);
+                try {
+                    rebuild();
+                } catch (Exception ex) {
+                    log.error("Coupon catalog refresh failed: {}", ex.getMessage(), ex);
+                }
+            });
+        }
+    }
+
+    @Override
+    public CatalogSnapshot rebuild() {
+        rebuildLock.lock();
+        try {
+            LocalDate today = LocalDate.now();
+            List<CatalogEntry> entries = couponRepository.findActiveNotExpired(today).stream()
+                    .map(this::toEntry)
+                    .toList();
+
+            CatalogSnapshot built = new CatalogSnapshot(versions.incrementAndGet(), today, entries);
+            snapshot.set(built);
+            log.info("Coupon catalog v{} published with {} coupons", built.getVersion(), built.size());
+            return built;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @Override
+    public CatalogEntry prepare(Coupon coupon) {
+        return toEntry(coupon);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private CatalogEntry toEntry(Coupon coupon) {
+        Map<String, Object> metadata = freeze(coupon.getMetadata());
+
+        Coupon copy = Coupon.builder()
+                .id(coupon.getId())
+                .code(coupon.getCode())
+                .type(coupon.getType())
+                .active(coupon.getActive())
+                .startDate(coupon.getStartDate())
+                .endDate(coupon.getEndDate())
+                .metadata(metadata)
+                .ruleTemplate(coupon.getRuleTemplate())
+                .build();
+
+        // Decoded once per catalog load; evaluators read the typed values from here on
+        CouponMetadata typed = evaluatorRegistry.decode(copy, coupon.getRuleTemplate());
+
+        return CatalogEntry.builder()
+                .coupon(copy)
+                .template(coupon.getRuleTemplate())
+                .metadata(metadata)
+                .typedMetadata(typed)
+                .nativeRule(evaluatorRegistry.prepare(copy.getId(), typed))
+                .trigger(evaluatorRegistry.trigger(copy.getId(), typed))
+                .inputs(evaluatorRegistry.inputs(copy.getId(), typed))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T freeze(T value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((k, v) -> copy.put(k, freeze(v)));
+            return (T) Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(v -> copy.add(freeze(v)));
+            return (T) Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+}
@@ -1,36 +1,82 @@
 package com.example.CMS.service.impl;
 
+import com.example.CMS.common.CouponCodes;
+import com.example.CMS.engine.CouponCodeIndex;
+import com.example.CMS.engine.EvaluationBulkhead;
 import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.CouponCode;
 import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.entity.enums.CouponCodeStatus;
 import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.catalog.CatalogEntry;
+import com.example.CMS.model.catalog.CatalogSnapshot;
+import com.example.CMS.model.catalog.UnknownCouponCodeException;
+import com.example.CMS.model.dto.AppliedCoupon;
+import com.example.CMS.model.dto.CartCouponsResult;
 import com.example.CMS.model.dto.CreateCouponRequest;
+import com.example.CMS.model.dto.CouponFilter;
+import com.example.CMS.model.dto.CouponPage;
 import com.example.CMS.model.dto.CouponResponse;
+import com.example.CMS.model.metadata.CouponMetadataSchema;
+import com.example.CMS.model.redemption.RedemptionLimitExceededException;
+import com.example.CMS.model.redemption.Reservation;
+import com.example.CMS.model.rule.ApplicableCoupons;
 import com.example.CMS.model.rule.DiscountDecision;
+import com.example.CMS.repository.CodeCampaignRepository;
+import com.example.CMS.repository.CouponCodeRepository;
 import com.example.CMS.repository.CouponRepository;
 import com.example.CMS.repository.CouponRuleTemplateRepository;
+import com.example.CMS.service.CacheSyncService;
+import com.example.CMS.service.CouponCatalogService;
 import com.example.CMS.service.CouponService;
+import com.example.CMS.service.RedemptionService;
 import com.example.CMS.service.RuleEngineService;
+import com.example.CMS.service.TemplateService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class CouponServiceImpl implements CouponService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final CouponRepository couponRepository;
     private final CouponRuleTemplateRepository templateRepository;
     private final RuleEngineService ruleEngineService;
+    private final CouponCatalogService catalogService;
+    private final TemplateService templateService;
+    private final RedemptionService redemptionService;
+    private final CacheSyncService cacheSyncService;
+    private final CouponCodeRepository codeRepository;
+    private final CodeCampaignRepository campaignRepository;
+    private final CouponCodeIndex codeIndex;
+    private final EvaluationBulkhead bulkhead;
+    private final MeterRegistry meterRegistry;
+    private final EntityManager entityManager;
 
     @Override
+    @Transactional
     public CouponResponse createCoupon(CreateCouponRequest request) {
 
         CouponRuleTemplate template = templateRepository
                 .findById(request.getRuleTemplateId())
                 .orElseThrow(() -> new RuntimeException("Rule template not found"));
 
+        validateMetadata(request, template);
+        validateLimits(request);
+        validateCode(request.getCode(), null);
+
         Coupon coupon = Coupon.builder()
                 .code(request.getCode())
                 .type(request.getType())
@@ -38,20 +84,40 @@ public class CouponServiceImpl implements CouponService {
                 .startDate(parseDate(request.getStartDate()))
                 .endDate(parseDate(request.getEndDate()))
                 .metadata(request.getMetadata())
+                .maxRedemptions(request.getMaxRedemptions())
+                .maxRedemptionsPerCustomer(request.getMaxRedemptionsPerCustomer())
                 .ruleTemplate(template)
                 .build();
 
         couponRepository.save(coupon);
+        cacheSyncService.recordCouponChange(coupon.getId());
         return toResponse(coupon);
     }
 
 
     @Override
-    public List<CouponResponse> getAllCoupons() {
-        return couponRepository.findAll()
+    public CouponPage getCouponPage(CouponFilter filter, long after, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<CouponResponse> items = couponRepository.findPage(after, filter.getType(), filter.getActive(),
+                        filter.getTemplateId(), filter.getFrom(), filter.getTo(), PageRequest.of(0, size))
                 .stream()
                 .map(this::toResponse)
                 .toList();
+        Long nextAfter = items.size() < size ? null : items.get(items.size() - 1).getId();
+        return new CouponPage(items, nextAfter);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportCoupons(CouponFilter filter, Consumer<CouponResponse> sink) {
+        try (Stream<Coupon> coupons = couponRepository.streamAll(filter.getType(), filter.getActive(),
+                filter.getTemplateId(), filter.getFrom(), filter.getTo())) {
+            coupons.forEach(coupon -> {
+                sink.accept(toResponse(coupon));
+                // Keep the persistence context from growing with the export
+                entityManager.detach(coupon);
+            });
+        }
     }
 
     @Override
@@ -62,6 +128,7 @@ public class CouponServiceImpl implements CouponService {
     }
 
     @Override
+    @Transactional
     public CouponResponse updateCoupon(Long id, CreateCouponRequest request) {
 
         Coupon coupon = couponRepository.findById(id)
@@ -71,32 +138,125 @@ public class CouponServiceImpl implements CouponService {
                 .findById(request.getRuleTemplateId())
                 .orElseThrow(() -> new RuntimeException("Rule template not found"));
 
+        validateMetadata(request, template);
+        validateLimits(request);
+        validateCode(request.getCode(), id);
+
         coupon.setCode(request.getCode());
         coupon.setType(request.getType());
         coupon.setActive(request.getActive());
         coupon.setStartDate(LocalDate.parse(request.getStartDate()));
         coupon.setEndDate(LocalDate.parse(request.getEndDate()));
         coupon.setMetadata(request.getMetadata());
+        coupon.setMaxRedemptions(request.getMaxRedemptions());
+        coupon.setMaxRedemptionsPerCustomer(request.getMaxRedemptionsPerCustomer());
         coupon.setRuleTemplate(template);
 
         couponRepository.save(coupon);
+        cacheSyncService.recordCouponChange(id);
         return toResponse(coupon);
     }
 
     @Override
+    @Transactional
     public void deleteCoupon(Long id) {
         couponRepository.deleteById(id);
+        codeRepository.deleteByCouponId(id);
+        campaignRepository.deleteByCouponId(id);
+        cacheSyncService.recordCouponChange(id);
     }
 
     @Override
-    public List<DiscountDecision> getApplicableCoupons(Cart cart) {
-        return ruleEngineService.evaluateAllCoupons(cart);
+    public ApplicableCoupons getApplicableCoupons(Cart cart) {
+        // A cached answer costs next to nothing, so it never waits for a slot
+        List<DiscountDecision> cached = ruleEngineService.findCachedResult(cart);
+        if (cached != null) {
+            return ApplicableCoupons.complete(cached);
+        }
+        return bulkhead.execute(() -> ApplicableCoupons.complete(ruleEngineService.evaluateAllCoupons(cart)),
+                () -> ruleEngineService.evaluateNativeOnly(cart));
     }
 
     @Override
-    public Cart applyCoupon(Long id, Cart cart) {
-        return ruleEngineService.applyCouponToCart(id, cart);
+    public void getApplicableCouponsBatch(Iterator<Cart> carts, Consumer<CartCouponsResult> sink) {
+        ruleEngineService.evaluateBatch(carts, (index, decisions) -> sink.accept(new CartCouponsResult(index, decisions)));
     }
+
+    @Override
+    public AppliedCoupon applyCoupon(Long id, Cart cart, String customerId) {
+        return bulkhead.execute(() -> apply(id, cart, customerId, null), null);
+    }
+
+    @Override
+    public AppliedCoupon applyCouponByCode(String code, Cart cart, String customerId) {
+        String normalized = CouponCodes.normalize(code);
+        CatalogSnapshot snapshot = catalogService.current();
+
+        CatalogEntry entry = snapshot.findByCode(normalized);
+        CouponCode generated = null;
+        if (entry == null && normalized != null) {
+            generated = codeIndex.find(normalized);
+            entry = generated == null ? null : snapshot.find(generated.getCouponId());
+        }
+        meterRegistry.counter("cms.coupons.code-lookups", "result", entry == null ? "unknown" : "found").increment();
+        if (entry == null) {
+            throw new UnknownCouponCodeException();
+        }
+        if (generated != null && generated.getStatus() == CouponCodeStatus.REDEEMED) {
+            throw new RedemptionLimitExceededException("Coupon code has already been used");
+        }
+        Long id = entry.getId();
+        String singleUseCode = generated == null ? null : generated.getCode();
+        return bulkhead.execute(() -> apply(id, cart, customerId, singleUseCode), null);
+    }
+
+    private AppliedCoupon apply(Long id, Cart cart, String customerId, String singleUseCode) {
+        Cart updated = ruleEngineService.applyCouponToCart(id, cart);
+        if (updated.getTotalDiscount() <= 0) {
+            return new AppliedCoupon(updated, null);
+        }
+
+        CatalogEntry entry = catalogService.current().find(id);
+        Coupon coupon = entry != null
+                ? entry.getCoupon()
+                : couponRepository.findById(id).orElseThrow(() -> new RuntimeException("Coupon not found"));
+        Reservation reservation = redemptionService.reserve(coupon, customerId, singleUseCode);
+        return new AppliedCoupon(updated, reservation);
+    }
+
+    /**
+     * Reject metadata that does not fit the template now, rather than when the coupon is
+     * loaded or its DRL compiled.
+     */
+    private void validateMetadata(CreateCouponRequest request, CouponRuleTemplate template) {
+        CouponMetadataSchema.of(template)
+                .ifPresent(schema -> schema.decode(request.getType(), request.getMetadata()));
+        templateService.validateMetadata(request.getMetadata(), template);
+    }
+
+    // Codes are matched ignoring case, across coupons and generated codes
+    private void validateCode(String code, Long couponId) {
+        String normalized = CouponCodes.normalize(code);
+        if (normalized == null) {
+            return;
+        }
+        boolean taken = couponId == null
+                ? couponRepository.existsByCodeIgnoreCase(code.strip())
+                : couponRepository.existsByCodeIgnoreCaseAndIdNot(code.strip(), couponId);
+        if (taken || codeRepository.existsByCode(normalized)) {
+            throw new RuntimeException("Coupon code already exists");
+        }
+    }
+
+    private void validateLimits(CreateCouponRequest request) {
+        if (request.getMaxRedemptions() != null && request.getMaxRedemptions() < 0) {
+            throw new RuntimeException("maxRedemptions must not be negative");
+        }
+        if (request.getMaxRedemptionsPerCustomer() != null && request.getMaxRedemptionsPerCustomer() < 0) {
+            throw new RuntimeException("maxRedemptionsPerCustomer must not be negative");
+        }
+    }
+
     private LocalDate parseDate(String dateString) {
         if (dateString == null || dateString.isBlank()) {
             return null; // allow nullable dates
@@ -111,9 +271,12 @@ public class CouponServiceImpl implements CouponService {
                 .code(coupon.getCode())
                 .type(coupon.getType())
                 .active(coupon.getActive())
-                .startDate(coupon.getStartDate().toString())
-                .endDate(coupon.getEndDate().toString())
+                .startDate(coupon.getStartDate() == null ? null : coupon.getStartDate().toString())
+                .endDate(coupon.getEndDate() == null ? null : coupon.getEndDate().toString())
                 .metadata(coupon.getMetadata())
+                .maxRedemptions(coupon.getMaxRedemptions())
+                .maxRedemptionsPerCustomer(coupon.getMaxRedemptionsPerCustomer())
+                // Reads the id off the lazy proxy without loading the template
                 .ruleTemplateId(coupon.getRuleTemplate().getId())
                 .build();
     }
@@ -0,0 +1,299 @@
+package com.example.CMS.service.impl;
+
+import com.example.CMS.config.RedemptionProperties;
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.CustomerRedemption;
+import com.example.CMS.entity.enums.CouponCodeStatus;
+import com.example.CMS.model.redemption.RedemptionLimitExceededException;
+import com.example.CMS.model.redemption.Reservation;
+import com.example.CMS.repository.CouponCodeRepository;
+import com.example.CMS.repository.CouponRepository;
+import com.example.CMS.repository.CustomerRedemptionRepository;
+import com.example.CMS.service.RedemptionService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enforces redemption limits with in-memory counters instead of locking coupon rows.
+ * <p>
+ * A counter starts from the count persisted for its coupon (or coupon and customer) and is
+ * bumped with a compare-and-set that refuses to pass the limit, so held reservations and
+ * confirmed redemptions together never exceed it on this node. Confirmations are queued as
+ * per-key deltas and written in one transaction every flush interval; a delta leaves the queue
+ * only once committed, so a counter reloaded from the database never misses one.
+ */
+@Service
+public class RedemptionServiceImpl implements RedemptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RedemptionServiceImpl.class);
+
+    private final CouponRepository couponRepository;
+    private final CustomerRedemptionRepository customerRedemptionRepository;
+    private final CouponCodeRepository codeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RedemptionProperties properties;
+
+    private final Map<Long, Counter> couponCounters = new ConcurrentHashMap<>();
+    private final Map<CustomerKey, Counter> customerCounters = new ConcurrentHashMap<>();
+    private final Map<String, Hold> reservations = new ConcurrentHashMap<>();
+
+    // Confirmed but not yet committed to the database
+    private final Map<Long, Long> pendingCoupons = new ConcurrentHashMap<>();
+    private final Map<CustomerKey, Long> pendingCustomers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "redemption-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private record CustomerKey(Long couponId, String customerId) {
+    }
+
+    private record Hold(Reservation reservation, boolean global, CustomerKey customer, String code) {
+    }
+
+    public RedemptionServiceImpl(CouponRepository couponRepository,
+                                 CustomerRedemptionRepository customerRedemptionRepository,
+                                 CouponCodeRepository codeRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 RedemptionProperties properties) {
+        this.couponRepository = couponRepository;
+        this.customerRedemptionRepository = customerRedemptionRepository;
+        this.codeRepository = codeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+
+        long period = properties.getFlushIntervalMs();
+        scheduler.scheduleWithFixedDelay(this::runMaintenance, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Reservation reserve(Coupon coupon, String customerId, String singleUseCode) {
+        Integer max = coupon.getMaxRedemptions();
+        Integer maxPerCustomer = coupon.getMaxRedemptionsPerCustomer();
+        if (max == null && maxPerCustomer == null && singleUseCode == null) {
+            return null;
+        }
+        if (maxPerCustomer != null && (customerId == null || customerId.isBlank())) {
+            throw new RuntimeException("Coupon " + coupon.getId() + " is limited per customer; a customer id is required");
+        }
+
+        long now = System.currentTimeMillis();
+        long expiresAt = now + properties.getReservationTtlMs();
+
+        // A single-use code is one row, so a conditional update is all the locking it needs
+        if (singleUseCode != null && codeRepository.claim(singleUseCode, now, expiresAt,
+                CouponCodeStatus.AVAILABLE, CouponCodeStatus.RESERVED) == 0) {
+            throw new RedemptionLimitExceededException("Coupon code has already been used");
+        }
+
+        CustomerKey customer = null;
+        if (maxPerCustomer != null) {
+            customer = new CustomerKey(coupon.getId(), customerId);
+            if (!acquireForCustomer(customer, maxPerCustomer)) {
+                releaseCode(singleUseCode);
+                throw new RedemptionLimitExceededException(
+                        "Customer " + customerId + " has no redemption of coupon " + coupon.getId() + " left");
+            }
+        }
+
+        if (max != null) {
+            Counter counter = couponCounters.computeIfAbsent(coupon.getId(),
+                    id -> new Counter(couponRepository.findRedemptionCount(id).orElse(0L)));
+            if (!counter.tryAcquire(max)) {
+                if (customer != null) {
+                    releaseForCustomer(customer);
+                }
+                releaseCode(singleUseCode);
+                throw new RedemptionLimitExceededException("Coupon " + coupon.getId() + " has no redemption left");
+            }
+        }
+
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), coupon.getId(), customerId,
+                singleUseCode, expiresAt);
+        reservations.put(reservation.getId(), new Hold(reservation, max != null, customer, singleUseCode));
+        return reservation;
+    }
+
+    @Override
+    public void confirm(String reservationId) {
+        Hold hold = take(reservationId);
+        if (hold.global()) {
+            pendingCoupons.merge(hold.reservation().getCouponId(), 1L, Long::sum);
+            couponCounters.get(hold.reservation().getCouponId()).confirm();
+        }
+        if (hold.customer() != null) {
+            pendingCustomers.merge(hold.customer(), 1L, Long::sum);
+            customerCounters.get(hold.customer()).confirm();
+        }
+        if (hold.code() != null) {
+            codeRepository.transition(hold.code(), CouponCodeStatus.RESERVED, CouponCodeStatus.REDEEMED);
+        }
+    }
+
+    @Override
+    public void release(String reservationId) {
+        release(take(reservationId));
+    }
+
+    @Override
+    public synchronized void flush() {
+        // Sorted so concurrent writers touch rows in the same order
+        Map<Long, Long> coupons = new TreeMap<>(pendingCoupons);
+        Map<CustomerKey, Long> customers = new TreeMap<>((a, b) -> a.couponId().equals(b.couponId())
+                ? a.customerId().compareTo(b.customerId())
+                : a.couponId().compareTo(b.couponId()));
+        customers.putAll(pendingCustomers);
+        if (coupons.isEmpty() && customers.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                coupons.forEach(couponRepository::addRedemptions);
+                customers.forEach((key, count) -> {
+                    if (customerRedemptionRepository.addRedemptions(key.couponId(), key.customerId(), count) == 0) {
+                        customerRedemptionRepository.save(new CustomerRedemption(key.couponId(), key.customerId(), count));
+                    }
+                });
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Writing {} coupon and {} customer redemption counts failed, retrying next flush",
+                    coupons.size(), customers.size(), ex);
+            return;
+        }
+
+        coupons.forEach((id, count) -> pendingCoupons.computeIfPresent(id, (k, v) -> v - count == 0 ? null : v - count));
+        customers.forEach((key, count) -> pendingCustomers.computeIfPresent(key, (k, v) -> v - count == 0 ? null : v - count));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    /**
+     * Release reservations past their expiry and drop idle per-customer counters, which are
+     * reloaded from the database when the customer comes back.
+     */
+    void expire() {
+        long now = System.currentTimeMillis();
+        reservations.values().stream()
+                .filter(hold -> hold.reservation().getExpiresAt() <= now)
+                .forEach(hold -> {
+                    if (reservations.remove(hold.reservation().getId(), hold)) {
+                        release(hold);
+                    }
+                });
+
+        long idleBefore = now - properties.getReservationTtlMs();
+        customerCounters.keySet().forEach(key -> customerCounters.computeIfPresent(key,
+                (k, counter) -> counter.isIdle(idleBefore) && !pendingCustomers.containsKey(k) ? null : counter));
+    }
+
+    private void runMaintenance() {
+        try {
+            expire();
+            flush();
+        } catch (RuntimeException ex) {
+            log.warn("Redemption maintenance failed", ex);
+        }
+    }
+
+    private Hold take(String reservationId) {
+        Hold hold = reservations.remove(reservationId);
+        if (hold == null) {
+            throw new RuntimeException("Reservation not found");
+        }
+        return hold;
+    }
+
+    private void release(Hold hold) {
+        if (hold.global()) {
+            couponCounters.get(hold.reservation().getCouponId()).release();
+        }
+        if (hold.customer() != null) {
+            releaseForCustomer(hold.customer());
+        }
+        releaseCode(hold.code());
+    }
+
+    private void releaseCode(String code) {
+        if (code != null) {
+            codeRepository.transition(code, CouponCodeStatus.RESERVED, CouponCodeStatus.AVAILABLE);
+        }
+    }
+
+    // Per-customer counters are touched inside compute so an idle one cannot be dropped mid-update
+    private boolean acquireForCustomer(CustomerKey key, int limit) {
+        boolean[] acquired = new boolean[1];
+        customerCounters.compute(key, (k, counter) -> {
+            Counter c = counter != null
+                    ? counter
+                    : new Counter(customerRedemptionRepository.findRedeemed(k.couponId(), k.customerId()).orElse(0L));
+            acquired[0] = c.tryAcquire(limit);
+            return c;
+        });
+        return acquired[0];
+    }
+
+    private void releaseForCustomer(CustomerKey key) {
+        customerCounters.computeIfPresent(key, (k, counter) -> {
+            counter.release();
+            return counter;
+        });
+    }
+
+    private static final class Counter {
+
+        private final AtomicLong used;              // persisted + confirmed + held
+        private final AtomicInteger held = new AtomicInteger();
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private Counter(long persisted) {
+            this.used = new AtomicLong(persisted);
+        }
+
+        private boolean tryAcquire(long limit) {
+            lastUsed = System.currentTimeMillis();
+            long current;
+            do {
+                current = used.get();
+                if (current >= limit) {
+                    return false;
+                }
+            } while (!used.compareAndSet(current, current + 1));
+            held.incrementAndGet();
+            return true;
+        }
+
+        private void confirm() {
+            held.decrementAndGet();
+        }
+
+        private void release() {
+            held.decrementAndGet();
+            used.decrementAndGet();
+        }
+
+        private boolean isIdle(long idleBefore) {
+            return held.get() == 0 && lastUsed < idleBefore;
+        }
+    }
+}
@@ -1,19 +1,39 @@
 package com.example.CMS.service.impl;
 
+import com.example.CMS.common.ContentHash;
+import com.example.CMS.config.RuleEngineProperties;
+import com.example.CMS.engine.CompiledRuleCache;
+import com.example.CMS.engine.CompiledRuleStore;
+import com.example.CMS.engine.CompiledRules;
+import com.example.CMS.engine.CouponEvaluationExecutor;
+import com.example.CMS.engine.CouponResultCache;
+import com.example.CMS.engine.DrlCompilationException;
+import com.example.CMS.engine.DraftCouponEvaluator;
+import com.example.CMS.engine.DrlCompiler;
+import com.example.CMS.engine.EvaluationRejectedException;
+import com.example.CMS.engine.RuleCompilationExecutor;
+import com.example.CMS.engine.RuleEngineMetrics;
+import com.example.CMS.engine.evaluator.PreparedCouponRule;
 import com.example.CMS.entity.Coupon;
 import com.example.CMS.entity.CouponRuleTemplate;
 import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.cart.CartChange;
+import com.example.CMS.model.cart.CartSummary;
 
+import com.example.CMS.model.catalog.CatalogEntry;
+import com.example.CMS.model.catalog.CatalogSnapshot;
+import com.example.CMS.model.rule.ApplicableCoupons;
+import com.example.CMS.model.rule.CartEvaluation;
 import com.example.CMS.model.rule.DiscountDecision;
+import com.example.CMS.model.rule.ResultCacheStats;
+import com.example.CMS.model.rule.RuleCacheStats;
 import com.example.CMS.repository.CouponRepository;
 import com.example.CMS.repository.CouponRuleTemplateRepository;
+import com.example.CMS.service.CouponCatalogService;
 import com.example.CMS.service.RuleEngineService;
 import com.example.CMS.service.TemplateService;
 import lombok.RequiredArgsConstructor;
-import org.kie.api.KieServices;
-import org.kie.api.builder.*;
-import org.kie.api.io.Resource;
-import org.kie.api.io.ResourceType;
+import org.kie.api.builder.Message;
 import org.kie.api.runtime.ClassObjectFilter;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
@@ -21,8 +41,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,44 +60,200 @@ public class RuleEngineServiceImpl implements RuleEngineService {
 
     private static final Logger log = LoggerFactory.getLogger(RuleEngineServiceImpl.class);
 
+    private static final Pattern RULE_NAME = Pattern.compile("(?m)^(\\s*rule\\s+)(\"[^\"]*\"|\\S+)");
+    private static final Pattern SHARED_DRL_PATH = Pattern.compile("coupon-(\\d+)\\.drl");
+    private static final Pattern SHARED_RULE_COUPON = Pattern.compile("\\[coupon (\\d+)]$");
+
     private final CouponRepository couponRepository;
     private final CouponRuleTemplateRepository templateRepository;
     private final TemplateService templateService;
+    private final CouponCatalogService catalogService;
+    private final RuleEngineProperties properties;
+    private final DrlCompiler drlCompiler;
+    private final CompiledRuleCache ruleCache;
+    private final CouponResultCache resultCache;
+    private final CompiledRuleStore ruleStore;
+    private final CouponEvaluationExecutor evaluationExecutor;
+    private final RuleCompilationExecutor compileExecutor;
+    private final RuleEngineMetrics metrics;
+
+    /**
+     * couponId -> hash of the DRL it last rendered to, used to invalidate its compiled artifact
+     */
+    private final Map<Long, String> couponDrlHashes = new ConcurrentHashMap<>();
+
+    /**
+     * Rule base holding every eligible coupon's rules, used in SHARED_SESSION mode.
+     * Rebuilt whenever the set of generated DRLs changes.
+     */
+    private volatile SharedRuleBase sharedRuleBase;
+
+    /**
+     * Key of the last shared rule base that could not be built; such catalogs fall back to PER_COUPON.
+     */
+    private volatile String failedSharedKey;
 
     /**
-     * Cache: couponId -> compiled KieContainer
+     * Held while a newly built shared rule base replaces the current one.
      */
-    private final Map<Long, KieContainer> kieContainerCache = new ConcurrentHashMap<>();
+    private final ReentrantLock sharedBuildLock = new ReentrantLock();
 
     /**
      * Evaluate all coupons and return a list of applicable DiscountDecision objects.
+     * Coupons come from the in-memory catalog snapshot, so no database access happens here.
+     * Built-in templates run natively; only custom templates go through Drools. Coupons the
+     * candidate index rules out for this cart are not evaluated at all, and a cart identical to one
+     * already evaluated under the same catalog version is answered from the result cache.
+     * The cart is summarised once ({@link CartSummary}) and every coupon reads those aggregates.
      * Cart is not mutated.
      */
     @Override
     public List<DiscountDecision> evaluateAllCoupons(Cart cart) {
-        List<Coupon> coupons = couponRepository.findAll();
-        List<DiscountDecision> decisions = new ArrayList<>();
+        return evaluate(catalogService.current(), LocalDate.now(), cart, properties.getParallel().isEnabled());
+    }
 
-        for (Coupon coupon : coupons) {
+    @Override
+    public List<DiscountDecision> findCachedResult(Cart cart) {
+        if (!properties.getResultCache().isEnabled()) {
+            return null;
+        }
+        return resultCache.peek(CouponResultCache.key(catalogService.current().getVersion(), LocalDate.now(), cart));
+    }
+
+    @Override
+    public ApplicableCoupons evaluateNativeOnly(Cart cart) {
+        CatalogSnapshot snapshot = catalogService.current();
+        LocalDate today = LocalDate.now();
+        CartSummary summary = CartSummary.of(cart);
 
-            if (Boolean.FALSE.equals(coupon.getActive())) {
+        List<DiscountDecision> decisions = new ArrayList<>();
+        boolean skipped = false;
+        for (CatalogEntry entry : entriesFor(snapshot, today, summary)) {
+            if (entry.getNativeRule() == null) {
+                skipped = true;
                 continue;
             }
-            if (!isWithinDateRange(coupon)) {
-                continue;
+            DiscountDecision dd = evaluateNatively(entry, summary);
+            if (dd != null) {
+                decisions.add(dd);
             }
+        }
+        decisions.sort(Comparator.comparingDouble(DiscountDecision::getDiscountAmount).reversed());
+        return new ApplicableCoupons(decisions, skipped);
+    }
 
-            try {
-                DiscountDecision dd = runRuleForCoupon(coupon, cart);
-                if (dd != null && dd.isApplicable()) {
-                    decisions.add(dd);
-                }
-            } catch (Exception ex) {
-                log.error("Error evaluating coupon {}: {}", coupon.getId(), ex.getMessage(), ex);
+    /**
+     * Evaluate a sequence of carts against one catalog snapshot. Carts are spread over the
+     * evaluation pool (each cart evaluated on a single worker) with a bounded number in flight,
+     * and results reach {@code sink} in input order as they complete.
+     */
+    @Override
+    public void evaluateBatch(Iterator<Cart> carts, BiConsumer<Integer, List<DiscountDecision>> sink) {
+        CatalogSnapshot snapshot = catalogService.current();
+        LocalDate today = LocalDate.now();
+
+        Iterator<Callable<List<DiscountDecision>>> tasks = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return carts.hasNext();
             }
+
+            @Override
+            public Callable<List<DiscountDecision>> next() {
+                Cart cart = carts.next();
+                return () -> evaluate(snapshot, today, cart, false);
+            }
+        };
+
+        int[] index = {0};
+        evaluationExecutor.pipeline(tasks, properties.getBatch().getMaxInFlight(),
+                decisions -> sink.accept(index[0]++, decisions));
+    }
+
+    @Override
+    public CartEvaluation evaluateCart(Cart cart) {
+        return evaluateCart(catalogService.current(), LocalDate.now(), CartSummary.of(cart));
+    }
+
+    @Override
+    public CartEvaluation reevaluateCart(CartEvaluation previous, Cart cart, CartChange change) {
+        CatalogSnapshot snapshot = catalogService.current();
+        LocalDate today = LocalDate.now();
+        if (previous == null || previous.getCatalogVersion() != snapshot.getVersion() || !today.equals(previous.getDay())) {
+            return evaluateCart(snapshot, today, CartSummary.of(cart));
         }
 
+        List<CatalogEntry> affected = snapshot.affected(change, today);
+        Set<Long> affectedIds = new HashSet<>();
+        affected.forEach(entry -> affectedIds.add(entry.getId()));
+
+        List<DiscountDecision> decisions = new ArrayList<>();
+        for (DiscountDecision dd : previous.getDecisions()) {
+            if (!affectedIds.contains(dd.getCouponId())) {
+                decisions.add(dd);
+            }
+        }
+        long skippedBefore = compileExecutor.skipped();
+        decisions.addAll(evaluateEntries(snapshot, today, affected, CartSummary.of(cart), properties.getParallel().isEnabled()));
         decisions.sort(Comparator.comparingDouble(DiscountDecision::getDiscountAmount).reversed());
+
+        return new CartEvaluation(sessionVersion(snapshot, skippedBefore), today, decisions, affected.size());
+    }
+
+    private CartEvaluation evaluateCart(CatalogSnapshot snapshot, LocalDate day, CartSummary cart) {
+        long skippedBefore = compileExecutor.skipped();
+        List<CatalogEntry> entries = entriesFor(snapshot, day, cart);
+        List<DiscountDecision> decisions = evaluateEntries(snapshot, day, entries, cart, properties.getParallel().isEnabled());
+        return new CartEvaluation(sessionVersion(snapshot, skippedBefore), day, decisions, entries.size());
+    }
+
+    // An evaluation that may have skipped coupons still compiling gets no version, so the next edit re-evaluates in full
+    private long sessionVersion(CatalogSnapshot snapshot, long skippedBefore) {
+        return compileExecutor.skipped() == skippedBefore ? snapshot.getVersion() : -1;
+    }
+
+    private List<DiscountDecision> evaluate(CatalogSnapshot snapshot, LocalDate day, Cart cart, boolean allowParallel) {
+        if (!properties.getResultCache().isEnabled()) {
+            CartSummary summary = CartSummary.of(cart);
+            return evaluateEntries(snapshot, day, entriesFor(snapshot, day, summary), summary, allowParallel);
+        }
+
+        CouponResultCache.Key key = CouponResultCache.key(snapshot.getVersion(), day, cart);
+        List<DiscountDecision> cached = resultCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long start = System.nanoTime();
+        long skippedBefore = compileExecutor.skipped();
+        CartSummary summary = CartSummary.of(cart);
+        List<DiscountDecision> decisions = evaluateEntries(snapshot, day, entriesFor(snapshot, day, summary), summary, allowParallel);
+
+        // A parallel run only drops coupons after the per-coupon budget has elapsed, and coupons still
+        // compiling may have been skipped; such partial results are not kept
+        boolean inBudget = !allowParallel
+                || TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) <= properties.getParallel().getCouponTimeoutMs();
+        if (inBudget && compileExecutor.skipped() == skippedBefore) {
+            resultCache.put(key, decisions);
+        }
+        return decisions;
+    }
+
+    private List<CatalogEntry> entriesFor(CatalogSnapshot snapshot, LocalDate day, CartSummary cart) {
+        return properties.isCandidateIndex()
+                ? snapshot.candidates(cart, day)
+                : snapshot.liveEntries(day);
+    }
+
+    private List<DiscountDecision> evaluateEntries(CatalogSnapshot snapshot, LocalDate day, List<CatalogEntry> entries,
+                                                   CartSummary cart, boolean allowParallel) {
+        long start = System.nanoTime();
+        List<DiscountDecision> decisions = allowParallel && entries.size() >= properties.getParallel().getMinCoupons()
+                ? evaluateInParallel(snapshot, day, entries, cart)
+                : evaluateSequentially(snapshot, day, entries, cart);
+
+        decisions.sort(Comparator.comparingDouble(DiscountDecision::getDiscountAmount).reversed());
+        metrics.requestCompleted(entries.size(), decisions.size(), start);
         return decisions;
     }
 
@@ -82,8 +267,11 @@ public class RuleEngineServiceImpl implements RuleEngineService {
         double total = cart.getTotalAmount();
         cart.setTotalAmount(total);
 
-        Coupon coupon = couponRepository.findById(couponId)
-                .orElseThrow(() -> new RuntimeException("Coupon not found"));
+        // Served from the snapshot when live; inactive or unknown coupons still go to the database
+        CatalogEntry entry = catalogService.current().find(couponId);
+        Coupon coupon = entry != null
+                ? entry.getCoupon()
+                : couponRepository.findById(couponId).orElseThrow(() -> new RuntimeException("Coupon not found"));
 
         if (Boolean.FALSE.equals(coupon.getActive())) {
             log.info("Coupon {} is inactive", couponId);
@@ -95,7 +283,9 @@ public class RuleEngineServiceImpl implements RuleEngineService {
             return cart;
         }
 
-        DiscountDecision decision = runRuleForCoupon(coupon, cart);
+        DiscountDecision decision = entry != null && entry.getNativeRule() != null
+                ? evaluateNatively(entry, CartSummary.of(cart))
+                : runRuleForCoupon(coupon, CartSummary.of(cart), properties.getCompile().getWaitTimeoutMs(), true);
         if (decision != null && decision.isApplicable() && decision.getDiscountAmount() > 0) {
             applyDiscountToCart(cart, decision);
         } else {
@@ -107,14 +297,123 @@ public class RuleEngineServiceImpl implements RuleEngineService {
     }
 
     /**
-     * Invalidate compiled artifact for a coupon id.
+     * Built-in templates get the native evaluator, as in the catalog; anything else is compiled
+     * on the calling thread into a container owned by the returned evaluator.
+     */
+    @Override
+    public DraftCouponEvaluator prepareDraft(Coupon draft) {
+        CatalogEntry entry = catalogService.prepare(draft);
+        Coupon coupon = entry.getCoupon();
+        PreparedCouponRule nativeRule = entry.getNativeRule();
+        if (nativeRule != null) {
+            return new DraftCouponEvaluator() {
+                @Override
+                public DiscountDecision evaluate(Cart cart) {
+                    DiscountDecision dd = nativeRule.evaluate(CartSummary.of(cart));
+                    return dd != null && dd.isApplicable() ? dd : null;
+                }
+
+                @Override
+                public boolean isNative() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        String drl = renderDrl(coupon);
+        if (drl == null) {
+            throw new RuntimeException("Coupon has no rules to evaluate");
+        }
+        CompiledRules rules = CompiledRules.of(drlCompiler.compile(drl));
+        return new DraftCouponEvaluator() {
+            @Override
+            public DiscountDecision evaluate(Cart cart) {
+                KieSession ksession = rules.newSession();
+                try {
+                    DiscountDecision dd = decide(ksession, coupon, CartSummary.of(cart));
+                    return dd != null && dd.isApplicable() ? dd : null;
+                } finally {
+                    ksession.dispose();
+                }
+            }
+
+            @Override
+            public boolean isNative() {
+                return false;
+            }
+
+            @Override
+            public void close() {
+                rules.dispose();
+            }
+        };
+    }
+
+    /**
+     * Invalidate compiled artifact for a coupon id. The artifact is shared by content, so it is
+     * only dropped when no other coupon rendered to the same DRL.
      */
     @Override
     public void invalidateCacheForCoupon(Long couponId) {
-        kieContainerCache.remove(couponId);
+        String hash = couponDrlHashes.remove(couponId);
+        if (hash != null && !couponDrlHashes.containsValue(hash)) {
+            ruleCache.invalidate(hash);
+        }
         log.info("Cache invalidated for coupon {}", couponId);
     }
 
+    /**
+     * Compile (or restore from disk) the rules of every live coupon that is not evaluated natively,
+     * spreading the work over the evaluation pool.
+     */
+    @Override
+    public int warmUp(long timeoutMs) {
+        CatalogSnapshot snapshot = catalogService.current();
+        LocalDate today = LocalDate.now();
+        List<Coupon> ruleCoupons = snapshot.liveRuleEntries(today).stream().map(CatalogEntry::getCoupon).toList();
+
+        if (ruleCoupons.isEmpty()) {
+            return 0;
+        }
+        if (isSharedSession()) {
+            SharedRuleBase ruleBase = getOrBuildSharedRuleBase(snapshot, today, timeoutMs);
+            return ruleBase != null && ruleBase.builtFor(snapshot, today) ? 1 : 0;
+        }
+
+        List<Callable<List<Long>>> tasks = new ArrayList<>();
+        for (Coupon coupon : ruleCoupons) {
+            tasks.add(() -> {
+                String drl = renderDrl(coupon);
+                if (drl == null) {
+                    return List.of();
+                }
+                try (CompiledRuleCache.Lease lease = acquireRules(coupon.getId(), drl, timeoutMs)) {
+                    return lease != null ? List.of(coupon.getId()) : List.of();
+                } catch (Exception ex) {
+                    log.error("Warm-up failed for coupon {}: {}", coupon.getId(), ex.getMessage());
+                    return List.of();
+                }
+            });
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        return evaluationExecutor.invokeAll(tasks, deadline).size();
+    }
+
+    @Override
+    public RuleCacheStats getCacheStats() {
+        return ruleCache.stats();
+    }
+
+    @Override
+    public ResultCacheStats getResultCacheStats() {
+        return resultCache.stats();
+    }
+
     // -------------------------
     // Internal helpers
     // -------------------------
@@ -128,80 +427,516 @@ public class RuleEngineServiceImpl implements RuleEngineService {
     }
 
 
-    private DiscountDecision runRuleForCoupon(Coupon coupon, Cart cart) {
+    private List<DiscountDecision> evaluateSequentially(CatalogSnapshot snapshot, LocalDate day,
+                                                        List<CatalogEntry> entries, CartSummary cart) {
+        List<DiscountDecision> decisions = new ArrayList<>();
+        List<Coupon> ruleCoupons = new ArrayList<>();
+
+        for (CatalogEntry entry : entries) {
+            if (entry.getNativeRule() == null) {
+                ruleCoupons.add(entry.getCoupon());
+                continue;
+            }
+            DiscountDecision dd = evaluateNatively(entry, cart);
+            if (dd != null) {
+                decisions.add(dd);
+            }
+        }
+
+        if (!ruleCoupons.isEmpty()) {
+            decisions.addAll(isSharedSession()
+                    ? evaluateInSharedSession(snapshot, day, ruleCoupons, cart)
+                    : evaluateEachCoupon(ruleCoupons, cart));
+        }
+        return decisions;
+    }
+
+    /**
+     * Spread the coupons over the evaluation pool: native coupons in chunks, Drools coupons one
+     * per task (or the whole shared session as one task). Each coupon must finish within the
+     * per-coupon budget and the whole cart within the request budget; anything slower is skipped.
+     */
+    private List<DiscountDecision> evaluateInParallel(CatalogSnapshot snapshot, LocalDate day,
+                                                      List<CatalogEntry> entries, CartSummary cart) {
+        RuleEngineProperties.Parallel parallel = properties.getParallel();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(parallel.getRequestTimeoutMs());
+
+        List<CatalogEntry> nativeEntries = new ArrayList<>();
+        List<Coupon> ruleCoupons = new ArrayList<>();
+        for (CatalogEntry entry : entries) {
+            if (entry.getNativeRule() != null) {
+                nativeEntries.add(entry);
+            } else {
+                ruleCoupons.add(entry.getCoupon());
+            }
+        }
+
+        List<Callable<List<DiscountDecision>>> tasks = new ArrayList<>();
+
+        int chunkSize = Math.max(1, parallel.getChunkSize());
+        for (int from = 0; from < nativeEntries.size(); from += chunkSize) {
+            List<CatalogEntry> chunk = nativeEntries.subList(from, Math.min(from + chunkSize, nativeEntries.size()));
+            tasks.add(() -> {
+                List<DiscountDecision> out = new ArrayList<>();
+                for (CatalogEntry entry : chunk) {
+                    if (pastDeadline(deadline)) {
+                        break;
+                    }
+                    long start = System.nanoTime();
+                    DiscountDecision dd = evaluateNatively(entry, cart);
+                    if (dd != null && withinCouponBudget(entry.getId(), start)) {
+                        out.add(dd);
+                    }
+                }
+                return out;
+            });
+        }
+
+        if (!ruleCoupons.isEmpty() && isSharedSession()) {
+            tasks.add(() -> evaluateInSharedSession(snapshot, day, ruleCoupons, cart));
+        } else {
+            for (Coupon coupon : ruleCoupons) {
+                tasks.add(() -> {
+                    if (pastDeadline(deadline)) {
+                        return List.of();
+                    }
+                    long start = System.nanoTime();
+                    DiscountDecision dd = runRuleForCoupon(coupon, cart, missWaitMs(), false);
+                    return dd != null && dd.isApplicable() && withinCouponBudget(coupon.getId(), start)
+                            ? List.of(dd)
+                            : List.of();
+                });
+            }
+        }
+
+        return new ArrayList<>(evaluationExecutor.invokeAll(tasks, deadline));
+    }
+
+    /**
+     * How long an evaluation waits for rules that are still compiling.
+     */
+    private long missWaitMs() {
+        RuleEngineProperties.Compile compile = properties.getCompile();
+        return compile.getMissPolicy() == RuleEngineProperties.MissPolicy.SKIP ? 0 : compile.getWaitTimeoutMs();
+    }
+
+    private boolean isSharedSession() {
+        return properties.getEvaluationMode() == RuleEngineProperties.EvaluationMode.SHARED_SESSION;
+    }
+
+    private static boolean pastDeadline(long deadline) {
+        return System.nanoTime() - deadline > 0 || Thread.currentThread().isInterrupted();
+    }
+
+    private boolean withinCouponBudget(Long couponId, long startNanos) {
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (elapsedMs > properties.getParallel().getCouponTimeoutMs()) {
+            log.warn("Coupon {} took {} ms, over its {} ms budget; decision skipped",
+                    couponId, elapsedMs, properties.getParallel().getCouponTimeoutMs());
+            return false;
+        }
+        return true;
+    }
+
+    private DiscountDecision evaluateNatively(CatalogEntry entry, CartSummary cart) {
+        long start = System.nanoTime();
+        try {
+            return entry.getNativeRule().evaluate(cart);
+        } catch (Exception ex) {
+            log.error("Error evaluating coupon {}: {}", entry.getId(), ex.getMessage(), ex);
+            return null;
+        } finally {
+            metrics.couponEvaluated(RuleEngineMetrics.NATIVE, entry.getTemplate().getName(), start);
+        }
+    }
+
+    private List<DiscountDecision> evaluateEachCoupon(List<Coupon> coupons, CartSummary cart) {
+        List<DiscountDecision> decisions = new ArrayList<>();
+
+        for (Coupon coupon : coupons) {
+            try {
+                DiscountDecision dd = runRuleForCoupon(coupon, cart, missWaitMs(), false);
+                if (dd != null && dd.isApplicable()) {
+                    decisions.add(dd);
+                }
+            } catch (Exception ex) {
+                log.error("Error evaluating coupon {}: {}", coupon.getId(), ex.getMessage(), ex);
+            }
+        }
+        return decisions;
+    }
+
+    /**
+     * Fire the rules of every coupon in one session: the cart and the coupons are inserted once
+     * and every DiscountDecision is collected from a single fireAllRules.
+     * <p>
+     * The rule base always holds every live Drools coupon so it does not change from cart to cart;
+     * an agenda filter keeps the rules of coupons that are not candidates from firing.
+     */
+    private List<DiscountDecision> evaluateInSharedSession(CatalogSnapshot snapshot, LocalDate day,
+                                                          List<Coupon> coupons, CartSummary cart) {
+        long waitMs = missWaitMs();
+        SharedRuleBase ruleBase = getOrBuildSharedRuleBase(snapshot, day, waitMs);
+        if (ruleBase == null) {
+            return evaluateEachCoupon(coupons, cart);
+        }
+        if (ruleBase.couponIds().isEmpty()) {
+            return List.of();
+        }
+
+        try (CompiledRuleCache.Lease lease = acquireCompiled("shared", ruleBase.containerHash(), ruleBase.sourceBytes(),
+                () -> drlCompiler.compile(ruleBase.drlByPath()), waitMs)) {
+            return lease != null ? fireSharedSession(lease.rules(), ruleBase, coupons, cart) : List.of();
+        }
+    }
+
+    private List<DiscountDecision> fireSharedSession(CompiledRules rules, SharedRuleBase ruleBase,
+                                                     List<Coupon> coupons, CartSummary cart) {
+        Set<Long> candidateIds = new HashSet<>();
+        for (Coupon coupon : coupons) {
+            if (ruleBase.couponIds().contains(coupon.getId())) {
+                candidateIds.add(coupon.getId());
+            }
+        }
+
+        long start = System.nanoTime();
+        KieSession ksession = rules.newSession();
+        metrics.sessionCreated(start);
+
+        try {
+            start = System.nanoTime();
+            ksession.insert(cart.getCart());
+            ksession.insert(cart);
+            for (Coupon coupon : coupons) {
+                if (candidateIds.contains(coupon.getId())) {
+                    ksession.insert(coupon);
+                }
+            }
+
+            ksession.fireAllRules(match -> candidateIds.contains(sharedRuleCouponId(match.getRule().getName())));
+            metrics.sessionFired(start);
+
+            // A rule may fire more than once when it matches several Coupon facts; keep one decision per coupon.
+            Map<Long, DiscountDecision> decisions = new LinkedHashMap<>();
+            for (Object obj : ksession.getObjects(new ClassObjectFilter(DiscountDecision.class))) {
+                DiscountDecision dd = (DiscountDecision) obj;
+                if (dd.isApplicable() && candidateIds.contains(dd.getCouponId())) {
+                    decisions.putIfAbsent(dd.getCouponId(), dd);
+                }
+            }
+            return new ArrayList<>(decisions.values());
+
+        } finally {
+            disposeSession(ksession);
+        }
+    }
+
+    /**
+     * Fire one coupon's rules, waiting up to {@code waitMs} for them to compile. Rules not ready
+     * in time leave the coupon undecided (null), or reject the request when {@code required}.
+     */
+    private DiscountDecision runRuleForCoupon(Coupon coupon, CartSummary cart, long waitMs, boolean required) {
+        String drl = renderDrl(coupon);
+        if (drl == null) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try (CompiledRuleCache.Lease lease = acquireRules(coupon.getId(), drl, waitMs)) {
+            if (lease == null) {
+                if (required) {
+                    throw new EvaluationRejectedException("Rules of coupon " + coupon.getId() + " are still compiling, retry shortly");
+                }
+                log.debug("Coupon {} skipped: its rules are still compiling", coupon.getId());
+                return null;
+            }
+            return fireCouponSession(lease.rules(), coupon, cart);
+        } finally {
+            metrics.couponEvaluated(RuleEngineMetrics.DROOLS,
+                    coupon.getRuleTemplate() != null ? coupon.getRuleTemplate().getName() : null, start);
+        }
+    }
+
+    private DiscountDecision fireCouponSession(CompiledRules rules, Coupon coupon, CartSummary cart) {
+        long start = System.nanoTime();
+        KieSession ksession = rules.newSession();
+        metrics.sessionCreated(start);
+
+        try {
+            start = System.nanoTime();
+            DiscountDecision decision = decide(ksession, coupon, cart);
+            metrics.sessionFired(start);
+            return decision;
+
+        } finally {
+            disposeSession(ksession);
+        }
+
+    }
+
+    private static DiscountDecision decide(KieSession ksession, Coupon coupon, CartSummary cart) {
+        ksession.insert(cart.getCart());
+        ksession.insert(cart);
+        ksession.insert(coupon);
+
+        ksession.fireAllRules();
+
+        Collection<?> facts = ksession.getObjects(new ClassObjectFilter(DiscountDecision.class));
+
+        return facts.stream()
+                .map(obj -> (DiscountDecision) obj)
+                .filter(dd -> {
+                    if (dd.getCouponId() == null) {
+                        dd.setCouponId(coupon.getId());
+                    }
+                    return Objects.equals(dd.getCouponId(), coupon.getId());
+                })
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void disposeSession(KieSession ksession) {
+        long start = System.nanoTime();
+        ksession.dispose();
+        metrics.sessionDisposed(start);
+    }
+
+    /**
+     * Render a coupon's DRL, or return null (logged) when it has no template or renders empty.
+     */
+    private String renderDrl(Coupon coupon) {
         CouponRuleTemplate template = resolveTemplate(coupon);
         if (template == null) {
             log.warn("Rule template missing for coupon {}", coupon.getId());
             return null;
         }
 
-        String drl = templateService.generateDRL(coupon, template);
-        log.info("Generated DRL for coupon {}:\n{}", coupon.getId(), drl);
+        String drl = metrics.renderDrl(() -> templateService.generateDRL(coupon, template));
+        log.debug("Generated DRL for coupon {}:\n{}", coupon.getId(), drl);
 
         if (drl == null || drl.isBlank()) {
             log.warn("Generated DRL is empty for coupon {}", coupon.getId());
             return null;
         }
+        return drl;
+    }
 
-        KieContainer container = getOrBuildKieContainer(coupon.getId(), drl);
-        KieSession ksession = container.newKieSession();
+    private Map<Long, String> renderDrls(List<Coupon> coupons) {
+        Map<Long, String> drlByCoupon = new LinkedHashMap<>();
 
-        try {
-            ksession.insert(cart);
-            ksession.insert(coupon);
+        for (Coupon coupon : coupons) {
+            try {
+                String drl = renderDrl(coupon);
+                if (drl != null) {
+                    drlByCoupon.put(coupon.getId(), drl);
+                }
+            } catch (Exception ex) {
+                log.error("Error generating DRL for coupon {}: {}", coupon.getId(), ex.getMessage(), ex);
+            }
+        }
+        return drlByCoupon;
+    }
 
-            ksession.fireAllRules();
+    private CompiledRuleCache.Lease acquireRules(Long couponId, String drl, long waitMs) {
+        String hash = ContentHash.of(drl);
+        couponDrlHashes.put(couponId, hash);
 
-            Collection<?> facts = ksession.getObjects(new ClassObjectFilter(DiscountDecision.class));
+        return acquireCompiled("coupon", hash, drl.length(), () -> {
+            log.info("Compiling DRL for coupon {} (cache miss)", couponId);
+            return drlCompiler.compile(drl);
+        }, waitMs);
+    }
 
-            return facts.stream()
-                    .map(obj -> (DiscountDecision) obj)
-                    .filter(dd -> {
-                        if (dd.getCouponId() == null) {
-                            dd.setCouponId(coupon.getId());
-                        }
-                        return Objects.equals(dd.getCouponId(), coupon.getId());
-                    })
-                    .findFirst()
-                    .orElse(null);
+    /**
+     * Lease the rule base for a hash. On a miss it is compiled on the compile pool, where misses
+     * for the same hash share one compile, and the caller waits up to {@code waitMs} for it.
+     *
+     * @return the lease, or null when the rules are not ready in time
+     */
+    private CompiledRuleCache.Lease acquireCompiled(String kind, String hash, long sourceBytes,
+                                                    Supplier<KieContainer> compiler, long waitMs) {
+        CompiledRuleCache.Lease lease = ruleCache.acquire(hash);
+        if (lease != null) {
+            return lease;
+        }
 
-        } finally {
-            ksession.dispose();
+        CompletableFuture<CompiledRules> compiling = compileExecutor.submit(hash, () -> {
+            CompiledRules rules = compileRules(kind, hash, compiler);
+            ruleCache.put(hash, sourceBytes, rules);
+            return rules;
+        });
+        return compileExecutor.await(compiling, waitMs) != null ? ruleCache.reacquire(hash) : null;
+    }
+
+    /**
+     * Restore a rule base from the on-disk store, or compile it and store the result.
+     */
+    private CompiledRules compileRules(String kind, String hash, Supplier<KieContainer> compiler) {
+        long start = System.nanoTime();
+        CompiledRules stored = ruleStore.load(hash);
+        if (stored != null) {
+            metrics.restored(kind, start);
+            return stored;
         }
+        KieContainer container = metrics.compile(kind, compiler);
+        ruleStore.save(hash, container.getKieBase());
+        return CompiledRules.of(container);
+    }
+
+    /**
+     * The shared rule base for the live Drools coupons of a snapshot. DRL is only re-rendered
+     * when the snapshot or the day changes.
+     * <p>
+     * A changed rule base is built on the compile pool and waited for up to {@code waitMs}. Until
+     * it is ready, the previous rule base keeps serving the coupons whose DRL did not change and
+     * the rest are left out.
+     *
+     * @return the rule base, or null when it cannot be built and coupons go to per-coupon sessions
+     */
+    private SharedRuleBase getOrBuildSharedRuleBase(CatalogSnapshot snapshot, LocalDate day, long waitMs) {
+        SharedRuleBase current = sharedRuleBase;
+        if (current != null && current.builtFor(snapshot, day)) {
+            return current;
+        }
+
+        List<Coupon> coupons = snapshot.liveRuleEntries(day).stream().map(CatalogEntry::getCoupon).toList();
+        Map<Long, String> drlByCoupon = renderDrls(coupons);
+        String key = sharedRuleBaseKey(drlByCoupon);
+
+        if (current != null && current.key().equals(key)) {
+            return publishSharedRuleBase(current.forSnapshot(snapshot, day));
+        }
+        if (key.equals(failedSharedKey)) {
+            return null;
+        }
+
+        CompletableFuture<SharedRuleBase> building = compileExecutor.submit("shared-" + key, () -> {
+            try {
+                log.info("Compiling shared rule base for {} coupons", drlByCoupon.size());
+                return publishSharedRuleBase(buildSharedRuleBase(key, drlByCoupon).forSnapshot(snapshot, day));
+            } catch (RuntimeException ex) {
+                log.error("Shared rule base could not be built, falling back to per-coupon sessions: {}",
+                        ex.getMessage());
+                failedSharedKey = key;
+                throw ex;
+            }
+        });
+
+        SharedRuleBase built;
+        try {
+            built = compileExecutor.await(building, waitMs);
+        } catch (RuntimeException ex) {
+            return null;
+        }
+        if (built != null) {
+            return built;
+        }
+        return current != null ? current.restrictedTo(unchangedCoupons(current, drlByCoupon)) : SharedRuleBase.PENDING;
+    }
 
+    /**
+     * Make {@code candidate} the current shared rule base unless a newer snapshot's already is.
+     */
+    private SharedRuleBase publishSharedRuleBase(SharedRuleBase candidate) {
+        sharedBuildLock.lock();
+        try {
+            SharedRuleBase current = sharedRuleBase;
+            if (current != null && current.snapshotVersion() > candidate.snapshotVersion()) {
+                return candidate;
+            }
+            if (current != null && !current.containerHash().equals(candidate.containerHash())) {
+                ruleCache.invalidate(current.containerHash());
+            }
+            sharedRuleBase = candidate;
+            return candidate;
+        } finally {
+            sharedBuildLock.unlock();
+        }
     }
 
-    private KieContainer getOrBuildKieContainer(Long couponId, String drl) {
-        return kieContainerCache.computeIfAbsent(couponId, id -> {
-            log.info("Compiling DRL for coupon {} (cache miss)", id);
-            return buildKieContainer(drl);
+    private static Set<Long> unchangedCoupons(SharedRuleBase ruleBase, Map<Long, String> drlByCoupon) {
+        Set<Long> unchanged = new HashSet<>();
+        drlByCoupon.forEach((couponId, drl) -> {
+            if (ruleBase.couponIds().contains(couponId)
+                    && uniqueRuleNames(drl, couponId).equals(ruleBase.drlByPath().get(sharedDrlPath(couponId)))) {
+                unchanged.add(couponId);
+            }
         });
+        return unchanged;
     }
 
-    private KieContainer buildKieContainer(String drl) {
-        KieServices ks = KieServices.Factory.get();
-        KieFileSystem kfs = ks.newKieFileSystem();
+    /**
+     * Compile all coupon DRLs into one container. Coupons whose DRL does not compile are
+     * dropped (and logged) so one broken coupon cannot take down the whole rule base.
+     */
+    private SharedRuleBase buildSharedRuleBase(String key, Map<Long, String> drlByCoupon) {
+        Map<Long, String> remaining = new LinkedHashMap<>(drlByCoupon);
 
-        String drlPath = "src/main/resources/rules/dynamic-" + UUID.randomUUID() + ".drl";
-        Resource drlResource = ks.getResources()
-                .newByteArrayResource(drl.getBytes())
-                .setResourceType(ResourceType.DRL)
-                .setSourcePath(drlPath);
+        while (true) {
+            Map<String, String> drlByPath = new LinkedHashMap<>();
+            remaining.forEach((couponId, drl) ->
+                    drlByPath.put(sharedDrlPath(couponId), uniqueRuleNames(drl, couponId)));
 
-        kfs.write(drlResource);
+            String containerHash = ContentHash.of(drlByPath.values());
+            long sourceBytes = drlByPath.values().stream().mapToLong(String::length).sum();
 
-        KieBuilder builder = ks.newKieBuilder(kfs).buildAll();
-        Results results = builder.getResults();
+            try {
+                ruleCache.put(containerHash, sourceBytes,
+                        compileRules("shared", containerHash, () -> drlCompiler.compile(drlByPath)));
+
+                return new SharedRuleBase(key, containerHash, sourceBytes, drlByPath,
+                        Collections.unmodifiableSet(new HashSet<>(remaining.keySet())), -1, null);
+            } catch (DrlCompilationException ex) {
+                Set<Long> broken = ex.getResults().getMessages(Message.Level.ERROR).stream()
+                        .map(Message::getPath)
+                        .filter(Objects::nonNull)
+                        .map(SHARED_DRL_PATH::matcher)
+                        .filter(Matcher::find)
+                        .map(m -> Long.valueOf(m.group(1)))
+                        .collect(Collectors.toSet());
 
-        if (results.hasMessages(Message.Level.ERROR)) {
-            String errors = results.getMessages().stream()
-                    .map(Message::getText)
-                    .collect(Collectors.joining("\n"));
-            log.error("DRL compilation errors:\n{}", errors);
-            throw new RuntimeException("Failed to compile DRL: \n" + errors);
+                if (!remaining.keySet().removeAll(broken)) {
+                    throw ex;
+                }
+                log.warn("Excluding coupons {} from the shared rule base: DRL does not compile", broken);
+            }
         }
+    }
 
-        return ks.newKieContainer(ks.getRepository().getDefaultReleaseId());
+    private static String sharedDrlPath(Long couponId) {
+        return "src/main/resources/rules/coupon-" + couponId + ".drl";
+    }
+
+    /**
+     * Templates reuse rule names such as "CART"; suffix them with the coupon id so several
+     * coupons can live in the same package of a shared rule base.
+     */
+    private static String uniqueRuleNames(String drl, Long couponId) {
+        Matcher m = RULE_NAME.matcher(drl);
+        StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            String name = m.group(2);
+            if (name.startsWith("\"")) {
+                name = name.substring(1, name.length() - 1);
+            }
+            m.appendReplacement(sb, Matcher.quoteReplacement(m.group(1) + "\"" + name + " [coupon " + couponId + "]\""));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static Long sharedRuleCouponId(String ruleName) {
+        Matcher m = SHARED_RULE_COUPON.matcher(ruleName);
+        return m.find() ? Long.valueOf(m.group(1)) : null;
+    }
+
+    private static String sharedRuleBaseKey(Map<Long, String> drlByCoupon) {
+        List<String> parts = new ArrayList<>(drlByCoupon.size() * 2);
+        drlByCoupon.forEach((couponId, drl) -> {
+            parts.add(couponId.toString());
+            parts.add(drl);
+        });
+        return ContentHash.of(parts);
     }
 
     private boolean isWithinDateRange(Coupon coupon) {
@@ -269,4 +1004,30 @@ public class RuleEngineServiceImpl implements RuleEngineService {
         cart.setTotalDiscount(discount);
 
     }
+
+    /**
+     * A compiled shared rule base: the container itself lives in the rule cache under
+     * {@code containerHash} and is recompiled from {@code drlByPath} if it was evicted.
+     */
+    private record SharedRuleBase(String key, String containerHash, long sourceBytes,
+                                  Map<String, String> drlByPath, Set<Long> couponIds,
+                                  long snapshotVersion, LocalDate day) {
+
+        /**
+         * Stands in while the first shared rule base compiles: it holds no coupon.
+         */
+        static final SharedRuleBase PENDING = new SharedRuleBase(null, null, 0, Map.of(), Set.of(), -1, null);
+
+        boolean builtFor(CatalogSnapshot snapshot, LocalDate day) {
+            return snapshotVersion == snapshot.getVersion() && day.equals(this.day);
+        }
+
+        SharedRuleBase forSnapshot(CatalogSnapshot snapshot, LocalDate day) {
+            return new SharedRuleBase(key, containerHash, sourceBytes, drlByPath, couponIds, snapshot.getVersion(), day);
+        }
+
+        SharedRuleBase restrictedTo(Set<Long> ids) {
+            return new SharedRuleBase(key, containerHash, sourceBytes, drlByPath, ids, snapshotVersion, day);
+        }
+    }
 }
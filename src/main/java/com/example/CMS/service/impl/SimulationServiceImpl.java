@@ -0,0 +1,268 @@
+package com.example.CMS.service.impl;
+
+import com.example.CMS.common.CartCorpusReader;
+import com.example.CMS.config.SimulationProperties;
+import com.example.CMS.engine.DraftCouponEvaluator;
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.dto.CreateCouponRequest;
+import com.example.CMS.model.dto.SimulationReport;
+import com.example.CMS.model.dto.SimulationRequest;
+import com.example.CMS.model.metadata.CouponMetadataSchema;
+import com.example.CMS.model.rule.DiscountDecision;
+import com.example.CMS.repository.CouponRuleTemplateRepository;
+import com.example.CMS.service.RuleEngineService;
+import com.example.CMS.service.SimulationService;
+import com.example.CMS.service.TemplateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Replays a cart corpus against a draft coupon. The corpus is read on the calling thread and
+ * handed in chunks to a pool of its own, with a bounded number of chunks in flight, so memory
+ * stays flat however large the corpus is and live evaluation keeps its own pool.
+ */
+@Service
+public class SimulationServiceImpl implements SimulationService {
+
+    private static final Logger log = LoggerFactory.getLogger(SimulationServiceImpl.class);
+
+    /**
+     * Id given to draft coupons; generated coupon ids start at 1.
+     */
+    static final long DRAFT_COUPON_ID = 0L;
+
+    private final RuleEngineService ruleEngineService;
+    private final CouponRuleTemplateRepository templateRepository;
+    private final TemplateService templateService;
+    private final SimulationProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final int threads;
+    private final ExecutorService pool;
+
+    public SimulationServiceImpl(RuleEngineService ruleEngineService, CouponRuleTemplateRepository templateRepository,
+                                 TemplateService templateService, SimulationProperties properties,
+                                 ObjectMapper objectMapper) {
+        this.ruleEngineService = ruleEngineService;
+        this.templateRepository = templateRepository;
+        this.templateService = templateService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+
+        this.threads = properties.getThreads() > 0
+                ? properties.getThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "coupon-simulation-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public SimulationReport simulate(SimulationRequest request) {
+        Path corpus = resolveCorpus(request.getCorpus());
+        CartCorpusReader.Format format = request.getFormat() != null
+                ? request.getFormat()
+                : CartCorpusReader.Format.of(corpus);
+        long maxCarts = request.getMaxCarts() != null ? request.getMaxCarts() : Long.MAX_VALUE;
+        Coupon draft = draft(request);
+
+        long start = System.nanoTime();
+        Tally tally = new Tally(properties.getDiscountBuckets());
+        try (DraftCouponEvaluator evaluator = ruleEngineService.prepareDraft(draft);
+             CartCorpusReader carts = new CartCorpusReader(corpus, format, objectMapper)) {
+
+            replay(evaluator, carts, maxCarts, tally);
+
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            log.info("Simulated draft coupon over {} carts of {} in {} ms: {} hits, payout {}",
+                    tally.carts, corpus.getFileName(), elapsedMs, tally.hits, tally.payout);
+            return tally.report(carts.invalidLines(), evaluator.isNative(), elapsedMs);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void replay(DraftCouponEvaluator evaluator, CartCorpusReader carts, long maxCarts, Tally tally) {
+        int maxInFlight = threads * 2;
+        Semaphore slots = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long read = 0;
+
+        try {
+            while (read < maxCarts && carts.hasNext() && failure.get() == null) {
+                List<Cart> chunk = new ArrayList<>(properties.getChunkSize());
+                while (chunk.size() < properties.getChunkSize() && read < maxCarts && carts.hasNext()) {
+                    chunk.add(carts.next());
+                    read++;
+                }
+
+                slots.acquire();
+                try {
+                    pool.execute(() -> {
+                        try {
+                            Tally part = new Tally(properties.getDiscountBuckets());
+                            for (Cart cart : chunk) {
+                                part.add(cart, evaluator.evaluate(cart));
+                            }
+                            tally.merge(part);
+                        } catch (Throwable ex) {
+                            failure.compareAndSet(null, ex);
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                } catch (RuntimeException ex) {
+                    slots.release();
+                    throw ex;
+                }
+            }
+            // Every chunk has finished once all slots are free again
+            slots.acquire(maxInFlight);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Simulation interrupted", ex);
+        }
+
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new RuntimeException("Simulation failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private Path resolveCorpus(String name) {
+        if (name == null || name.isBlank()) {
+            throw new RuntimeException("Cart corpus is required");
+        }
+        try {
+            Path directory = Path.of(properties.getCorpusDirectory()).toRealPath();
+            Path file = directory.resolve(name).normalize();
+            if (!file.startsWith(directory) || !Files.isRegularFile(file) || !file.toRealPath().startsWith(directory)) {
+                throw new RuntimeException("Cart corpus not found");
+            }
+            return file;
+        } catch (IOException ex) {
+            throw new RuntimeException("Cart corpus not found");
+        }
+    }
+
+    private Coupon draft(SimulationRequest request) {
+        CreateCouponRequest coupon = request.getCoupon();
+        if (coupon == null || coupon.getRuleTemplateId() == null) {
+            throw new RuntimeException("Draft coupon with a rule template is required");
+        }
+        CouponRuleTemplate template = templateRepository
+                .findById(coupon.getRuleTemplateId())
+                .orElseThrow(() -> new RuntimeException("Rule template not found"));
+
+        if (request.getDrlTemplate() != null) {
+            // A detached copy under another name, so a built-in template's native evaluator does not stand in for the edit
+            template = CouponRuleTemplate.builder()
+                    .name(template.getName() + " (draft)")
+                    .type(template.getType())
+                    .drlTemplate(request.getDrlTemplate())
+                    .build();
+        }
+
+        CouponRuleTemplate checked = template;
+        CouponMetadataSchema.of(checked)
+                .ifPresent(schema -> schema.decode(coupon.getType(), coupon.getMetadata()));
+        templateService.validateMetadata(coupon.getMetadata(), checked);
+
+        return Coupon.builder()
+                .id(DRAFT_COUPON_ID)
+                .code(coupon.getCode())
+                .type(coupon.getType())
+                .active(true)
+                .metadata(coupon.getMetadata())
+                .ruleTemplate(checked)
+                .build();
+    }
+
+    /**
+     * Running totals of a simulation; each worker fills its own and merges it once per chunk.
+     */
+    private static final class Tally {
+
+        private final double[] bounds;
+        private final long[] buckets;
+        private long carts;
+        private long hits;
+        private double payout;
+        private double maxDiscount;
+        private double cartValue;
+
+        Tally(List<Double> bounds) {
+            this.bounds = bounds.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+            this.buckets = new long[this.bounds.length + 1];
+        }
+
+        void add(Cart cart, DiscountDecision decision) {
+            carts++;
+            cartValue += cart.getTotalAmount();
+            if (decision == null) {
+                return;
+            }
+            double discount = decision.getDiscountAmount();
+            hits++;
+            payout += discount;
+            maxDiscount = Math.max(maxDiscount, discount);
+
+            int bucket = Arrays.binarySearch(bounds, discount);
+            buckets[bucket >= 0 ? bucket : -bucket - 1]++;
+        }
+
+        synchronized void merge(Tally part) {
+            carts += part.carts;
+            hits += part.hits;
+            payout += part.payout;
+            maxDiscount = Math.max(maxDiscount, part.maxDiscount);
+            cartValue += part.cartValue;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] += part.buckets[i];
+            }
+        }
+
+        synchronized SimulationReport report(long invalidLines, boolean nativeEvaluation, long elapsedMs) {
+            List<SimulationReport.DiscountBucket> distribution = new ArrayList<>(buckets.length);
+            for (int i = 0; i < buckets.length; i++) {
+                distribution.add(new SimulationReport.DiscountBucket(i < bounds.length ? bounds[i] : null, buckets[i]));
+            }
+            return SimulationReport.builder()
+                    .carts(carts)
+                    .invalidLines(invalidLines)
+                    .hits(hits)
+                    .hitRate(carts == 0 ? 0 : (double) hits / carts)
+                    .totalPayout(payout)
+                    .meanDiscount(hits == 0 ? 0 : payout / hits)
+                    .maxDiscount(maxDiscount)
+                    .payoutShare(cartValue == 0 ? 0 : payout / cartValue)
+                    .distribution(distribution)
+                    .nativeEvaluation(nativeEvaluation)
+                    .elapsedMs(elapsedMs)
+                    .build();
+        }
+    }
+}
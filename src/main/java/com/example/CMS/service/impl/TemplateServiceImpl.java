@@ -1,5 +1,7 @@
 package com.example.CMS.service.impl;
 
+import com.example.CMS.engine.DrlTemplate;
+import com.example.CMS.engine.DrlTemplateException;
 import com.example.CMS.entity.Coupon;
 import com.example.CMS.entity.CouponRuleTemplate;
 import com.example.CMS.service.TemplateService;
@@ -8,46 +10,44 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
 public class TemplateServiceImpl implements TemplateService {
 
+    /**
+     * templateId -> parsed template; re-parsed when the template's DRL text changes
+     */
+    private final Map<Long, DrlTemplate> plans = new ConcurrentHashMap<>();
+
     @Override
     public String generateDRL(Coupon coupon, CouponRuleTemplate template) {
+        return plan(template).render(coupon.getId(), coupon.getMetadata());
+    }
 
-        String drl = template.getDrlTemplate();
-
-        Map<String, Object> metadata = coupon.getMetadata();
-
-        if (metadata != null) {
-            for (Map.Entry<String, Object> entry : metadata.entrySet()) {
-
-                String key = entry.getKey();
-                Object value = entry.getValue();
-                String placeholder = "{{" + key + "}}";
-
-                if (value instanceof List<?> listValue) {
-                    // Convert list → "A","B","C"
-                    StringBuilder sb = new StringBuilder();
-                    for (Object item : listValue) {
-                        if (sb.length() > 0) sb.append(",");
-                        sb.append("\"").append(item.toString()).append("\"");
-                    }
-                    drl = drl.replace(placeholder, sb.toString());
-
-                } else if (value instanceof String) {
-                    drl = drl.replace(placeholder, "\"" + value + "\"");
-
-                } else {
-                    drl = drl.replace(placeholder, value.toString());
-                }
-            }
+    @Override
+    public void validateMetadata(Map<String, Object> metadata, CouponRuleTemplate template) {
+        List<String> problems = plan(template).check(metadata);
+        if (!problems.isEmpty()) {
+            throw new DrlTemplateException(problems);
         }
+    }
 
-        // Replace coupon ID
-        drl = drl.replace("{{couponId}}", coupon.getId().toString());
+    private DrlTemplate plan(CouponRuleTemplate template) {
+        String source = template.getDrlTemplate();
+        if (source == null) {
+            throw new DrlTemplateException(List.of("Rule template " + template.getId() + " has no DRL"));
+        }
+        if (template.getId() == null) {
+            return DrlTemplate.parse(source);
+        }
 
-        return drl;
+        DrlTemplate plan = plans.get(template.getId());
+        if (plan == null || !source.equals(plan.source())) {
+            plan = DrlTemplate.parse(source);
+            plans.put(template.getId(), plan);
+        }
+        return plan;
     }
 }
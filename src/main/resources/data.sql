@@ -12,13 +12,13 @@ INSERT IGNORE INTO coupon_rule_template (id, name, type, drl_template) VALUES
 (1, 'Cart Percent Template', 'CART',
 'package com.example.CMS.rules;
 
-import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.cart.CartSummary;
 import com.example.CMS.model.rule.DiscountDecision;
 
 rule "CART"
     salience 10
 when
-    $cart : Cart( getTotalAmount() >= {{minCartValue}} )
+    $cart : CartSummary( totalAmount >= {{minCartValue}} )
 then
     double percent = {{discountPercent}};
     double total = $cart.getTotalAmount();
@@ -34,28 +34,21 @@ end'),
 (2, 'Product Fixed Discount', 'PRODUCT',
 'package com.example.CMS.rules;
 
-import com.example.CMS.model.cart.Cart;
-import com.example.CMS.model.cart.CartItem;
+import com.example.CMS.model.cart.CartSummary;
 import com.example.CMS.model.rule.DiscountDecision;
 import com.example.CMS.entity.Coupon;
 
 rule "PRODUCT"
     salience 50
 when
-    $cart : Cart()
+    $cart : CartSummary()
     $coupon : Coupon( type == com.example.CMS.entity.enums.CouponType.PRODUCT )
 then
     double discountAmount = {{discountAmount}};
 
     java.util.List<String> targetProducts = java.util.Arrays.asList({{productIds}});
 
-    double totalDiscount = 0.0;
-
-    for (CartItem item : $cart.getItems()) {
-        if (targetProducts.contains(item.getProductId())) {
-            totalDiscount += item.getQuantity() * discountAmount;
-        }
-    }
+    double totalDiscount = $cart.quantityOfAny(targetProducts) * discountAmount;
 
     if (totalDiscount > 0) {
         DiscountDecision d = new DiscountDecision();
@@ -70,14 +63,14 @@ end'),
 (3, 'BUY_X_GET_Y_PRODUCT', 'BXGY',
 'package com.example.CMS.rules;
 
-import com.example.CMS.model.cart.Cart;
 import com.example.CMS.model.cart.CartItem;
+import com.example.CMS.model.cart.CartSummary;
 import com.example.CMS.model.rule.DiscountDecision;
 
 rule "Buy X Get Y Free (Product-based)"
 salience 20
 when
-    $cart : Cart()
+    $cart : CartSummary()
 then
     int buyQty = {{buyQty}};
     int getQty = {{getQty}};
@@ -86,13 +79,7 @@ then
     java.util.List<String> buyProducts = java.util.Arrays.asList({{buyProducts}});
     java.util.List<String> getProducts = java.util.Arrays.asList({{getProducts}});
 
-    int totalBuyCount = 0;
-
-    for (CartItem item : $cart.getItems()) {
-        if (buyProducts.contains(item.getProductId())) {
-            totalBuyCount += item.getQuantity();
-        }
-    }
+    int totalBuyCount = $cart.quantityOfAny(buyProducts);
 
     // Not enough buy items → not applicable
     if (totalBuyCount < buyQty) {
@@ -110,15 +97,13 @@ then
     double discount = 0.0;
     int appliedFreeUnits = 0;
 
-    for (CartItem item : $cart.getItems()) {
-        if (getProducts.contains(item.getProductId())) {
-            int freeUnitsForItem = Math.min(eligibleFreeUnits, item.getQuantity());
-            discount += freeUnitsForItem * item.getPrice();
-            appliedFreeUnits += freeUnitsForItem;
-            eligibleFreeUnits -= freeUnitsForItem;
+    for (CartItem item : $cart.itemsOfAny(getProducts)) {
+        int freeUnitsForItem = Math.min(eligibleFreeUnits, item.getQuantity());
+        discount += freeUnitsForItem * item.getPrice();
+        appliedFreeUnits += freeUnitsForItem;
+        eligibleFreeUnits -= freeUnitsForItem;
 
-            if (eligibleFreeUnits <= 0) break;
-        }
+        if (eligibleFreeUnits <= 0) break;
     }
 
 
@@ -138,43 +123,26 @@ end
 (4, 'BUY_X_GET_Y_CATEGORY', 'BXGY',
 'package com.example.CMS.rules;
 
-import com.example.CMS.model.cart.Cart;
 import com.example.CMS.model.cart.CartItem;
+import com.example.CMS.model.cart.CartSummary;
 import com.example.CMS.model.rule.DiscountDecision;
 
 rule "Buy X Get Y Free (Category-based)"
 salience 20
 when
-    $cart : Cart()
+    $cart : CartSummary()
 then
     int buyQty = {{buyQty}};
     int getQty = {{getQty}};
     int repetitionLimit = {{repetitionLimit}};
     String category = "{{category}}";
 
-    java.util.List<CartItem> categoryItems = new java.util.ArrayList<>();
-
-    for (CartItem item : $cart.getItems()) {
-        if (category.equalsIgnoreCase(item.getCategory())) {
-            categoryItems.add(item);
-        }
-    }
+    int totalBuyCount = $cart.categoryQuantity(category);
 
-    if (categoryItems.isEmpty()) {
+    if (totalBuyCount == 0 || totalBuyCount < buyQty) {
         return;
     }
 
-    int totalBuyCount = 0;
-    for (CartItem item : categoryItems) {
-        totalBuyCount += item.getQuantity();
-    }
-
-    if (totalBuyCount < buyQty) {
-        return;
-    }
-
-    java.util.Collections.sort(categoryItems, (a, b) -> Double.compare(a.getPrice(), b.getPrice()));
-
     int eligibleFreeUnits = (totalBuyCount / buyQty) * getQty;
 
     if (repetitionLimit > 0 && eligibleFreeUnits > repetitionLimit) {
@@ -184,7 +152,8 @@ then
     double discount = 0.0;
     int appliedFreeUnits = 0;
 
-    for (CartItem item : categoryItems) {
+    // Cheapest items first
+    for (CartItem item : $cart.categoryItemsByPrice(category)) {
         int freeUnits = Math.min(eligibleFreeUnits, item.getQuantity());
         discount += freeUnits * item.getPrice();
         appliedFreeUnits += freeUnits;
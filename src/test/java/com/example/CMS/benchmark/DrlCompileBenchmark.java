@@ -0,0 +1,61 @@
+package com.example.CMS.benchmark;
+
+import com.example.CMS.config.RuleEngineProperties;
+import com.example.CMS.engine.DrlCompiler;
+import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.service.impl.TemplateServiceImpl;
+import com.example.CMS.support.SeedTemplates;
+import org.kie.api.runtime.KieContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold compile time of one coupon's DRL into a KieContainer, the cost a compiled-rule cache
+ * miss pays, in either build mode. Every invocation compiles a DRL the JVM has not seen before.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class DrlCompileBenchmark {
+
+    @Param({"Cart Percent Template", "Product Fixed Discount", "BUY_X_GET_Y_PRODUCT", "BUY_X_GET_Y_CATEGORY"})
+    String template;
+
+    @Param({"CLASSIC", "EXECUTABLE_MODEL"})
+    RuleEngineProperties.BuildMode buildMode;
+
+    private final TemplateServiceImpl templateService = new TemplateServiceImpl();
+    private DrlCompiler drlCompiler;
+    private CouponRuleTemplate ruleTemplate;
+    private long nextCouponId;
+    private String drl;
+    private KieContainer compiled;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        ruleTemplate = SeedTemplates.byName().get(template);
+        RuleEngineProperties properties = new RuleEngineProperties();
+        properties.getCompile().setBuildMode(buildMode);
+        drlCompiler = new DrlCompiler(properties);
+    }
+
+    @Setup(Level.Invocation)
+    public void render() {
+        drl = templateService.generateDRL(TemplateRenderingBenchmark.sampleCoupon(++nextCouponId, ruleTemplate), ruleTemplate);
+    }
+
+    @TearDown(Level.Invocation)
+    public void dispose() {
+        if (compiled != null) {
+            compiled.dispose();
+            compiled = null;
+        }
+    }
+
+    @Benchmark
+    public KieContainer compile() {
+        compiled = drlCompiler.compile(drl);
+        return compiled;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.CMS.benchmark;
+
+import com.example.CMS.CmsApplication;
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.entity.enums.CouponType;
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.cart.CartItem;
+import com.example.CMS.repository.CouponRepository;
+import com.example.CMS.repository.CouponRuleTemplateRepository;
+import com.example.CMS.service.CouponCatalogService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Boots the application against the embedded H2 profile and generates benchmark data:
+ * coupons spread over the seeded templates and carts drawn from a fixed product range.
+ */
+final class EmbeddedCms {
+
+    /**
+     * Distinct product ids coupons and carts draw from.
+     */
+    static final int PRODUCT_COUNT = 2000;
+
+    private static final String[] CATEGORIES = {"general", "clothing", "electronics", "grocery", "books"};
+
+    private EmbeddedCms() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(CmsApplication.class)
+                .profiles("embedded")
+                .logStartupInfo(false)
+                .run("--logging.level.root=WARN", "--logging.level.com.example.CMS=WARN");
+    }
+
+    /**
+     * Like {@link #start()}, but serving HTTP on a free port with the result cache on, as in production.
+     *
+     * @return the context; its port is {@link #port(ConfigurableApplicationContext)}
+     */
+    static ConfigurableApplicationContext startServer() {
+        return new SpringApplicationBuilder(CmsApplication.class)
+                .profiles("embedded")
+                .logStartupInfo(false)
+                .run("--spring.main.web-application-type=servlet", "--server.port=0",
+                        "--cms.rules.result-cache.enabled=true",
+                        "--logging.level.root=WARN", "--logging.level.com.example.CMS=WARN");
+    }
+
+    static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+
+    /**
+     * Insert {@code count} live coupons, cycling through the seeded templates, and publish a
+     * catalog snapshot that contains them.
+     *
+     * @return ids of the inserted coupons
+     */
+    static List<Long> seedCoupons(ConfigurableApplicationContext context, int count) {
+        Map<String, CouponRuleTemplate> templates = new HashMap<>();
+        context.getBean(CouponRuleTemplateRepository.class).findAll()
+                .forEach(t -> templates.put(t.getName(), t));
+
+        Random random = new Random(count);
+        List<Coupon> coupons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Coupon.CouponBuilder coupon = Coupon.builder()
+                    .code("BENCH" + i)
+                    .active(true)
+                    .startDate(LocalDate.now().minusDays(1))
+                    .endDate(LocalDate.now().plusYears(1));
+
+            switch (i % 4) {
+                case 0 -> coupon.type(CouponType.CART)
+                        .ruleTemplate(templates.get("Cart Percent Template"))
+                        .metadata(Map.of("minCartValue", random.nextInt(5000), "discountPercent", 1 + random.nextInt(30)));
+                case 1 -> coupon.type(CouponType.PRODUCT)
+                        .ruleTemplate(templates.get("Product Fixed Discount"))
+                        .metadata(Map.of("discountAmount", 1 + random.nextInt(50), "productIds", products(random, 3)));
+                case 2 -> coupon.type(CouponType.BXGY)
+                        .ruleTemplate(templates.get("BUY_X_GET_Y_PRODUCT"))
+                        .metadata(Map.of("buyQty", 1 + random.nextInt(3), "getQty", 1, "repetitionLimit", random.nextInt(3),
+                                "buyProducts", products(random, 5), "getProducts", products(random, 2)));
+                default -> coupon.type(CouponType.BXGY)
+                        .ruleTemplate(templates.get("BUY_X_GET_Y_CATEGORY"))
+                        .metadata(Map.of("buyQty", 1 + random.nextInt(3), "getQty", 1, "repetitionLimit", random.nextInt(3),
+                                "category", CATEGORIES[random.nextInt(CATEGORIES.length)]));
+            }
+            coupons.add(coupon.build());
+        }
+
+        List<Long> ids = context.getBean(CouponRepository.class).saveAll(coupons).stream()
+                .map(Coupon::getId)
+                .toList();
+        context.getBean(CouponCatalogService.class).rebuild();
+        return ids;
+    }
+
+    static Cart cart(int size, long seed) {
+        Random random = new Random(seed);
+        List<CartItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int product = random.nextInt(PRODUCT_COUNT);
+            items.add(new CartItem("P" + product, "Product " + product, CATEGORIES[product % CATEGORIES.length],
+                    1 + random.nextInt(500), 1 + random.nextInt(4)));
+        }
+        Cart cart = new Cart();
+        cart.setItems(items);
+        return cart;
+    }
+
+    static Cart copy(Cart cart) {
+        Cart copy = new Cart();
+        cart.getItems().forEach(item -> copy.getItems().add(new CartItem(item.getProductId(), item.getProductName(),
+                item.getCategory(), item.getPrice(), item.getQuantity())));
+        return copy;
+    }
+
+    private static List<String> products(Random random, int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add("P" + random.nextInt(PRODUCT_COUNT));
+        }
+        return ids;
+    }
+}
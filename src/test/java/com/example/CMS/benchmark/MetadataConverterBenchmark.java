@@ -0,0 +1,54 @@
+package com.example.CMS.benchmark;
+
+import com.example.CMS.common.MapToJsonConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON conversion of coupon metadata by {@link MapToJsonConverter}, swept over the length
+ * of the product list a coupon targets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MetadataConverterBenchmark {
+
+    @Param({"0", "10", "1000"})
+    int productCount;
+
+    private final MapToJsonConverter converter = new MapToJsonConverter();
+    private Map<String, Object> metadata;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        List<String> products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            products.add("P" + i);
+        }
+        metadata = new LinkedHashMap<>();
+        metadata.put("buyQty", 2);
+        metadata.put("getQty", 1);
+        metadata.put("repetitionLimit", 3);
+        metadata.put("buyProducts", products);
+        metadata.put("getProducts", products.subList(0, Math.min(2, productCount)));
+        json = converter.convertToDatabaseColumn(metadata);
+    }
+
+    @Benchmark
+    public String toDatabaseColumn() {
+        return converter.convertToDatabaseColumn(metadata);
+    }
+
+    @Benchmark
+    public Map<String, Object> toEntityAttribute() {
+        return converter.convertToEntityAttribute(json);
+    }
+
+    @Benchmark
+    public Map<String, Object> roundTrip() {
+        return converter.convertToEntityAttribute(converter.convertToDatabaseColumn(metadata));
+    }
+}
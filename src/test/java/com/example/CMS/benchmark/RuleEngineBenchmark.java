@@ -0,0 +1,58 @@
+package com.example.CMS.benchmark;
+
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.rule.DiscountDecision;
+import com.example.CMS.service.RuleEngineService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coupon evaluation through the full service stack (catalog snapshot, candidate index, native
+ * evaluators and Drools) against the embedded database, swept over catalog and cart size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RuleEngineBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    int couponCount;
+
+    @Param({"1", "10", "100", "1000"})
+    int cartSize;
+
+    private ConfigurableApplicationContext context;
+    private RuleEngineService ruleEngineService;
+    private Cart cart;
+    private Long couponId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedCms.start();
+        List<Long> ids = EmbeddedCms.seedCoupons(context, couponCount);
+        ruleEngineService = context.getBean(RuleEngineService.class);
+        ruleEngineService.warmUp(TimeUnit.MINUTES.toMillis(10));
+
+        cart = EmbeddedCms.cart(cartSize, 42);
+        couponId = ids.get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<DiscountDecision> evaluateAllCoupons() {
+        return ruleEngineService.evaluateAllCoupons(cart);
+    }
+
+    @Benchmark
+    public Cart applyCouponToCart() {
+        // applyCouponToCart writes the discount into the cart, so every call gets its own copy
+        return ruleEngineService.applyCouponToCart(couponId, EmbeddedCms.copy(cart));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.CMS.benchmark;
+
+import com.example.CMS.config.RuleEngineProperties;
+import com.example.CMS.engine.DrlCompiler;
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.cart.CartSummary;
+import com.example.CMS.service.impl.TemplateServiceImpl;
+import com.example.CMS.support.SeedTemplates;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What one coupon's compiled rules cost after the compile, in either build mode: the latency of
+ * the first session fired on a fresh rule base (class loading, lazy network set-up, cold code),
+ * and the heap a fired rule base keeps, reported as the {@code retainedBytes} counter. JMH sums
+ * that counter over the measurement iterations, so divide it by their count.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class RuleFootprintBenchmark {
+
+    /**
+     * Rule bases held at once when measuring retained heap, so per-container noise averages out.
+     */
+    private static final int HELD = 50;
+
+    @Param({"Cart Percent Template", "Product Fixed Discount", "BUY_X_GET_Y_PRODUCT", "BUY_X_GET_Y_CATEGORY"})
+    String template;
+
+    @Param({"CLASSIC", "EXECUTABLE_MODEL"})
+    RuleEngineProperties.BuildMode buildMode;
+
+    private final TemplateServiceImpl templateService = new TemplateServiceImpl();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private DrlCompiler drlCompiler;
+    private CouponRuleTemplate ruleTemplate;
+    private Cart cart;
+    private long nextCouponId;
+
+    private Coupon coupon;
+    private KieContainer container;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        ruleTemplate = SeedTemplates.byName().get(template);
+        RuleEngineProperties properties = new RuleEngineProperties();
+        properties.getCompile().setBuildMode(buildMode);
+        drlCompiler = new DrlCompiler(properties);
+        cart = EmbeddedCms.cart(5, 42);
+    }
+
+    @Setup(Level.Invocation)
+    public void compile() {
+        coupon = TemplateRenderingBenchmark.sampleCoupon(++nextCouponId, ruleTemplate);
+        container = drlCompiler.compile(templateService.generateDRL(coupon, ruleTemplate));
+    }
+
+    @TearDown(Level.Invocation)
+    public void dispose() {
+        container.dispose();
+    }
+
+    @Benchmark
+    public int firstFire() {
+        return fire(container, coupon);
+    }
+
+    /**
+     * Compiles and fires {@link #HELD} rule bases, keeping them alive, and records the heap they
+     * retain per rule base. Its time is not meaningful.
+     */
+    @Benchmark
+    public long retainedHeap(Footprint footprint) {
+        long before = usedAfterGc();
+        List<KieContainer> held = new ArrayList<>(HELD);
+        for (int i = 0; i < HELD; i++) {
+            Coupon heldCoupon = TemplateRenderingBenchmark.sampleCoupon(++nextCouponId, ruleTemplate);
+            KieContainer compiled = drlCompiler.compile(templateService.generateDRL(heldCoupon, ruleTemplate));
+            fire(compiled, heldCoupon);
+            held.add(compiled);
+        }
+        long retained = (usedAfterGc() - before) / HELD;
+        held.forEach(KieContainer::dispose);
+
+        footprint.retainedBytes = retained;
+        return retained;
+    }
+
+    private int fire(KieContainer rules, Coupon coupon) {
+        KieSession session = rules.newKieSession();
+        try {
+            session.insert(cart);
+            session.insert(CartSummary.of(cart));
+            session.insert(coupon);
+            return session.fireAllRules();
+        } finally {
+            session.dispose();
+        }
+    }
+
+    private long usedAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
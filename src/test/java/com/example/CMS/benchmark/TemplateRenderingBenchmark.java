@@ -0,0 +1,57 @@
+package com.example.CMS.benchmark;
+
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.entity.enums.CouponType;
+import com.example.CMS.service.impl.TemplateServiceImpl;
+import com.example.CMS.support.SeedTemplates;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DRL rendering of the seeded templates by {@link TemplateServiceImpl#generateDRL}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class TemplateRenderingBenchmark {
+
+    @Param({"Cart Percent Template", "Product Fixed Discount", "BUY_X_GET_Y_PRODUCT", "BUY_X_GET_Y_CATEGORY"})
+    String template;
+
+    private final TemplateServiceImpl templateService = new TemplateServiceImpl();
+    private CouponRuleTemplate ruleTemplate;
+    private Coupon coupon;
+
+    @Setup
+    public void setUp() {
+        ruleTemplate = SeedTemplates.byName().get(template);
+        coupon = sampleCoupon(1L, ruleTemplate);
+    }
+
+    @Benchmark
+    public String generateDrl() {
+        return templateService.generateDRL(coupon, ruleTemplate);
+    }
+
+    static Coupon sampleCoupon(Long id, CouponRuleTemplate template) {
+        Map<String, Object> metadata = switch (template.getName()) {
+            case "Cart Percent Template" -> Map.of("minCartValue", 275, "discountPercent", 10);
+            case "Product Fixed Discount" -> Map.of("discountAmount", 200, "productIds", List.of("P2", "P3"));
+            case "BUY_X_GET_Y_PRODUCT" -> Map.of("buyQty", 2, "getQty", 1, "repetitionLimit", 2,
+                    "buyProducts", List.of("P1", "P2", "P3"), "getProducts", List.of("P5", "P6"));
+            default -> Map.of("buyQty", 2, "getQty", 1, "repetitionLimit", 2, "category", "clothing");
+        };
+        return Coupon.builder()
+                .id(id)
+                .code("C" + id)
+                .type(template.getType())
+                .active(true)
+                .metadata(metadata)
+                .ruleTemplate(template)
+                .build();
+    }
+}
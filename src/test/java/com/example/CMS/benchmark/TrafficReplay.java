@@ -0,0 +1,252 @@
+package com.example.CMS.benchmark;
+
+import com.example.CMS.model.capture.CapturedRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays requests captured by {@code TrafficCaptureFilter} against a running node and reports
+ * throughput and latency percentiles per endpoint. Without {@code replay.url} it starts the
+ * application on the embedded database and seeds coupons; captured coupon ids are then mapped
+ * onto the seeded ones, so apply and CRUD requests hit coupons that exist.
+ * <p>
+ * With a {@code replay.rate}, requests are sent open-loop on a fixed schedule and latency is
+ * measured from each request's scheduled time, so a node falling behind shows up as queueing
+ * in the percentiles instead of as a lower send rate. Without one, {@code replay.concurrency}
+ * requests are kept in flight. Run with:
+ * <pre>
+ * mvn -Preplay verify -Dreplay.capture=/tmp/cms-capture.ndjson -Dreplay.rate=200 -Dreplay.concurrency=32
+ * </pre>
+ */
+public final class TrafficReplay {
+
+    private static final Pattern COUPON_ID = Pattern.compile("^(/coupons|/apply-coupon)/(\\d+)(.*)$");
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+    private static final Pattern CODE_SEGMENT = Pattern.compile("(/code)/[^/]+");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Endpoint> endpoints = new TreeMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final String url;
+    private final List<Long> couponIds;
+
+    private TrafficReplay(String url, List<Long> couponIds) {
+        this.url = url;
+        this.couponIds = couponIds;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path capture = Path.of(System.getProperty("replay.capture", System.getProperty("java.io.tmpdir") + "/cms-capture.ndjson"));
+        double rate = Double.parseDouble(System.getProperty("replay.rate", "0"));
+        int concurrency = Integer.getInteger("replay.concurrency", 16);
+        long requests = Long.getLong("replay.requests", 0);
+        long warmUp = Long.getLong("replay.warmUp", 500);
+        String url = System.getProperty("replay.url", "");
+
+        List<CapturedRequest> captured = read(capture);
+        if (captured.isEmpty()) {
+            throw new IllegalStateException("No captured requests in " + capture);
+        }
+
+        ConfigurableApplicationContext context = null;
+        List<Long> couponIds = List.of();
+        if (url.isBlank()) {
+            context = EmbeddedCms.startServer();
+            couponIds = EmbeddedCms.seedCoupons(context, Integer.getInteger("replay.seedCoupons", 1000));
+            url = "http://localhost:" + EmbeddedCms.port(context);
+        }
+
+        try {
+            TrafficReplay replay = new TrafficReplay(url, couponIds);
+            long total = requests > 0 ? requests : captured.size();
+
+            System.out.printf("Replaying %d requests (%d captured) against %s: %s, concurrency %d%n", total,
+                    captured.size(), url, rate > 0 ? rate + " req/s" : "closed loop", concurrency);
+            replay.run(captured, Math.min(warmUp, total), 0, concurrency);
+            replay.endpoints.clear();
+
+            long elapsed = replay.run(captured, total, rate, concurrency);
+            replay.report(total, elapsed, rate);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Send {@code total} requests, cycling through the capture.
+     *
+     * @return nanoseconds from the first send until the last response
+     */
+    private long run(List<CapturedRequest> captured, long total, double rate, int concurrency) throws InterruptedException {
+        Semaphore slots = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+
+        for (long i = 0; i < total; i++) {
+            long scheduled = start + i * interval;
+            if (interval > 0) {
+                for (long wait = scheduled - System.nanoTime(); wait > 0; wait = scheduled - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            slots.acquire();
+
+            CapturedRequest request = captured.get((int) (i % captured.size()));
+            Endpoint endpoint = endpoint(request);
+            long sent = interval > 0 ? scheduled : System.nanoTime();
+            client.sendAsync(toHttp(request), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        endpoint.record(System.nanoTime() - sent, error == null ? response.statusCode() : 0);
+                        slots.release();
+                    });
+        }
+        slots.acquire(concurrency);
+        slots.release(concurrency);
+        return System.nanoTime() - start;
+    }
+
+    private HttpRequest toHttp(CapturedRequest captured) {
+        String path = captured.getPath();
+        String body = captured.getBody();
+
+        Matcher coupon = COUPON_ID.matcher(path);
+        if (!couponIds.isEmpty() && coupon.matches()) {
+            long id = couponIds.get((int) Math.floorMod(Long.parseLong(coupon.group(2)), (long) couponIds.size()));
+            path = coupon.group(1) + "/" + id + coupon.group(3);
+        }
+        if ("POST".equals(captured.getMethod()) && "/coupons".equals(path) && body != null) {
+            // Coupon codes are unique; a replayed create would otherwise only ever conflict
+            body = uniqueCode(body);
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create(url + path + (captured.getQuery() != null ? "?" + captured.getQuery() : "")))
+                .timeout(Duration.ofSeconds(30));
+        if (captured.getContentType() != null) {
+            request.header("Content-Type", captured.getContentType());
+        }
+        return request.method(captured.getMethod(), body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private String uniqueCode(String body) {
+        try {
+            ObjectNode coupon = (ObjectNode) objectMapper.readTree(body);
+            if (coupon.hasNonNull("code")) {
+                coupon.put("code", coupon.get("code").asText() + "-R" + sequence.incrementAndGet());
+            }
+            return objectMapper.writeValueAsString(coupon);
+        } catch (Exception ex) {
+            return body;
+        }
+    }
+
+    private synchronized Endpoint endpoint(CapturedRequest request) {
+        String path = CODE_SEGMENT.matcher(ID_SEGMENT.matcher(request.getPath()).replaceAll("/{id}")).replaceAll("$1/{code}");
+        return endpoints.computeIfAbsent(request.getMethod() + " " + path, key -> new Endpoint());
+    }
+
+    private void report(long total, long elapsedNanos, double rate) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%nSent %d requests in %.1f s: %.1f req/s%s%n%n", total, seconds, total / seconds,
+                rate > 0 ? String.format(" (target %.1f)", rate) : "");
+        System.out.printf("%-40s %8s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        Endpoint all = new Endpoint();
+        endpoints.forEach((name, endpoint) -> {
+            endpoint.print(name);
+            all.addAll(endpoint);
+        });
+        all.print("all");
+    }
+
+    private static List<CapturedRequest> read(Path capture) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<CapturedRequest> captured = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(capture, StandardCharsets.UTF_8)) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                if (!line.isBlank()) {
+                    captured.add(objectMapper.readValue(line, CapturedRequest.class));
+                }
+            }
+        }
+        return captured;
+    }
+
+    /**
+     * Latencies and outcomes of one endpoint. Status 0 means no response.
+     */
+    private static final class Endpoint {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+
+        synchronized void record(long latencyNanos, int status) {
+            append(latencyNanos);
+            statuses.merge(status, 1L, Long::sum);
+        }
+
+        synchronized void addAll(Endpoint other) {
+            for (int i = 0; i < other.count; i++) {
+                append(other.latencies[i]);
+            }
+            other.statuses.forEach((status, n) -> statuses.merge(status, n, Long::sum));
+        }
+
+        private void append(long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+
+        synchronized void print(String name) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            long errors = statuses.entrySet().stream()
+                    .filter(e -> e.getKey() == 0 || e.getKey() >= 400)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            System.out.printf("%-40s %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f   %s%n", name, count, errors,
+                    percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), percentile(sorted, 1.0), statuses);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.CMS.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void everyAddedValueIsFound() {
+        List<String> codes = codes("SAVE", 20_000);
+        BloomFilter filter = BloomFilter.of(codes, 0.01);
+
+        codes.forEach(code -> assertTrue(filter.mightContain(code), code));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTarget() {
+        BloomFilter filter = BloomFilter.of(codes("SAVE", 20_000), 0.01);
+
+        long falsePositives = codes("GUESS", 200_000).stream().filter(filter::mightContain).count();
+
+        assertTrue(falsePositives < 200_000 * 0.02, "false positives: " + falsePositives);
+        assertTrue(filter.sizeBytes() < 20_000 * 2, "bytes: " + filter.sizeBytes());
+    }
+
+    @Test
+    void emptyFilterRejectsEverything() {
+        BloomFilter filter = BloomFilter.of(List.of(), 0.01);
+
+        assertFalse(filter.mightContain("SAVE10"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    void codesAreNormalized() {
+        assertEquals("SAVE10", CouponCodes.normalize("  save10\t"));
+        assertNull(CouponCodes.normalize(" "));
+        assertNull(CouponCodes.normalize(null));
+    }
+
+    private static List<String> codes(String prefix, int count) {
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            codes.add(prefix + Integer.toString(i * 7919, 36).toUpperCase());
+        }
+        return codes;
+    }
+}
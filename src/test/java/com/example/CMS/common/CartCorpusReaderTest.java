@@ -0,0 +1,84 @@
+package com.example.CMS.common;
+
+import com.example.CMS.model.cart.Cart;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartCorpusReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void ndjsonLinesCutByTheWindowAreReadWhole() throws Exception {
+        StringBuilder corpus = new StringBuilder();
+        for (int i = 1; i <= 200; i++) {
+            corpus.append("{\"items\":[{\"productId\":\"P").append(i % 7)
+                    .append("\",\"price\":").append(i).append(",\"quantity\":").append(1 + i % 3).append("}]}\r\n");
+            if (i % 50 == 0) {
+                corpus.append("\n");
+            }
+        }
+        Path file = write("carts.ndjson", corpus + "{\"items\":[{\"productId\":\"P1\",\"price\":5,\"quantity\":1}]}");
+
+        // A window of a few lines, so most reads cross a window boundary
+        List<Cart> carts = readAll(new CartCorpusReader(file, CartCorpusReader.Format.of(file), objectMapper, 200));
+
+        assertEquals(201, carts.size());
+        assertEquals(7.0, carts.get(6).getItems().get(0).getPrice());
+        assertEquals("P0", carts.get(6).getItems().get(0).getProductId());
+        assertEquals(5.0, carts.get(200).getTotalAmount());
+    }
+
+    @Test
+    void csvRowsAreGroupedByCartAndBadRowsSkipped() throws Exception {
+        Path file = write("carts.csv", """
+                quantity,price,cart_id,product_id,category
+                2,100,a,P1,shoes
+                1,50.5,a,P2,
+                1,not-a-price,b,P3,bags
+                3,10,b,P4,bags
+                1,20,c,P1,shoes
+                """);
+
+        try (CartCorpusReader reader = new CartCorpusReader(file, CartCorpusReader.Format.of(file), objectMapper)) {
+            List<Cart> carts = readAll(reader);
+
+            assertEquals(3, carts.size());
+            assertEquals(250.5, carts.get(0).getTotalAmount());
+            assertNull(carts.get(0).getItems().get(1).getCategory());
+            assertEquals(List.of("P4"), carts.get(1).getItems().stream().map(i -> i.getProductId()).toList());
+            assertEquals(1, reader.invalidLines());
+            assertEquals(3, reader.carts());
+        }
+    }
+
+    @Test
+    void csvWithoutRequiredColumnsIsRefused() throws Exception {
+        Path file = write("carts.csv", "cart_id,product_id,price\na,P1,10\n");
+
+        try (CartCorpusReader reader = new CartCorpusReader(file, CartCorpusReader.Format.CSV, objectMapper)) {
+            assertThrows(RuntimeException.class, reader::hasNext);
+        }
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.writeString(directory.resolve(name), content);
+    }
+
+    private static List<Cart> readAll(CartCorpusReader reader) {
+        List<Cart> carts = new ArrayList<>();
+        reader.forEachRemaining(carts::add);
+        return carts;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.CMS.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodePatternTest {
+
+    @Test
+    void wholeSpaceIsCoveredWithoutCollisions() {
+        CodePattern pattern = CodePattern.parse("x-###");
+
+        Set<String> codes = new HashSet<>();
+        for (long i = 0; i < pattern.space(); i++) {
+            String code = pattern.code(i, 42L);
+            assertTrue(code.matches("X-[2-9A-HJ-NP-Z]{3}"), code);
+            codes.add(code);
+        }
+        assertEquals(32 * 32 * 32, codes.size());
+    }
+
+    @Test
+    void sameKeyAndIndexGiveTheSameCode() {
+        CodePattern pattern = CodePattern.parse("SUMMER-####-####");
+
+        assertEquals(pattern.code(123_456, 7L), CodePattern.parse("summer-####-####").code(123_456, 7L));
+        assertNotEquals(pattern.code(123_456, 7L), pattern.code(123_456, 8L));
+    }
+
+    @Test
+    void consecutiveIndexesDoNotGiveNeighbouringCodes() {
+        CodePattern pattern = CodePattern.parse("########");
+
+        int sharedPrefix = 0;
+        for (long i = 0; i < 1000; i++) {
+            if (pattern.code(i, 99L).substring(0, 4).equals(pattern.code(i + 1, 99L).substring(0, 4))) {
+                sharedPrefix++;
+            }
+        }
+        assertTrue(sharedPrefix < 10, "codes sharing a prefix with the next one: " + sharedPrefix);
+    }
+
+    @Test
+    void invalidPatternsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CodePattern.parse("SUMMER"));
+        assertThrows(IllegalArgumentException.class, () -> CodePattern.parse("SUM MER-###"));
+        assertThrows(IllegalArgumentException.class, () -> CodePattern.parse("#############"));
+        assertThrows(IllegalArgumentException.class, () -> CodePattern.parse(" "));
+    }
+}
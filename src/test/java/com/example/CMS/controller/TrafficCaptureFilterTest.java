@@ -0,0 +1,111 @@
+package com.example.CMS.controller;
+
+import com.example.CMS.config.TrafficCaptureProperties;
+import com.example.CMS.model.capture.CapturedRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficCaptureFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TrafficCaptureProperties properties = new TrafficCaptureProperties();
+    private TrafficCaptureFilter filter;
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void tearDown() {
+        if (filter != null) {
+            filter.shutdown();
+        }
+    }
+
+    @Test
+    void sampledRequestsAreWrittenWithTheBodyTheControllerRead() throws Exception {
+        properties.setEnabled(true);
+        filter = filter(1.0, 1024);
+
+        send("POST", "/applicable-coupons", "customerId=c1", "{\"cart\":{\"items\":[]}}");
+        send("GET", "/actuator/health", null, null);
+        send("POST", "/apply-coupon/7", null, "x".repeat(2048));
+        send("GET", "/coupons/7", null, null);
+
+        List<CapturedRequest> captured = awaitCaptured(2);
+        assertEquals("/applicable-coupons", captured.get(0).getPath());
+        assertEquals("customerId=c1", captured.get(0).getQuery());
+        assertEquals("{\"cart\":{\"items\":[]}}", captured.get(0).getBody());
+        assertEquals(201, captured.get(0).getStatus());
+        assertEquals("GET", captured.get(1).getMethod());
+        assertNull(captured.get(1).getBody());
+    }
+
+    @Test
+    void nothingIsWrittenWhenDisabled() throws Exception {
+        filter = filter(1.0, 1024);
+
+        send("POST", "/applicable-coupons", null, "{}");
+
+        Thread.sleep(200);
+        assertFalse(Files.exists(Path.of(properties.getFile())));
+    }
+
+    private TrafficCaptureFilter filter(double sampleRate, int maxBodyBytes) {
+        properties.setSampleRate(sampleRate);
+        properties.setMaxBodyBytes(maxBodyBytes);
+        properties.setFile(directory.resolve("capture.ndjson").toString());
+        return new TrafficCaptureFilter(properties, objectMapper);
+    }
+
+    private void send(String method, String path, String query, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setQueryString(query);
+        if (body != null) {
+            request.setContentType("application/json");
+            request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        }
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                req.getInputStream().readAllBytes();
+                resp.setStatus(201);
+            }
+        }));
+    }
+
+    private List<CapturedRequest> awaitCaptured(int count) throws Exception {
+        Path file = Path.of(properties.getFile());
+        long deadline = System.currentTimeMillis() + 5_000;
+        List<String> lines = List.of();
+        while (System.currentTimeMillis() < deadline) {
+            lines = Files.exists(file) ? Files.readAllLines(file) : List.of();
+            if (lines.size() >= count) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        List<CapturedRequest> captured = new ArrayList<>();
+        for (String line : lines) {
+            captured.add(objectMapper.readValue(line, CapturedRequest.class));
+        }
+        assertEquals(count, captured.size());
+        return captured;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.CMS.engine;
+
+import com.example.CMS.config.RuleEngineProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationBulkheadTest {
+
+    private final RuleEngineProperties properties = new RuleEngineProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrencyNeverExceedsTheSlots() throws Exception {
+        properties.getAdmission().setMaxConcurrent(4);
+        properties.getAdmission().setMaxQueued(100);
+        properties.getAdmission().setDeadlineMs(10_000);
+        EvaluationBulkhead bulkhead = new EvaluationBulkhead(properties, meterRegistry);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(pool.submit(() -> bulkhead.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(5);
+                running.decrementAndGet();
+                return 1;
+            }, null)));
+        }
+        for (Future<Integer> future : futures) {
+            assertEquals(1, future.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(4, peak.get());
+        assertEquals(40, count("immediate") + count("queued"));
+    }
+
+    @Test
+    void fullQueueShedsToTheDegradedAnswer() throws Exception {
+        properties.getAdmission().setMaxConcurrent(1);
+        properties.getAdmission().setMaxQueued(1);
+        properties.getAdmission().setDeadlineMs(10_000);
+        EvaluationBulkhead bulkhead = new EvaluationBulkhead(properties, meterRegistry);
+
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> holder = pool.submit(() -> bulkhead.execute(() -> await(release), null));
+        waitFor(() -> meterRegistry.get("cms.rules.admission.in-flight").gauge().value() == 1);
+        Future<String> queued = pool.submit(() -> bulkhead.execute(() -> "queued", null));
+        waitFor(() -> meterRegistry.get("cms.rules.admission.waiting").gauge().value() == 1);
+
+        assertEquals("degraded", bulkhead.execute(() -> "full", () -> "degraded"));
+        assertThrows(EvaluationRejectedException.class, () -> bulkhead.execute(() -> "full", null));
+        assertEquals(2, count("queue-full"));
+
+        release.countDown();
+        assertEquals("held", holder.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void requestThatCannotMeetTheDeadlineIsShedEarly() throws Exception {
+        properties.getAdmission().setMaxConcurrent(1);
+        properties.getAdmission().setDeadlineMs(200);
+        EvaluationBulkhead bulkhead = new EvaluationBulkhead(properties, meterRegistry);
+
+        // Teach it that an evaluation takes longer than the deadline
+        bulkhead.execute(() -> sleep(300), null);
+
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> holder = pool.submit(() -> bulkhead.execute(() -> await(release), null));
+        waitFor(() -> meterRegistry.get("cms.rules.admission.in-flight").gauge().value() == 1);
+
+        long start = System.nanoTime();
+        assertEquals("degraded", bulkhead.execute(() -> "full", () -> "degraded"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100, "shed without waiting");
+        assertEquals(1, count("deadline"));
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void disabledBulkheadRunsEverything() {
+        properties.getAdmission().setEnabled(false);
+        properties.getAdmission().setMaxConcurrent(1);
+        EvaluationBulkhead bulkhead = new EvaluationBulkhead(properties, meterRegistry);
+
+        assertEquals("inner", bulkhead.execute(() -> bulkhead.execute(() -> "inner", null), null));
+    }
+
+    private double count(String outcome) {
+        var counter = meterRegistry.find("cms.rules.admission").tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return "held";
+    }
+
+    private static String sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return "slept";
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < until) {
+            Thread.sleep(1);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
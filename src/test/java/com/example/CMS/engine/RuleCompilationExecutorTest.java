@@ -0,0 +1,135 @@
+package com.example.CMS.engine;
+
+import com.example.CMS.config.RuleEngineProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.runtime.KieContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleCompilationExecutorTest {
+
+    private final RuleEngineProperties properties = new RuleEngineProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RuleCompilationExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void concurrentRequestsForOneKeyShareOneCompile() throws Exception {
+        executor = executor(2, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger compiles = new AtomicInteger();
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit("hash-1", () -> {
+                compiles.incrementAndGet();
+                await(release);
+                return "rules";
+            }));
+        }
+        release.countDown();
+
+        for (CompletableFuture<String> future : futures) {
+            assertEquals("rules", executor.await(future, 10_000));
+        }
+        assertEquals(1, compiles.get());
+        assertEquals(19, meterRegistry.get("cms.rules.compile.requests").tag("outcome", "joined").counter().count());
+
+        // A finished compile is not joined again
+        assertEquals("again", executor.await(executor.submit("hash-1", () -> "again"), 10_000));
+    }
+
+    @Test
+    void waitGivesUpWhileTheCompileCarriesOn() throws Exception {
+        executor = executor(1, 10);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> compiling = executor.submit("slow", () -> {
+            await(release);
+            return "rules";
+        });
+        assertNull(executor.await(compiling, 0));
+        assertNull(executor.await(compiling, 20));
+        assertEquals(2, executor.skipped());
+
+        release.countDown();
+        assertEquals("rules", compiling.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void fullQueueRefusesTheCompile() {
+        executor = executor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit("running", () -> await(release));
+        executor.submit("queued", () -> "queued");
+
+        assertNull(executor.await(executor.submit("refused", () -> "refused"), 1_000));
+        assertEquals(1, meterRegistry.get("cms.rules.compile.requests").tag("outcome", "rejected").counter().count());
+        release.countDown();
+    }
+
+    @Test
+    void compileFailureReachesTheWaiter() {
+        executor = executor(1, 10);
+        CompletableFuture<String> failing = executor.submit("broken", () -> {
+            throw new DrlCompilationException("Failed to compile DRL", null);
+        });
+
+        assertThrows(DrlCompilationException.class, () -> executor.await(failing, 10_000));
+        assertEquals(0, executor.skipped());
+    }
+
+    @Test
+    void concurrentBuildsKeepTheirOwnRules() {
+        executor = executor(8, 100);
+        DrlCompiler compiler = new DrlCompiler(new RuleEngineProperties());
+
+        List<CompletableFuture<KieContainer>> builds = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String drl = "package rules;\n\nrule \"only-" + i + "\"\nwhen\nthen\nend\n";
+            builds.add(executor.submit("drl-" + i, () -> compiler.compile(drl)));
+        }
+
+        for (int i = 0; i < builds.size(); i++) {
+            KieContainer container = executor.await(builds.get(i), 60_000);
+            Set<String> rules = container.getKieBase().getKiePackage("rules").getRules().stream()
+                    .map(Rule::getName)
+                    .collect(Collectors.toSet());
+            assertEquals(Set.of("only-" + i), rules);
+            container.dispose();
+        }
+    }
+
+    private RuleCompilationExecutor executor(int threads, int queueCapacity) {
+        properties.getCompile().setThreads(threads);
+        properties.getCompile().setQueueCapacity(queueCapacity);
+        return new RuleCompilationExecutor(properties, meterRegistry);
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.CMS.engine.evaluator;
+
+import com.example.CMS.config.RuleEngineProperties;
+import com.example.CMS.engine.DrlCompiler;
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.entity.enums.CouponType;
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.cart.CartItem;
+import com.example.CMS.model.cart.CartSummary;
+import com.example.CMS.model.metadata.CouponMetadataSchema;
+import com.example.CMS.model.rule.DiscountDecision;
+import com.example.CMS.service.impl.TemplateServiceImpl;
+import com.example.CMS.support.SeedTemplates;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.kie.api.runtime.ClassObjectFilter;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The native evaluators must produce exactly what the seeded DRL templates produce.
+ */
+class NativeEvaluatorParityTest {
+
+    private static final String[][] PRODUCTS = {
+            {"P1", "general", "100"}, {"P2", "general", "200"}, {"P3", "general", "150"},
+            {"P4", "clothing", "500"}, {"P5", "general", "300"}, {"P6", "general", "250"},
+            {"P7", "clothing", "120"}
+    };
+
+    private static Map<String, CouponRuleTemplate> templates;
+    private static List<Cart> carts;
+
+    private final TemplateServiceImpl templateService = new TemplateServiceImpl();
+
+    @BeforeAll
+    static void setUp() {
+        templates = SeedTemplates.byName();
+
+        carts = new ArrayList<>();
+        carts.add(cart());
+        carts.add(cart(item(0, 3), item(1, 1), item(4, 2), item(3, 3)));
+        carts.add(cart(item(1, 1), item(2, 1)));
+        carts.add(cart(item(0, 1), item(5, 4)));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            List<CartItem> items = new ArrayList<>();
+            int lines = random.nextInt(6);
+            for (int j = 0; j < lines; j++) {
+                items.add(item(random.nextInt(PRODUCTS.length), 1 + random.nextInt(5)));
+            }
+            carts.add(cart(items.toArray(CartItem[]::new)));
+        }
+    }
+
+    @Test
+    void cartPercentMatchesDrl() {
+        assertParity(new CartPercentEvaluator(), coupon(1L, CouponType.CART, CouponMetadataSchema.CART_PERCENT.getTemplateName(),
+                Map.of("minCartValue", 275, "discountPercent", 10)));
+        assertParity(new CartPercentEvaluator(), coupon(2L, CouponType.CART, CouponMetadataSchema.CART_PERCENT.getTemplateName(),
+                Map.of("minCartValue", 0, "discountPercent", 12.5)));
+    }
+
+    @Test
+    void productFixedDiscountMatchesDrl() {
+        assertParity(new ProductFixedDiscountEvaluator(), coupon(3L, CouponType.PRODUCT,
+                CouponMetadataSchema.PRODUCT_DISCOUNT.getTemplateName(),
+                Map.of("discountAmount", 200, "productIds", List.of("P2", "P3"))));
+        assertParity(new ProductFixedDiscountEvaluator(), coupon(4L, CouponType.PRODUCT,
+                CouponMetadataSchema.PRODUCT_DISCOUNT.getTemplateName(),
+                Map.of("discountAmount", 7.5, "productIds", List.of("P7"))));
+    }
+
+    @Test
+    void buyXGetYProductMatchesDrl() {
+        assertParity(new BuyXGetYProductEvaluator(), coupon(5L, CouponType.BXGY,
+                CouponMetadataSchema.BXGY_PRODUCT.getTemplateName(),
+                Map.of("buyQty", 2, "getQty", 1, "repetitionLimit", 2,
+                        "buyProducts", List.of("P1", "P2", "P3"), "getProducts", List.of("P5", "P6"))));
+        assertParity(new BuyXGetYProductEvaluator(), coupon(6L, CouponType.BXGY,
+                CouponMetadataSchema.BXGY_PRODUCT.getTemplateName(),
+                Map.of("buyQty", 1, "getQty", 1, "repetitionLimit", 0,
+                        "buyProducts", List.of("P4"), "getProducts", List.of("P4", "P7"))));
+    }
+
+    @Test
+    void buyXGetYCategoryMatchesDrl() {
+        assertParity(new BuyXGetYCategoryEvaluator(), coupon(9L, CouponType.BXGY,
+                CouponMetadataSchema.BXGY_CATEGORY.getTemplateName(),
+                Map.of("buyQty", 2, "getQty", 1, "repetitionLimit", 2, "category", "clothing")));
+        assertParity(new BuyXGetYCategoryEvaluator(), coupon(10L, CouponType.BXGY,
+                CouponMetadataSchema.BXGY_CATEGORY.getTemplateName(),
+                Map.of("buyQty", 1, "getQty", 2, "repetitionLimit", 0, "category", "General")));
+    }
+
+    @Test
+    void buyXGetYCategoryGivesCheapestItemsFree() {
+        Coupon coupon = coupon(7L, CouponType.BXGY, CouponMetadataSchema.BXGY_CATEGORY.getTemplateName(),
+                Map.of("buyQty", 2, "getQty", 1, "repetitionLimit", 2, "category", "clothing"));
+        PreparedCouponRule rule = prepare(new BuyXGetYCategoryEvaluator(), coupon);
+
+        // 3 x P4 (500) + 2 x P7 (120): 5 units -> 2 free units, both P7
+        DiscountDecision decision = rule.evaluate(summary(item(3, 3), item(6, 2)));
+        assertNotNull(decision);
+        assertEquals(240.0, decision.getDiscountAmount());
+
+        assertNull(rule.evaluate(summary(item(3, 1), item(0, 5))));
+    }
+
+    @Test
+    void customTemplatesAreLeftToDrools() {
+        Coupon coupon = coupon(8L, CouponType.CART, CouponMetadataSchema.CART_PERCENT.getTemplateName(),
+                Map.of("minCartValue", 1, "discountPercent", 1));
+        coupon.setRuleTemplate(CouponRuleTemplate.builder().id(99L).name("Custom").type(CouponType.CART)
+                .drlTemplate("package x;").build());
+
+        assertTrue(CouponMetadataSchema.of(coupon.getRuleTemplate()).isEmpty());
+    }
+
+    private void assertParity(CouponEvaluator evaluator, Coupon coupon) {
+        assertEquals(Optional.of(evaluator.getSchema()), CouponMetadataSchema.of(coupon.getRuleTemplate()),
+                "evaluator should claim the seeded template");
+        PreparedCouponRule rule = prepare(evaluator, coupon);
+
+        // Both build modes must fire the same rules
+        for (RuleEngineProperties.BuildMode mode : RuleEngineProperties.BuildMode.values()) {
+            RuleEngineProperties properties = new RuleEngineProperties();
+            properties.getCompile().setBuildMode(mode);
+            KieContainer container = new DrlCompiler(properties).compile(templateService.generateDRL(coupon, coupon.getRuleTemplate()));
+            try {
+                for (Cart cart : carts) {
+                    DiscountDecision expected = fireDrl(container, coupon, cart);
+                    DiscountDecision actual = rule.evaluate(CartSummary.of(cart));
+
+                    if (expected == null) {
+                        assertNull(actual, "native rule applied where " + mode + " DRL did not");
+                        continue;
+                    }
+                    assertNotNull(actual, "native rule missed a " + mode + " DRL discount");
+                    assertEquals(expected.getCouponId(), actual.getCouponId());
+                    assertEquals(expected.isApplicable(), actual.isApplicable());
+                    assertEquals(expected.getDiscountAmount(), actual.getDiscountAmount());
+                    assertEquals(expected.getMessage(), actual.getMessage());
+                }
+            } finally {
+                container.dispose();
+            }
+        }
+    }
+
+    private static PreparedCouponRule prepare(CouponEvaluator evaluator, Coupon coupon) {
+        return evaluator.prepare(coupon.getId(), evaluator.getSchema().decode(coupon.getType(), coupon.getMetadata()));
+    }
+
+    private static DiscountDecision fireDrl(KieContainer container, Coupon coupon, Cart cart) {
+        KieSession session = container.newKieSession();
+        try {
+            session.insert(cart);
+            session.insert(CartSummary.of(cart));
+            session.insert(coupon);
+            session.fireAllRules();
+            return session.getObjects(new ClassObjectFilter(DiscountDecision.class)).stream()
+                    .map(DiscountDecision.class::cast)
+                    .findFirst()
+                    .orElse(null);
+        } finally {
+            session.dispose();
+        }
+    }
+
+    private static Coupon coupon(Long id, CouponType type, String templateName, Map<String, Object> metadata) {
+        return Coupon.builder()
+                .id(id)
+                .code("C" + id)
+                .type(type)
+                .active(true)
+                .metadata(metadata)
+                .ruleTemplate(templates.get(templateName))
+                .build();
+    }
+
+    private static Cart cart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setItems(new ArrayList<>(List.of(items)));
+        return cart;
+    }
+
+    private static CartSummary summary(CartItem... items) {
+        return CartSummary.of(cart(items));
+    }
+
+    private static CartItem item(int product, int quantity) {
+        String[] p = PRODUCTS[product];
+        return new CartItem(p[0], "Product " + p[0], p[1], Double.parseDouble(p[2]), quantity);
+    }
+}
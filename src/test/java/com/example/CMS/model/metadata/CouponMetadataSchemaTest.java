@@ -0,0 +1,48 @@
+package com.example.CMS.model.metadata;
+
+import com.example.CMS.entity.enums.CouponType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CouponMetadataSchemaTest {
+
+    @Test
+    void decodesIntoTypedValues() {
+        CouponMetadata decoded = CouponMetadataSchema.BXGY_PRODUCT.decode(CouponType.BXGY, Map.of(
+                "buyQty", 2, "getQty", 1.0, "repetitionLimit", 0,
+                "buyProducts", List.of("P1", "P2", "P1"), "getProducts", List.of(5)));
+
+        assertEquals(new BuyXGetYProductMetadata(2, 1, 0, Set.of("P1", "P2"), Set.of("5")), decoded);
+        assertEquals(CouponMetadataSchema.BXGY_PRODUCT, decoded.schema());
+    }
+
+    @Test
+    void reportsEveryProblemAtOnce() {
+        InvalidCouponMetadataException ex = assertThrows(InvalidCouponMetadataException.class, () ->
+                CouponMetadataSchema.BXGY_CATEGORY.decode(CouponType.CART, Map.of(
+                        "buyQty", 0, "getQty", 1.5, "category", " ")));
+
+        assertEquals(List.of(
+                "Template 'BUY_X_GET_Y_CATEGORY' is for BXGY coupons, not CART",
+                "Metadata 'buyQty' must be at least 1",
+                "Metadata 'getQty' must be a whole number",
+                "Metadata 'repetitionLimit' is missing",
+                "Metadata 'category' must be a non-empty string"), ex.getProblems());
+    }
+
+    @Test
+    void rejectsOutOfRangeAndMistypedNumbers() {
+        InvalidCouponMetadataException ex = assertThrows(InvalidCouponMetadataException.class, () ->
+                CouponMetadataSchema.CART_PERCENT.decode(CouponType.CART, Map.of(
+                        "minCartValue", "100", "discountPercent", 120)));
+
+        assertEquals(List.of(
+                "Metadata 'minCartValue' must be a number",
+                "Metadata 'discountPercent' must be between 0 and 100"), ex.getProblems());
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.CMS.service.impl;
+
+import com.example.CMS.config.CacheSyncProperties;
+import com.example.CMS.engine.CouponCodeIndex;
+import com.example.CMS.entity.CacheChange;
+import com.example.CMS.entity.enums.CacheChangeType;
+import com.example.CMS.repository.CacheChangeRepository;
+import com.example.CMS.repository.CouponCodeRepository;
+import com.example.CMS.service.CouponCatalogService;
+import com.example.CMS.service.RuleEngineService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CacheSyncServiceImplTest {
+
+    private final CacheChangeRepository changeRepository = mock(CacheChangeRepository.class);
+    private final CouponCodeRepository codeRepository = mock(CouponCodeRepository.class);
+    private final RuleEngineService ruleEngineService = mock(RuleEngineService.class);
+    private final CouponCatalogService catalogService = mock(CouponCatalogService.class);
+    private final CouponCodeIndex codeIndex = mock(CouponCodeIndex.class);
+    private final CacheSyncProperties properties = new CacheSyncProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // The committed rows of the change log
+    private final NavigableMap<Long, CacheChange> log = new ConcurrentSkipListMap<>();
+
+    private CacheSyncServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        properties.setNodeId("this-node");
+        properties.setPollIntervalMs(60_000);
+        properties.setGapTimeoutMs(60_000);
+
+        when(changeRepository.findAfter(anyLong(), any())).thenAnswer(inv -> log.tailMap(inv.<Long>getArgument(0), false)
+                .values().stream()
+                .limit(inv.<Pageable>getArgument(1).getPageSize())
+                .toList());
+        when(changeRepository.findLastIdBefore(anyLong())).thenAnswer(inv -> log.values().stream()
+                .filter(change -> change.getCreatedAt() < inv.<Long>getArgument(0))
+                .map(CacheChange::getId)
+                .max(Long::compare)
+                .orElse(null));
+        when(changeRepository.findFirstId()).thenAnswer(inv -> log.isEmpty() ? null : log.firstKey());
+        when(changeRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        service = new CacheSyncServiceImpl(changeRepository, codeRepository, ruleEngineService, catalogService,
+                codeIndex, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void appliesOtherNodesChangesInOrder() {
+        when(codeRepository.findCampaignCodes(9L, 100L, 101L)).thenReturn(List.of("SUMMER-AAAA", "SUMMER-BBBB"));
+        commit(1, CacheChangeType.COUPON, 5L, "other-node");
+        commit(2, CacheChangeType.COUPON, 6L, "this-node");
+        commit(3, CacheChangeType.CODES, 9L, "other-node");
+        commit(4, CacheChangeType.COUPON, 7L, "other-node");
+
+        service.poll();
+
+        InOrder order = inOrder(ruleEngineService, codeIndex, catalogService);
+        order.verify(ruleEngineService).invalidateCacheForCoupon(5L);
+        order.verify(codeIndex).add(List.of("SUMMER-AAAA", "SUMMER-BBBB"));
+        order.verify(ruleEngineService).invalidateCacheForCoupon(7L);
+        order.verify(catalogService).rebuild();
+        // Already applied when it committed here
+        verify(ruleEngineService, never()).invalidateCacheForCoupon(6L);
+        assertEquals(3, meterRegistry.get("cms.cache.sync.lag").timer().count());
+
+        service.poll();
+        verify(catalogService, times(1)).rebuild();
+    }
+
+    @Test
+    void waitsForAHoleToFillIn() {
+        commit(1, CacheChangeType.COUPON, 5L, "other-node");
+        commit(3, CacheChangeType.COUPON, 7L, "other-node");
+
+        service.poll();
+        verify(ruleEngineService).invalidateCacheForCoupon(5L);
+        verify(ruleEngineService, never()).invalidateCacheForCoupon(7L);
+
+        // The change holding id 2 commits
+        commit(2, CacheChangeType.TEMPLATE, 1L, "other-node");
+        service.poll();
+
+        InOrder order = inOrder(ruleEngineService, catalogService);
+        order.verify(ruleEngineService).invalidateCacheForCoupon(7L);
+        order.verify(catalogService).rebuild();
+        verify(catalogService, times(2)).rebuild();
+    }
+
+    @Test
+    void skipsAHoleAfterTheGapTimeout() throws Exception {
+        properties.setGapTimeoutMs(20);
+        commit(1, CacheChangeType.COUPON, 5L, "other-node");
+        commit(3, CacheChangeType.COUPON, 7L, "other-node");
+
+        service.poll();
+        service.poll();
+        verify(ruleEngineService, never()).invalidateCacheForCoupon(7L);
+
+        Thread.sleep(40);
+        service.poll();
+        verify(ruleEngineService).invalidateCacheForCoupon(7L);
+
+        // Id 2 rolled back; whatever comes after it is applied straight away
+        commit(4, CacheChangeType.COUPON, 8L, "other-node");
+        service.poll();
+        verify(ruleEngineService).invalidateCacheForCoupon(8L);
+    }
+
+    @Test
+    void localChangesApplyWithoutWaitingForThePoller() {
+        service.recordCouponChange(5L);
+
+        verify(changeRepository).save(argThat(change -> change.getType() == CacheChangeType.COUPON
+                && change.getEntityId() == 5L && change.getNodeId().equals("this-node")));
+        verify(ruleEngineService).invalidateCacheForCoupon(5L);
+        verify(catalogService).refresh();
+    }
+
+    @Test
+    void nothingIsLoggedWhenDisabled() {
+        properties.setEnabled(false);
+        service.recordCouponChange(5L);
+
+        verify(changeRepository, never()).save(any());
+        verify(catalogService).refresh();
+    }
+
+    private void commit(long id, CacheChangeType type, Long entityId, String nodeId) {
+        boolean codes = type == CacheChangeType.CODES;
+        log.put(id, CacheChange.builder()
+                .id(id)
+                .type(type)
+                .entityId(entityId)
+                .firstId(codes ? 100L : null)
+                .lastId(codes ? 101L : null)
+                .nodeId(nodeId)
+                .createdAt(System.currentTimeMillis())
+                .build());
+    }
+}
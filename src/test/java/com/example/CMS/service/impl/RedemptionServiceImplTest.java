@@ -0,0 +1,269 @@
+package com.example.CMS.service.impl;
+
+import com.example.CMS.config.RedemptionProperties;
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.CustomerRedemption;
+import com.example.CMS.entity.enums.CouponCodeStatus;
+import com.example.CMS.model.redemption.RedemptionLimitExceededException;
+import com.example.CMS.model.redemption.Reservation;
+import com.example.CMS.repository.CouponCodeRepository;
+import com.example.CMS.repository.CouponRepository;
+import com.example.CMS.repository.CustomerRedemptionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RedemptionServiceImplTest {
+
+    private final CouponRepository couponRepository = mock(CouponRepository.class);
+    private final CustomerRedemptionRepository customerRepository = mock(CustomerRedemptionRepository.class);
+    private final CouponCodeRepository codeRepository = mock(CouponCodeRepository.class);
+    private final RedemptionProperties properties = new RedemptionProperties();
+
+    // What the database would hold after the flushes so far
+    private final Map<Long, Long> persistedCoupons = new ConcurrentHashMap<>();
+    private final Map<String, Long> persistedCustomers = new ConcurrentHashMap<>();
+    private final Map<String, CouponCodeStatus> codes = new ConcurrentHashMap<>();
+    private final AtomicBoolean databaseDown = new AtomicBoolean();
+
+    private RedemptionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        properties.setFlushIntervalMs(60_000);
+
+        when(couponRepository.findRedemptionCount(anyLong()))
+                .thenAnswer(inv -> Optional.ofNullable(persistedCoupons.get(inv.<Long>getArgument(0))));
+        when(couponRepository.addRedemptions(anyLong(), anyLong())).thenAnswer(inv -> {
+            if (databaseDown.get()) {
+                throw new IllegalStateException("connection refused");
+            }
+            persistedCoupons.merge(inv.getArgument(0), inv.getArgument(1), Long::sum);
+            return 1;
+        });
+        when(customerRepository.findRedeemed(anyLong(), anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(persistedCustomers.get(inv.getArgument(0) + "/" + inv.getArgument(1))));
+        when(customerRepository.addRedemptions(anyLong(), anyString(), anyLong())).thenAnswer(inv -> {
+            String key = inv.getArgument(0) + "/" + inv.getArgument(1);
+            return persistedCustomers.computeIfPresent(key, (k, v) -> v + inv.<Long>getArgument(2)) == null ? 0 : 1;
+        });
+        when(customerRepository.save(any())).thenAnswer(inv -> {
+            CustomerRedemption row = inv.getArgument(0);
+            persistedCustomers.put(row.getCouponId() + "/" + row.getCustomerId(), row.getRedeemed());
+            return row;
+        });
+
+        // Conditional single-row updates, as the database would run them
+        when(codeRepository.claim(anyString(), anyLong(), anyLong(), any(), any())).thenAnswer(inv ->
+                codes.replace(inv.getArgument(0), CouponCodeStatus.AVAILABLE, CouponCodeStatus.RESERVED) ? 1 : 0);
+        when(codeRepository.transition(anyString(), any(), any())).thenAnswer(inv ->
+                codes.replace(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)) ? 1 : 0);
+
+        service = new RedemptionServiceImpl(couponRepository, customerRepository, codeRepository,
+                mock(PlatformTransactionManager.class), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void unlimitedCouponsHoldNothing() {
+        assertNull(service.reserve(coupon(1L, null, null), null, null));
+    }
+
+    @Test
+    void concurrentRedemptionsNeverExceedTheLimit() throws Exception {
+        int limit = 500;
+        Coupon coupon = coupon(1L, limit, null);
+        persistedCoupons.put(1L, 20L);
+
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(32, 400, (thread, i) -> {
+            try {
+                Reservation reservation = service.reserve(coupon, "customer-" + thread, null);
+                // Abandon every third cart, so released slots get reused
+                if (i % 3 == 0) {
+                    service.release(reservation.getId());
+                } else {
+                    service.confirm(reservation.getId());
+                    confirmed.incrementAndGet();
+                }
+            } catch (RedemptionLimitExceededException ex) {
+                rejected.incrementAndGet();
+            }
+            if (i % 50 == 0) {
+                service.flush();
+            }
+        });
+        service.flush();
+
+        assertEquals(limit - 20, confirmed.get());
+        assertTrue(rejected.get() > 0);
+        assertEquals(limit, persistedCoupons.get(1L));
+        assertThrows(RedemptionLimitExceededException.class, () -> service.reserve(coupon, "late", null));
+    }
+
+    @Test
+    void perCustomerLimitHoldsUnderContention() throws Exception {
+        Coupon coupon = coupon(2L, 1000, 3);
+
+        AtomicInteger granted = new AtomicInteger();
+        runConcurrently(16, 50, (thread, i) -> {
+            try {
+                service.confirm(service.reserve(coupon, "alice", null).getId());
+                granted.incrementAndGet();
+            } catch (RedemptionLimitExceededException ignored) {
+            }
+        });
+        service.flush();
+
+        assertEquals(3, granted.get());
+        assertEquals(3L, persistedCustomers.get("2/alice"));
+        // The customer's rejections gave their global slots back
+        assertEquals(3L, persistedCoupons.get(2L));
+        assertNotNull(service.reserve(coupon, "bob", null));
+    }
+
+    @Test
+    void singleUseCodeGoesToOneCart() throws Exception {
+        Coupon coupon = coupon(7L, null, null);
+        codes.put("SUMMER-ABCD", CouponCodeStatus.AVAILABLE);
+
+        AtomicInteger granted = new AtomicInteger();
+        List<String> held = new CopyOnWriteArrayList<>();
+        runConcurrently(16, 20, (thread, i) -> {
+            try {
+                held.add(service.reserve(coupon, null, "SUMMER-ABCD").getId());
+                granted.incrementAndGet();
+            } catch (RedemptionLimitExceededException ignored) {
+            }
+        });
+        assertEquals(1, granted.get());
+
+        service.release(held.get(0));
+        assertEquals(CouponCodeStatus.AVAILABLE, codes.get("SUMMER-ABCD"));
+
+        Reservation reservation = service.reserve(coupon, null, "SUMMER-ABCD");
+        assertEquals("SUMMER-ABCD", reservation.getCode());
+        service.confirm(reservation.getId());
+        assertEquals(CouponCodeStatus.REDEEMED, codes.get("SUMMER-ABCD"));
+        assertThrows(RedemptionLimitExceededException.class, () -> service.reserve(coupon, null, "SUMMER-ABCD"));
+    }
+
+    @Test
+    void rejectedReservationGivesTheCodeBack() {
+        Coupon coupon = coupon(8L, 0, null);
+        codes.put("SUMMER-EFGH", CouponCodeStatus.AVAILABLE);
+
+        assertThrows(RedemptionLimitExceededException.class, () -> service.reserve(coupon, null, "SUMMER-EFGH"));
+        assertEquals(CouponCodeStatus.AVAILABLE, codes.get("SUMMER-EFGH"));
+    }
+
+    @Test
+    void customerIdIsRequiredForPerCustomerLimits() {
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> service.reserve(coupon(3L, null, 1), null, null));
+        assertTrue(ex.getMessage().contains("customer id is required"));
+    }
+
+    @Test
+    void expiredReservationsAreReleased() throws Exception {
+        properties.setReservationTtlMs(1);
+        Coupon coupon = coupon(4L, 1, null);
+
+        Reservation reservation = service.reserve(coupon, null, null);
+        assertThrows(RedemptionLimitExceededException.class, () -> service.reserve(coupon, null, null));
+
+        Thread.sleep(5);
+        service.expire();
+
+        assertThrows(RuntimeException.class, () -> service.confirm(reservation.getId()));
+        assertNotNull(service.reserve(coupon, null, null));
+    }
+
+    @Test
+    void failedFlushKeepsCountsForTheNextOne() {
+        Coupon coupon = coupon(5L, 10, null);
+        service.confirm(service.reserve(coupon, null, null).getId());
+        service.confirm(service.reserve(coupon, null, null).getId());
+
+        databaseDown.set(true);
+        service.flush();
+        assertNull(persistedCoupons.get(5L));
+
+        databaseDown.set(false);
+        service.flush();
+        service.flush();
+        assertEquals(2L, persistedCoupons.get(5L));
+        verify(couponRepository, times(2)).addRedemptions(eq(5L), eq(2L));
+    }
+
+    @Test
+    void idleCustomerCountersReloadFromTheDatabase() throws Exception {
+        properties.setReservationTtlMs(1);
+        Coupon coupon = coupon(6L, null, 2);
+        service.confirm(service.reserve(coupon, "carol", null).getId());
+
+        Thread.sleep(5);
+        service.expire();               // still pending, so kept
+        service.flush();
+        service.expire();               // now dropped
+
+        service.confirm(service.reserve(coupon, "carol", null).getId());
+        assertThrows(RedemptionLimitExceededException.class, () -> service.reserve(coupon, "carol", null));
+        verify(customerRepository, times(2)).findRedeemed(6L, "carol");
+    }
+
+    private interface Step {
+        void run(int thread, int iteration) throws Exception;
+    }
+
+    private static void runConcurrently(int threads, int iterations, Step step) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    step.run(thread, i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Coupon coupon(Long id, Integer maxRedemptions, Integer maxPerCustomer) {
+        return Coupon.builder()
+                .id(id)
+                .code("LIMITED" + id)
+                .active(true)
+                .maxRedemptions(maxRedemptions)
+                .maxRedemptionsPerCustomer(maxPerCustomer)
+                .build();
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.CMS.service.impl;
+
+import com.example.CMS.common.CouponCodes;
+import com.example.CMS.config.RuleEngineProperties;
+import com.example.CMS.engine.CompiledRuleCache;
+import com.example.CMS.engine.CompiledRuleStore;
+import com.example.CMS.engine.CouponEvaluationExecutor;
+import com.example.CMS.engine.CouponResultCache;
+import com.example.CMS.engine.DraftCouponEvaluator;
+import com.example.CMS.engine.DrlCompiler;
+import com.example.CMS.engine.RuleCompilationExecutor;
+import com.example.CMS.engine.RuleEngineMetrics;
+import com.example.CMS.engine.evaluator.*;
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.entity.enums.CouponType;
+import com.example.CMS.model.cart.Cart;
+import com.example.CMS.model.cart.CartDelta;
+import com.example.CMS.model.cart.CartItem;
+import com.example.CMS.model.cart.CartSummary;
+import com.example.CMS.model.catalog.CatalogSnapshot;
+import com.example.CMS.model.dto.CartSessionResponse;
+import com.example.CMS.model.rule.ApplicableCoupons;
+import com.example.CMS.model.rule.DiscountDecision;
+import com.example.CMS.repository.CouponRepository;
+import com.example.CMS.support.SeedTemplates;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RuleEngineServiceImplTest {
+
+    private final Map<String, CouponRuleTemplate> templates = SeedTemplates.byName();
+
+    private final List<Coupon> coupons = new ArrayList<>();
+    private final RuleEngineProperties properties = new RuleEngineProperties();
+    private CouponEvaluationExecutor executor;
+    private RuleCompilationExecutor compileExecutor;
+    private CouponCatalogServiceImpl catalog;
+    private SimpleMeterRegistry meterRegistry;
+
+    @TempDir
+    Path storeDirectory;
+
+    @BeforeEach
+    void setUp() {
+        properties.getStore().setDirectory(storeDirectory.toString());
+        for (long id = 1; id <= 300; id++) {
+            switch ((int) (id % 3)) {
+                case 0 -> coupons.add(coupon(id, CouponType.CART, "Cart Percent Template",
+                        Map.of("minCartValue", id, "discountPercent", 1 + id % 20)));
+                case 1 -> coupons.add(coupon(id, CouponType.PRODUCT, "Product Fixed Discount",
+                        Map.of("discountAmount", id % 50, "productIds", List.of("P" + id % 7))));
+                default -> coupons.add(coupon(id, CouponType.BXGY, "BUY_X_GET_Y_PRODUCT",
+                        Map.of("buyQty", 1 + id % 3, "getQty", 1, "repetitionLimit", id % 4,
+                                "buyProducts", List.of("P1", "P2"), "getProducts", List.of("P" + id % 7))));
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (compileExecutor != null) {
+            compileExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void parallelEvaluationMatchesSequential() {
+        Cart cart = cart(item("P1", 100, 3), item("P2", 200, 2), item("P5", 300, 1), item("P6", 250, 2));
+
+        properties.getParallel().setEnabled(false);
+        List<DiscountDecision> sequential = service().evaluateAllCoupons(cart);
+        assertFalse(sequential.isEmpty());
+
+        properties.getParallel().setEnabled(true);
+        properties.getParallel().setMinCoupons(1);
+        properties.getParallel().setChunkSize(16);
+        properties.getParallel().setCouponTimeoutMs(10_000);
+        properties.getParallel().setRequestTimeoutMs(10_000);
+        List<DiscountDecision> parallel = service().evaluateAllCoupons(cart);
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getCouponId(), parallel.get(i).getCouponId());
+            assertEquals(sequential.get(i).getDiscountAmount(), parallel.get(i).getDiscountAmount());
+        }
+    }
+
+    @Test
+    void restartRestoresSharedRuleBaseFromStore() throws Exception {
+        Cart cart = cart(item("P1", 100, 3), item("P2", 200, 2), item("P5", 300, 1), item("P6", 250, 2));
+        properties.setNativeEvaluators(false);
+        properties.setEvaluationMode(RuleEngineProperties.EvaluationMode.SHARED_SESSION);
+
+        assertEquals(1, service().warmUp(60_000));
+        List<DiscountDecision> compiled = service().evaluateAllCoupons(cart);
+
+        try (Stream<Path> files = Files.walk(storeDirectory)) {
+            assertTrue(files.anyMatch(file -> file.toString().endsWith(".kpkg")));
+        }
+
+        // A fresh service has an empty in-memory cache and must restore from disk.
+        List<DiscountDecision> restored = service().evaluateAllCoupons(cart);
+
+        assertFalse(compiled.isEmpty());
+        assertEquals(discountsById(compiled), discountsById(restored));
+    }
+
+    @Test
+    void executableModelMatchesClassic() {
+        Cart cart = cart(item("P1", 100, 3), item("P2", 200, 2), item("P5", 300, 1), item("P6", 250, 2));
+        properties.setNativeEvaluators(false);
+        properties.getCompile().setWaitTimeoutMs(60_000);
+        // Executable-model builds run javac, so keep the catalog small
+        coupons.subList(12, coupons.size()).clear();
+        Map<Long, Double> classic = discountsById(service().evaluateAllCoupons(cart));
+        assertFalse(classic.isEmpty());
+
+        properties.getCompile().setBuildMode(RuleEngineProperties.BuildMode.EXECUTABLE_MODEL);
+        assertEquals(classic, discountsById(service().evaluateAllCoupons(cart)));
+    }
+
+    @Test
+    void candidateIndexOnlySkipsCouponsThatCannotApply() {
+        List<Cart> carts = List.of(
+                cart(),
+                cart(item("P3", 40, 1)),
+                cart(item("P1", 100, 3), item("P2", 200, 2), item("P5", 300, 1), item("P6", 250, 2)),
+                cart(item("P4", 500, 1), item("P6", 10, 1)));
+
+        for (Cart cart : carts) {
+            properties.setCandidateIndex(false);
+            Map<Long, Double> all = discountsById(service().evaluateAllCoupons(cart));
+
+            properties.setCandidateIndex(true);
+            RuleEngineServiceImpl indexed = service();
+            assertEquals(all, discountsById(indexed.evaluateAllCoupons(cart)));
+
+            LocalDate today = LocalDate.now();
+            assertTrue(catalog.current().candidates(CartSummary.of(cart), today).size() < catalog.current().liveEntries(today).size());
+        }
+    }
+
+    @Test
+    void codesResolveIgnoringCase() {
+        service();
+        CatalogSnapshot snapshot = catalog.current();
+
+        assertEquals(42L, snapshot.findByCode(CouponCodes.normalize(" c42 ")).getId());
+        assertNull(snapshot.findByCode(CouponCodes.normalize("C301")));
+        assertNull(snapshot.findByCode(CouponCodes.normalize(null)));
+    }
+
+    @Test
+    void candidateIndexFiltersSharedSessionRules() {
+        Cart cart = cart(item("P3", 40, 1), item("P6", 10, 2));
+        properties.setNativeEvaluators(false);
+        properties.setEvaluationMode(RuleEngineProperties.EvaluationMode.SHARED_SESSION);
+
+        properties.setCandidateIndex(false);
+        Map<Long, Double> all = discountsById(service().evaluateAllCoupons(cart));
+
+        properties.setCandidateIndex(true);
+        assertEquals(all, discountsById(service().evaluateAllCoupons(cart)));
+    }
+
+    @Test
+    void batchReturnsEachCartsCouponsInInputOrder() {
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            carts.add(cart(item("P" + i % 7, 10 + i, 1 + i % 3), item("P" + (i + 3) % 7, 40, 2)));
+        }
+        properties.getBatch().setMaxInFlight(4);
+        RuleEngineServiceImpl service = service();
+
+        List<Integer> indexes = new ArrayList<>();
+        List<Map<Long, Double>> batched = new ArrayList<>();
+        service.evaluateBatch(carts.iterator(), (index, decisions) -> {
+            indexes.add(index);
+            batched.add(discountsById(decisions));
+        });
+
+        assertEquals(carts.size(), batched.size());
+        for (int i = 0; i < carts.size(); i++) {
+            assertEquals(i, indexes.get(i));
+            assertEquals(discountsById(service.evaluateAllCoupons(carts.get(i))), batched.get(i));
+        }
+    }
+
+    @Test
+    void evaluationIsRecordedInMetrics() {
+        Cart cart = cart(item("P1", 100, 3), item("P2", 200, 2));
+        properties.setCandidateIndex(false);
+        RuleEngineServiceImpl service = service();
+
+        List<DiscountDecision> decisions = service.evaluateAllCoupons(cart);
+
+        assertEquals(1, meterRegistry.get("cms.rules.request").timer().count());
+        assertEquals(coupons.size(), meterRegistry.get("cms.rules.request.coupons")
+                .tag("result", "evaluated").summary().totalAmount());
+        assertEquals(decisions.size(), meterRegistry.get("cms.rules.request.coupons")
+                .tag("result", "applicable").summary().totalAmount());
+        assertEquals(coupons.size(), meterRegistry.get("cms.rules.coupon.evaluation")
+                .tag("engine", "native").timers().stream().mapToLong(Timer::count).sum());
+    }
+
+    @Test
+    void cartSessionDeltasMatchFullEvaluation() {
+        RuleEngineServiceImpl service = service();
+        CartSessionServiceImpl sessions = new CartSessionServiceImpl(service, properties);
+        try {
+            Cart cart = cart(item("P1", 100, 3), item("P2", 200, 2));
+            sessions.open("cart-1", cart);
+
+            List<List<CartDelta>> edits = List.of(
+                    List.of(delta(CartDelta.Op.ADD, "P5", 300, 1)),
+                    List.of(delta(CartDelta.Op.SET_QUANTITY, "P1", 0, 1)),
+                    List.of(delta(CartDelta.Op.ADD, "P2", 200, 2), delta(CartDelta.Op.REMOVE, "P5", 0, 0)),
+                    List.of(delta(CartDelta.Op.SET_QUANTITY, "P2", 0, 0)));
+
+            for (List<CartDelta> edit : edits) {
+                CartSessionResponse response = sessions.applyDeltas("cart-1", edit);
+
+                assertEquals(discountsById(service.evaluateAllCoupons(response.getCart())),
+                        discountsById(response.getCoupons()));
+                assertTrue(response.getCouponsEvaluated() < coupons.size());
+            }
+        } finally {
+            sessions.shutdown();
+        }
+    }
+
+    @Test
+    void identicalCartsAreServedFromResultCache() {
+        RuleEngineServiceImpl service = service();
+        List<DiscountDecision> first = service.evaluateAllCoupons(cart(item("P1", 100, 3), item("P2", 200, 2)));
+        first.get(0).setDiscountAmount(-1);
+
+        // Same lines in another order
+        List<DiscountDecision> second = service.evaluateAllCoupons(cart(item("P2", 200, 2), item("P1", 100, 3)));
+        assertEquals(1, service.getResultCacheStats().getHits());
+        assertEquals(1, meterRegistry.get("cms.rules.request").timer().count());
+        assertTrue(second.stream().allMatch(dd -> dd.getDiscountAmount() > 0));
+
+        service.evaluateAllCoupons(cart(item("P1", 100, 4), item("P2", 200, 2)));
+        assertEquals(2, service.getResultCacheStats().getMisses());
+
+        // A coupon change publishes a new catalog version, which empties the cache
+        coupons.remove(0);
+        catalog.rebuild();
+        List<DiscountDecision> afterChange = service.evaluateAllCoupons(cart(item("P1", 100, 3), item("P2", 200, 2)));
+        assertEquals(3, service.getResultCacheStats().getMisses());
+        assertEquals(1, service.getResultCacheStats().getSize());
+        assertFalse(discountsById(afterChange).containsKey(1L));
+    }
+
+    @Test
+    void nativeOnlyEvaluationSkipsDroolsCoupons() {
+        Cart cart = cart(item("P1", 100, 3), item("P2", 200, 2), item("P5", 300, 1));
+
+        ApplicableCoupons degraded = service().evaluateNativeOnly(cart);
+        assertFalse(degraded.isPartial());
+        assertEquals(discountsById(service().evaluateAllCoupons(cart)), discountsById(degraded.getDecisions()));
+
+        properties.setNativeEvaluators(false);
+        degraded = service().evaluateNativeOnly(cart);
+        assertTrue(degraded.isPartial());
+        assertTrue(degraded.getDecisions().isEmpty());
+    }
+
+    @Test
+    void skipPolicyLeavesCompilingCouponsOutUntilReady() {
+        Cart cart = cart(item("P1", 100, 3), item("P2", 200, 2), item("P5", 300, 1));
+        properties.setNativeEvaluators(false);
+        properties.getCompile().setWaitTimeoutMs(60_000);
+        coupons.subList(30, coupons.size()).clear();
+        Map<Long, Double> complete = discountsById(service().evaluateAllCoupons(cart));
+
+        // A fresh store, so every coupon has to compile again
+        properties.getStore().setEnabled(false);
+        properties.getCompile().setMissPolicy(RuleEngineProperties.MissPolicy.SKIP);
+        RuleEngineServiceImpl service = service();
+
+        List<DiscountDecision> early = service.evaluateAllCoupons(cart);
+        assertTrue(compileExecutor.skipped() > 0);
+        assertTrue(early.size() < complete.size());
+        assertEquals(0, service.getResultCacheStats().getSize());
+
+        service.warmUp(60_000);
+        assertEquals(complete, discountsById(service.evaluateAllCoupons(cart)));
+    }
+
+    @Test
+    void draftsEvaluateLikeCatalogCouponsWithoutTouchingCaches() {
+        List<Cart> carts = List.of(
+                cart(item("P1", 100, 3), item("P2", 200, 2), item("P5", 300, 1)),
+                cart(item("P3", 40, 1)),
+                cart(item("P2", 50, 4), item("P6", 250, 2)));
+        List<Coupon> drafts = List.of(coupons.get(0), coupons.get(1), coupons.get(2));
+
+        for (Coupon draft : drafts) {
+            properties.setNativeEvaluators(true);
+            RuleEngineServiceImpl service = service();
+            List<Double> natively = new ArrayList<>();
+            try (DraftCouponEvaluator evaluator = service.prepareDraft(draft)) {
+                assertTrue(evaluator.isNative());
+                carts.forEach(cart -> natively.add(discount(evaluator.evaluate(cart))));
+            }
+
+            properties.setNativeEvaluators(false);
+            service = service();
+            List<Double> drools = new ArrayList<>();
+            try (DraftCouponEvaluator evaluator = service.prepareDraft(draft)) {
+                assertFalse(evaluator.isNative());
+                carts.forEach(cart -> drools.add(discount(evaluator.evaluate(cart))));
+            }
+
+            assertTrue(natively.stream().anyMatch(Objects::nonNull));
+            assertEquals(natively, drools);
+            assertEquals(0, service.getCacheStats().getSize());
+            assertEquals(0, service.getResultCacheStats().getSize());
+        }
+    }
+
+    private static Double discount(DiscountDecision decision) {
+        return decision == null ? null : decision.getDiscountAmount();
+    }
+
+    // Coupons with equal discounts may come back in any order.
+    private Map<Long, Double> discountsById(List<DiscountDecision> decisions) {
+        Map<Long, Double> discounts = new TreeMap<>();
+        decisions.forEach(d -> discounts.put(d.getCouponId(), d.getDiscountAmount()));
+        return discounts;
+    }
+
+    private RuleEngineServiceImpl service() {
+        CouponRepository repository = mock(CouponRepository.class);
+        when(repository.findActiveNotExpired(any())).thenReturn(coupons);
+
+        CouponEvaluatorRegistry registry = new CouponEvaluatorRegistry(List.of(
+                new CartPercentEvaluator(), new ProductFixedDiscountEvaluator(),
+                new BuyXGetYProductEvaluator(), new BuyXGetYCategoryEvaluator()), properties);
+        catalog = new CouponCatalogServiceImpl(repository, registry);
+
+        if (executor != null) {
+            executor.shutdown();
+        }
+        executor = new CouponEvaluationExecutor(properties);
+
+        CompiledRuleCache ruleCache = new CompiledRuleCache(properties);
+        CouponResultCache resultCache = new CouponResultCache(properties);
+        meterRegistry = new SimpleMeterRegistry();
+        if (compileExecutor != null) {
+            compileExecutor.shutdown();
+        }
+        compileExecutor = new RuleCompilationExecutor(properties, meterRegistry);
+        return new RuleEngineServiceImpl(repository, null, new TemplateServiceImpl(), catalog, properties,
+                new DrlCompiler(properties), ruleCache, resultCache, new CompiledRuleStore(properties), executor, compileExecutor,
+                new RuleEngineMetrics(meterRegistry, properties, ruleCache, resultCache));
+    }
+
+    private Coupon coupon(Long id, CouponType type, String templateName, Map<String, Object> metadata) {
+        return Coupon.builder()
+                .id(id)
+                .code("C" + id)
+                .type(type)
+                .active(true)
+                .metadata(metadata)
+                .ruleTemplate(templates.get(templateName))
+                .build();
+    }
+
+    private static Cart cart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setItems(new ArrayList<>(List.of(items)));
+        return cart;
+    }
+
+    private static CartDelta delta(CartDelta.Op op, String productId, double price, int quantity) {
+        return new CartDelta(op, productId, "Product " + productId, "general", price, quantity);
+    }
+
+    private static CartItem item(String productId, double price, int quantity) {
+        return new CartItem(productId, "Product " + productId, "general", price, quantity);
+    }
+}
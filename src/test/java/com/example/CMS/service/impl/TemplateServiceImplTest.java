@@ -0,0 +1,83 @@
+package com.example.CMS.service.impl;
+
+import com.example.CMS.config.RuleEngineProperties;
+import com.example.CMS.engine.DrlCompiler;
+import com.example.CMS.engine.DrlTemplateException;
+import com.example.CMS.entity.Coupon;
+import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.entity.enums.CouponType;
+import com.example.CMS.support.SeedTemplates;
+import org.junit.jupiter.api.Test;
+import org.kie.api.runtime.KieContainer;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateServiceImplTest {
+
+    private final TemplateServiceImpl templateService = new TemplateServiceImpl();
+
+    @Test
+    void quotesInMetadataAreEscaped() {
+        CouponRuleTemplate template = SeedTemplates.byName().get("BUY_X_GET_Y_CATEGORY");
+        Coupon coupon = coupon(template, Map.of("buyQty", 2, "getQty", 1, "repetitionLimit", 2,
+                "category", "kids \"summer\" \\ sale"));
+
+        String drl = templateService.generateDRL(coupon, template);
+
+        assertTrue(drl.contains("String category = \"kids \\\"summer\\\" \\\\ sale\";"));
+        KieContainer container = new DrlCompiler(new RuleEngineProperties()).compile(drl);
+        container.dispose();
+    }
+
+    @Test
+    void listsRenderAsStringLiterals() {
+        CouponRuleTemplate template = SeedTemplates.byName().get("Product Fixed Discount");
+        Coupon coupon = coupon(template, Map.of("discountAmount", 7.5, "productIds", List.of("P1", "P\"2")));
+
+        String drl = templateService.generateDRL(coupon, template);
+
+        assertTrue(drl.contains("double discountAmount = 7.5;"));
+        assertTrue(drl.contains("java.util.Arrays.asList(\"P1\",\"P\\\"2\")"));
+        assertTrue(drl.contains("java.lang.Long.valueOf(42)"));
+    }
+
+    @Test
+    void missingAndUnknownMetadataIsReported() {
+        CouponRuleTemplate template = SeedTemplates.byName().get("Cart Percent Template");
+
+        DrlTemplateException ex = assertThrows(DrlTemplateException.class, () -> templateService.validateMetadata(
+                Map.of("minCartValue", 100, "discount", 10, "couponId", 1), template));
+
+        assertEquals(3, ex.getProblems().size(), ex.getMessage());
+        assertTrue(ex.getMessage().contains("Missing metadata 'discountPercent'"));
+        assertTrue(ex.getMessage().contains("Unknown metadata 'discount'"));
+
+        templateService.validateMetadata(Map.of("minCartValue", 100, "discountPercent", 10), template);
+    }
+
+    @Test
+    void changedTemplateIsParsedAgain() {
+        CouponRuleTemplate template = CouponRuleTemplate.builder().id(99L).name("Custom").type(CouponType.CART)
+                .drlTemplate("value = {{a}};").build();
+        Coupon coupon = coupon(template, Map.of("a", 1, "b", 2));
+
+        assertEquals("value = 1;", templateService.generateDRL(coupon, template));
+
+        template.setDrlTemplate("value = {{b}};");
+        assertEquals("value = 2;", templateService.generateDRL(coupon, template));
+    }
+
+    private static Coupon coupon(CouponRuleTemplate template, Map<String, Object> metadata) {
+        return Coupon.builder()
+                .id(42L)
+                .code("C42")
+                .type(template.getType())
+                .active(true)
+                .metadata(metadata)
+                .ruleTemplate(template)
+                .build();
+    }
+}
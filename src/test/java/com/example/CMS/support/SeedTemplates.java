@@ -0,0 +1,47 @@
+package com.example.CMS.support;
+
+import com.example.CMS.entity.CouponRuleTemplate;
+import com.example.CMS.entity.enums.CouponType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the rule templates seeded by data.sql so tests run against the real DRL.
+ */
+public final class SeedTemplates {
+
+    private static final Pattern TEMPLATE_ROW = Pattern.compile(
+            "\\((\\d+), '([^']*)', '(\\w+)',\\s*'(package.*?end\\s*)'\\)", Pattern.DOTALL);
+
+    private SeedTemplates() {
+    }
+
+    public static Map<String, CouponRuleTemplate> byName() {
+        String sql;
+        try (InputStream in = SeedTemplates.class.getResourceAsStream("/data.sql")) {
+            sql = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Map<String, CouponRuleTemplate> templates = new LinkedHashMap<>();
+        Matcher m = TEMPLATE_ROW.matcher(sql);
+        while (m.find()) {
+            CouponRuleTemplate template = CouponRuleTemplate.builder()
+                    .id(Long.valueOf(m.group(1)))
+                    .name(m.group(2))
+                    .type(CouponType.valueOf(m.group(3)))
+                    .drlTemplate(m.group(4))
+                    .build();
+            templates.put(template.getName(), template);
+        }
+        return templates;
+    }
+}
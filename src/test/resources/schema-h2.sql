@@ -0,0 +1,77 @@
+-- H2 version of the MySQL schema Hibernate creates, used by the embedded profile.
+-- Generated ids start above the explicit ids in data.sql.
+CREATE TABLE IF NOT EXISTS product (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH 1000) PRIMARY KEY,
+    product_id VARCHAR(255) NOT NULL UNIQUE,
+    name VARCHAR(255),
+    category VARCHAR(255),
+    price DOUBLE NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS coupon_rule_template (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH 1000) PRIMARY KEY,
+    name VARCHAR(255),
+    type VARCHAR(32),
+    drl_template CLOB
+);
+
+CREATE TABLE IF NOT EXISTS coupon_master (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH 1000) PRIMARY KEY,
+    code VARCHAR(255),
+    type VARCHAR(32),
+    active BOOLEAN,
+    start_date DATE,
+    end_date DATE,
+    metadata CLOB,
+    max_redemptions INT,
+    max_redemptions_per_customer INT,
+    redemption_count BIGINT NOT NULL DEFAULT 0,
+    rule_template_id BIGINT REFERENCES coupon_rule_template (id)
+);
+
+CREATE TABLE IF NOT EXISTS coupon_customer_redemption (
+    coupon_id BIGINT NOT NULL,
+    customer_id VARCHAR(255) NOT NULL,
+    redeemed BIGINT NOT NULL,
+    PRIMARY KEY (coupon_id, customer_id)
+);
+
+CREATE TABLE IF NOT EXISTS coupon_code_campaign (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    coupon_id BIGINT NOT NULL,
+    pattern VARCHAR(64) NOT NULL,
+    requested_count BIGINT NOT NULL,
+    generated_count BIGINT NOT NULL,
+    next_index BIGINT NOT NULL,
+    secret BIGINT NOT NULL,
+    status VARCHAR(16),
+    error VARCHAR(1000)
+);
+
+-- Hibernate's pooled optimizer expects the increment to match the allocation size
+CREATE SEQUENCE IF NOT EXISTS coupon_code_seq START WITH 1 INCREMENT BY 1000;
+
+CREATE TABLE IF NOT EXISTS coupon_code (
+    id BIGINT PRIMARY KEY,
+    code VARCHAR(64) NOT NULL UNIQUE,
+    coupon_id BIGINT NOT NULL,
+    campaign_id BIGINT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    reserved_until BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS idx_coupon_code_coupon ON coupon_code (coupon_id);
+
+CREATE TABLE IF NOT EXISTS cache_change_log (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    type VARCHAR(16) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    first_id BIGINT,
+    last_id BIGINT,
+    node_id VARCHAR(64) NOT NULL,
+    created_at BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_cache_change_created ON cache_change_log (created_at);